@@ -18,7 +18,7 @@ const UserDashboard: React.FC = () => {
   const { user: currentUser, logout, canManageUser } = useAuthStore();
 
   // User store
-  const { users, loading, error, fetchUsers, clearError } = useUserStore();
+  const { users, loading, error, fetchUsers, loadMoreUsers, hasNext, loadingMore, clearError } = useUserStore();
 
   // Local state
   const [editingUser, setEditingUser] = useState<User | null>(null);
@@ -176,6 +176,19 @@ const UserDashboard: React.FC = () => {
             )}
           </div>
         )}
+
+        {!loading && !error && hasNext && (
+          <div className="load-more">
+            <button
+              onClick={() => loadMoreUsers()}
+              className="load-more-button"
+              disabled={loadingMore}
+              aria-label="Load more users"
+            >
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </main>
 
       {editingUser && (
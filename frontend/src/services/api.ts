@@ -2,6 +2,7 @@ import axios, { AxiosInstance, AxiosError, AxiosResponse, InternalAxiosRequestCo
 import {
   ApiResponse,
   PaginatedResponse,
+  CursorPageResponse,
   ApiError,
   RateLimitHeaders,
   RateLimitExceededEvent,
@@ -157,9 +158,14 @@ const api = {
     return await apiClient.post('/api/auth/login', credentials);
   },
 
-  // Get all users
-  getUsers: async (): Promise<AxiosResponse<User[]>> => {
-    return await apiClient.get('/api/users');
+  // Get one page of users; pass the previous page's nextCursor as `after` for the next one
+  getUsers: async (after?: number | null, size?: number): Promise<AxiosResponse<CursorPageResponse<User>>> => {
+    const queryParams = new URLSearchParams();
+    if (after !== undefined && after !== null) queryParams.append('after', after.toString());
+    if (size !== undefined) queryParams.append('size', size.toString());
+    const query = queryParams.toString();
+
+    return await apiClient.get(query ? `/api/users?${query}` : '/api/users');
   },
 
   // Get single user by ID
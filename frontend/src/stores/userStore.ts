@@ -9,11 +9,11 @@ interface UserState {
   loading: boolean;
   error: string | null;
 
-  // Pagination
-  page: number;
+  // Pagination (keyset: GET /api/users returns a cursor to the next page, no totals)
   pageSize: number;
-  totalPages: number;
-  totalElements: number;
+  nextCursor: number | null;
+  hasNext: boolean;
+  loadingMore: boolean;
 
   // Filters
   searchTerm: string;
@@ -21,6 +21,7 @@ interface UserState {
 
   // Actions
   fetchUsers: () => Promise<void>;
+  loadMoreUsers: () => Promise<void>;
   fetchUser: (id: number) => Promise<void>;
   createUser: (userData: Partial<User>) => Promise<User>;
   updateUser: (id: number, userData: Partial<User>) => Promise<User>;
@@ -29,7 +30,6 @@ interface UserState {
   setSelectedUser: (user: User | null) => void;
   setSearchTerm: (term: string) => void;
   setRoleFilter: (role: string | null) => void;
-  setPage: (page: number) => void;
   setPageSize: (size: number) => void;
 
   clearError: () => void;
@@ -45,10 +45,10 @@ export const useUserStore = create<UserState>()(
       loading: false,
       error: null,
 
-      page: 0,
       pageSize: 20,
-      totalPages: 0,
-      totalElements: 0,
+      nextCursor: null,
+      hasNext: false,
+      loadingMore: false,
 
       searchTerm: '',
       roleFilter: null,
@@ -57,9 +57,11 @@ export const useUserStore = create<UserState>()(
       fetchUsers: async (): Promise<void> => {
         set({ loading: true, error: null });
         try {
-          const response = await api.getUsers();
+          const response = await api.getUsers(null, get().pageSize);
           set({
-            users: response.data,
+            users: response.data.content,
+            nextCursor: response.data.nextCursor,
+            hasNext: response.data.hasNext,
             loading: false,
           });
         } catch (error: any) {
@@ -70,6 +72,29 @@ export const useUserStore = create<UserState>()(
         }
       },
 
+      loadMoreUsers: async (): Promise<void> => {
+        const { hasNext, nextCursor, pageSize, loadingMore } = get();
+        if (!hasNext || loadingMore) {
+          return;
+        }
+
+        set({ loadingMore: true, error: null });
+        try {
+          const response = await api.getUsers(nextCursor, pageSize);
+          set((state) => ({
+            users: [...state.users, ...response.data.content],
+            nextCursor: response.data.nextCursor,
+            hasNext: response.data.hasNext,
+            loadingMore: false,
+          }));
+        } catch (error: any) {
+          set({
+            error: error.message || 'Failed to fetch users',
+            loadingMore: false,
+          });
+        }
+      },
+
       fetchUser: async (id: number): Promise<void> => {
         set({ loading: true, error: null });
         try {
@@ -164,12 +189,8 @@ export const useUserStore = create<UserState>()(
         set({ roleFilter: role });
       },
 
-      setPage: (page: number): void => {
-        set({ page });
-      },
-
       setPageSize: (size: number): void => {
-        set({ pageSize: size, page: 0 });
+        set({ pageSize: size, nextCursor: null, hasNext: false });
       },
 
       clearError: (): void => {
@@ -182,10 +203,10 @@ export const useUserStore = create<UserState>()(
           selectedUser: null,
           loading: false,
           error: null,
-          page: 0,
           pageSize: 20,
-          totalPages: 0,
-          totalElements: 0,
+          nextCursor: null,
+          hasNext: false,
+          loadingMore: false,
           searchTerm: '',
           roleFilter: null,
         });
@@ -17,6 +17,13 @@ export interface PaginatedResponse<T> {
   first: boolean;
 }
 
+export interface CursorPageResponse<T> {
+  content: T[];
+  size: number;
+  nextCursor: number | null;
+  hasNext: boolean;
+}
+
 export interface ApiError {
   message: string;
   status?: number;
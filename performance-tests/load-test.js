@@ -71,7 +71,7 @@ export default function (data) {
   sleep(1);
 
   // Test 2: Get Users (admin only)
-  const usersRes = http.get(`${data.baseUrl}/api/users`, {
+  const usersRes = http.get(`${data.baseUrl}/api/users?size=50`, {
     headers: {
       'Authorization': `Bearer ${token}`,
       'Content-Type': 'application/json',
@@ -81,6 +81,11 @@ export default function (data) {
 
   check(usersRes, {
     'get users status is 200 or 403': (r) => r.status === 200 || r.status === 403,
+    'get users returns a cursor page': (r) => {
+      if (r.status !== 200) return true;
+      const page = JSON.parse(r.body);
+      return Array.isArray(page.content) && typeof page.hasNext === 'boolean';
+    },
   });
 
   sleep(1);
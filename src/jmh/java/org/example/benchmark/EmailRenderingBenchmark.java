@@ -0,0 +1,91 @@
+package org.example.benchmark;
+
+import org.example.service.EmailTemplateRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single-thread email rendering throughput: {@link EmailTemplateRenderer}
+ * against a fresh {@link Context} and variable map per email (the previous approach).
+ *
+ * Security-alert fan-outs (e.g. mass lockouts) need thousands of renders per second
+ * per core; multiply by the number of threads producing emails for the total. Run with:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="EmailRenderingBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class EmailRenderingBenchmark {
+
+    private static final String APP_NAME = "CRUD Test Application";
+    private static final String SUPPORT_EMAIL = "noreply@crudtest.com";
+
+    @Param({"account-locked-email", "suspicious-login-email"})
+    String templateName;
+
+    SpringTemplateEngine templateEngine;
+    EmailTemplateRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode("HTML");
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        renderer = new EmailTemplateRenderer(templateEngine, SUPPORT_EMAIL, APP_NAME, "http://localhost:8080");
+        renderer.preloadTemplates();
+    }
+
+    @Benchmark
+    public String renderer() {
+        return renderer.render(templateName, renderer.variables()
+                .with("username", "john.doe")
+                .with("reason", "Too many failed login attempts")
+                .with("ipAddress", "203.0.113.7")
+                .with("location", "Unknown")
+                .with("device", "Firefox on Linux")
+                .with("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.now())));
+    }
+
+    @Benchmark
+    public String freshContext() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("username", "john.doe");
+        variables.put("reason", "Too many failed login attempts");
+        variables.put("ipAddress", "203.0.113.7");
+        variables.put("location", "Unknown");
+        variables.put("device", "Firefox on Linux");
+        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        variables.put("appName", APP_NAME);
+        variables.put("supportEmail", SUPPORT_EMAIL);
+        variables.put("securityUrl", "http://localhost:8080/security");
+        variables.put("year", LocalDateTime.now().getYear());
+
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(templateName, context);
+    }
+}
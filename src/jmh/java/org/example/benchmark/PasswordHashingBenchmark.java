@@ -0,0 +1,72 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of one password hash for the candidate work factors.
+ *
+ * Pick the highest cost whose single-hash latency stays under the login latency
+ * target; the sustainable hash rate is then roughly
+ * {@code app.security.password.hashing.threads / latency}. Run with:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="PasswordHashingBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "Correct-Horse-Battery-9";
+
+    @State(Scope.Benchmark)
+    public static class BCryptState {
+
+        @Param({"10", "11", "12", "13", "14"})
+        int strength;
+
+        BCryptPasswordEncoder encoder;
+
+        @Setup
+        public void setUp() {
+            encoder = new BCryptPasswordEncoder(strength);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Argon2State {
+
+        @Param({"19456", "47104", "65536"})
+        int memoryKib;
+
+        @Param({"1", "2", "3"})
+        int iterations;
+
+        Argon2PasswordEncoder encoder;
+
+        @Setup
+        public void setUp() {
+            encoder = new Argon2PasswordEncoder(16, 32, 1, memoryKib, iterations);
+        }
+    }
+
+    @Benchmark
+    public String bcrypt(BCryptState state) {
+        return state.encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String argon2(Argon2State state) {
+        return state.encoder.encode(PASSWORD);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Propagates changes of per-instance caches to the other instances.
+ *
+ * Messages go out on a Redis channel only when the Redis listener container is
+ * configured (spring.cache.type=redis); each cache subscribes to its own channel in
+ * CacheConfig. Messages are fire-and-forget: a failed publish is logged, and other
+ * instances converge through the cache's own bound on staleness (entry TTL, or an
+ * authoritative database check).
+ */
+@Component
+@Slf4j
+public class CacheEvictionPublisher {
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    public CacheEvictionPublisher(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                                  ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider) {
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.listenerContainerProvider = listenerContainerProvider;
+    }
+
+    /**
+     * Evict locally now and, inside a transaction, again after commit, so a concurrent
+     * load cannot re-cache the old state; the other instances are notified once the
+     * change is visible.
+     *
+     * @param evictLocally eviction on this instance
+     * @param channel channel the cache listens on
+     * @param message message the cache's listener applies
+     */
+    public void evict(Runnable evictLocally, String channel, String message) {
+        evictLocally.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(channel, message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictLocally.run();
+                publish(channel, message);
+            }
+        });
+    }
+
+    /**
+     * Publish a message to the other instances, if Redis is configured.
+     *
+     * @param channel channel the cache listens on
+     * @param message message the cache's listener applies
+     */
+    public void publish(String channel, String message) {
+        if (listenerContainerProvider.getIfAvailable() == null) {
+            return;
+        }
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.warn("Failed to publish on {}: {}", channel, e.getMessage());
+        }
+    }
+}
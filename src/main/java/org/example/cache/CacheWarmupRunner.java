@@ -0,0 +1,154 @@
+package org.example.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.repository.LoginAttemptRepository;
+import org.example.repository.ThreatIntelligenceRepository;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms connection pool and caches before the pod accepts traffic.
+ *
+ * Spring Boot only switches readiness to ACCEPTING_TRAFFIC after all application
+ * runners have completed, so the readiness probe stays down while this runs. The
+ * warm-up is bounded by a time budget; whatever is not warm by then is loaded on
+ * demand, and failures never prevent startup.
+ *
+ * Phases, in order:
+ * <ol>
+ *   <li>Open Hikari connections up to the pool's minimum idle size</li>
+ *   <li>Load the most active users (by recent successful logins) into the
+ *       second-level entity/natural-id caches and the shared profile cache</li>
+ *   <li>Load recently seen high-risk and blacklisted IPs into the threat-intelligence cache</li>
+ * </ol>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWarmupRunner implements ApplicationRunner {
+
+    private static final int HOT_THREAT_RISK_THRESHOLD = 60;
+
+    private final DataSource dataSource;
+    private final UserRepository userRepository;
+    private final LoginAttemptRepository loginAttemptRepository;
+    private final ThreatIntelligenceRepository threatRepository;
+
+    @Value("${app.warmup.time-budget-ms:20000}")
+    private long timeBudgetMs;
+
+    @Value("${app.warmup.active-users:500}")
+    private int activeUserLimit;
+
+    @Value("${app.warmup.active-users-lookback-hours:24}")
+    private int activeUserLookbackHours;
+
+    @Value("${app.warmup.threat-entries:1000}")
+    private int threatEntryLimit;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        log.info("Cache warm-up started (budget {} ms)", timeBudgetMs);
+
+        int connections = primeConnectionPool(deadline);
+        int users = warmActiveUsers(deadline);
+        int threats = warmThreatIntelligence(deadline);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (System.nanoTime() >= deadline) {
+            log.warn("Cache warm-up hit its {} ms budget: {} connections, {} users, {} threat entries warmed",
+                    timeBudgetMs, connections, users, threats);
+        } else {
+            log.info("Cache warm-up completed in {} ms: {} connections, {} users, {} threat entries warmed",
+                    elapsedMs, connections, users, threats);
+        }
+    }
+
+    /**
+     * Hold up to minimum-idle connections at once so the pool physically opens them
+     * now rather than on the first requests.
+     */
+    private int primeConnectionPool(long deadline) {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            int target = dataSource.unwrap(HikariDataSource.class).getMinimumIdle();
+            while (connections.size() < target && System.nanoTime() < deadline) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException e) {
+            log.warn("Connection pool warm-up failed: {}", e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Failed to return warm-up connection to pool: {}", e.getMessage());
+                }
+            }
+        }
+        return connections.size();
+    }
+
+    private int warmActiveUsers(long deadline) {
+        int warmed = 0;
+        try {
+            List<String> usernames = loginAttemptRepository.findMostActiveUsernames(
+                    LocalDateTime.now().minusHours(activeUserLookbackHours),
+                    PageRequest.of(0, activeUserLimit));
+
+            for (String username : usernames) {
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+                userRepository.loadByUsername(username)
+                        .ifPresent(user -> userRepository.findResponseById(user.getId()));
+                warmed++;
+            }
+        } catch (Exception e) {
+            log.warn("User cache warm-up failed after {} users: {}", warmed, e.getMessage());
+        }
+        return warmed;
+    }
+
+    private int warmThreatIntelligence(long deadline) {
+        int warmed = 0;
+        try {
+            List<String> ipAddresses = threatRepository.findHotIpAddresses(
+                    HOT_THREAT_RISK_THRESHOLD, PageRequest.of(0, threatEntryLimit));
+
+            for (String ipAddress : ipAddresses) {
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+                threatRepository.loadByIpAddress(ipAddress);
+                warmed++;
+            }
+        } catch (Exception e) {
+            log.warn("Threat intelligence cache warm-up failed after {} entries: {}", warmed, e.getMessage());
+        }
+        return warmed;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Envelope stored in Redis for stampede-protected caches.
+ *
+ * The physical Redis TTL is longer than {@code freshUntil}; between the two the
+ * entry is stale and may be served while a single background refresh runs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedValue {
+
+    /**
+     * The cached payload.
+     */
+    private Object value;
+
+    /**
+     * Epoch millis after which the entry is considered stale.
+     */
+    private long freshUntil;
+
+    /**
+     * How long the loader took to compute the value, used for early refresh.
+     */
+    private long computeMillis;
+}
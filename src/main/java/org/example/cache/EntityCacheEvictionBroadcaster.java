@@ -0,0 +1,178 @@
+package org.example.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.ThreatIntelligence;
+import org.example.entity.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the per-instance Hibernate second-level cache of security-relevant entities
+ * consistent across instances.
+ *
+ * Ehcache regions are local to each instance, so a change committed on one instance
+ * (role change, lock, deletion, IP blacklisting) would otherwise stay invisible to the
+ * others until the region TTL. After commit, every update or delete of a broadcast
+ * entity is published on {@link #CHANNEL} (see {@link CacheEvictionPublisher}) and
+ * each instance evicts the entity; a changed
+ * natural id also evicts the entity's natural-id region. Bulk JPQL statements bypass
+ * entity events, so their callers publish through {@link #evict(Class, Object)} or
+ * {@link #evictAll(Class)}.
+ *
+ * Messages are fire-and-forget; the region TTLs in ehcache.xml bound staleness if one is
+ * lost.
+ */
+@Component
+@Slf4j
+public class EntityCacheEvictionBroadcaster implements MessageListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    public static final String CHANNEL = "entity-cache-evictions";
+
+    private static final String NATURAL_ID_SUFFIX = ":n";
+    private static final String ALL = "*";
+
+    private static final Map<String, Class<?>> BROADCAST_ENTITIES = Stream.of(User.class, ThreatIntelligence.class)
+            .collect(Collectors.toUnmodifiableMap(Class::getSimpleName, Function.identity()));
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheEvictionPublisher evictionPublisher;
+
+    public EntityCacheEvictionBroadcaster(EntityManagerFactory entityManagerFactory,
+                                          CacheEvictionPublisher evictionPublisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.evictionPublisher = evictionPublisher;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Evict an entity on every instance: now, again after commit when called inside a
+     * transaction, and on the other instances once the change is visible.
+     *
+     * @param entityClass broadcast entity class
+     * @param id entity ID
+     */
+    public void evict(Class<?> entityClass, Object id) {
+        evictionPublisher.evict(() -> evictLocally(entityClass, id, false), CHANNEL, message(entityClass, id, false));
+    }
+
+    /**
+     * Evict all entries of an entity (entity and natural-id data) on every instance,
+     * e.g. after a bulk delete.
+     *
+     * @param entityClass broadcast entity class
+     */
+    public void evictAll(Class<?> entityClass) {
+        evictionPublisher.evict(() -> evictLocally(entityClass, null, true), CHANNEL, message(entityClass, ALL, false));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return BROADCAST_ENTITIES.containsValue(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            evictionPublisher.publish(CHANNEL, message(event.getPersister().getMappedClass(), event.getId(),
+                    naturalIdChanged(event.getPersister(), event.getOldState(), event.getState())));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            evictionPublisher.publish(CHANNEL, message(event.getPersister().getMappedClass(), event.getId(),
+                    event.getPersister().hasNaturalIdentifier()));
+        }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was committed, so other instances hold no stale state
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was committed, so other instances hold no stale state
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.US_ASCII);
+        boolean naturalId = body.endsWith(NATURAL_ID_SUFFIX);
+        if (naturalId) {
+            body = body.substring(0, body.length() - NATURAL_ID_SUFFIX.length());
+        }
+        int separator = body.indexOf(':');
+        Class<?> entityClass = separator > 0 ? BROADCAST_ENTITIES.get(body.substring(0, separator)) : null;
+        if (entityClass == null) {
+            log.warn("Ignoring malformed entity cache eviction message");
+            return;
+        }
+        String id = body.substring(separator + 1);
+        if (ALL.equals(id)) {
+            evictLocally(entityClass, null, true);
+            return;
+        }
+        try {
+            evictLocally(entityClass, Long.parseLong(id), naturalId);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed entity cache eviction message");
+        }
+    }
+
+    private void evictLocally(Class<?> entityClass, Object id, boolean naturalId) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (id == null) {
+            sessionFactory.getCache().evictEntityData(entityClass);
+        } else {
+            sessionFactory.getCache().evictEntityData(entityClass, id);
+        }
+        if (naturalId) {
+            sessionFactory.getCache().evictNaturalIdData(entityClass);
+        }
+    }
+
+    private static boolean naturalIdChanged(EntityPersister persister, Object[] oldState, Object[] state) {
+        if (!persister.hasNaturalIdentifier()) {
+            return false;
+        }
+        if (oldState == null) {
+            return true;
+        }
+        return Arrays.stream(persister.getNaturalIdentifierProperties())
+                .anyMatch(index -> !Objects.equals(oldState[index], state[index]));
+    }
+
+    private static String message(Class<?> entityClass, Object id, boolean naturalId) {
+        return entityClass.getSimpleName() + ":" + id + (naturalId ? NATURAL_ID_SUFFIX : "");
+    }
+}
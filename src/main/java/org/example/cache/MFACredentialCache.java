@@ -0,0 +1,79 @@
+package org.example.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per-instance cache of decoded MFA credentials by user ID, so code verification on the
+ * login path does not read {@code mfa_settings}.
+ *
+ * Users without MFA settings are cached as empty. Entries are evicted whenever the
+ * settings change (setup, enable, disable, backup-code changes); the eviction is
+ * repeated after commit so a concurrent load cannot re-cache the old row. Evictions are
+ * published on {@link #CHANNEL} (see {@link CacheEvictionPublisher}) and applied by
+ * every instance; without Redis the TTL bounds staleness on other instances.
+ */
+@Component
+@Slf4j
+public class MFACredentialCache implements MessageListener {
+
+    public static final String CHANNEL = "mfa-credential-evictions";
+
+    private final CacheEvictionPublisher evictionPublisher;
+    private final Cache<Long, Optional<MFACredentials>> credentials;
+
+    public MFACredentialCache(CacheEvictionPublisher evictionPublisher,
+                              @Value("${mfa.credential-cache.max-entries:10000}") long maxEntries,
+                              @Value("${mfa.credential-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.evictionPublisher = evictionPublisher;
+        this.credentials = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Decoded credentials of one user.
+     *
+     * @param secretKey raw TOTP key (Base32-decoded secret)
+     * @param backupCodeSalt salt of the backup code hashes
+     * @param backupCodeHashes salted hashes of the unused backup codes
+     */
+    public record MFACredentials(byte[] secretKey, byte[] backupCodeSalt, List<byte[]> backupCodeHashes) {
+    }
+
+    /**
+     * Get the user's credentials, loading them once on a miss.
+     */
+    public Optional<MFACredentials> get(Long userId, Function<Long, Optional<MFACredentials>> loader) {
+        return credentials.asMap().computeIfAbsent(userId, loader);
+    }
+
+    /**
+     * Evict the user's credentials now and, inside a transaction, again after commit;
+     * other instances are notified once the change is visible.
+     */
+    public void evict(Long userId) {
+        evictionPublisher.evict(() -> credentials.invalidate(userId), CHANNEL, userId.toString());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            credentials.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.US_ASCII)));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed MFA credential eviction message");
+        }
+    }
+}
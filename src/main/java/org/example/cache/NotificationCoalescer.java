@@ -0,0 +1,328 @@
+package org.example.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.enums.EmailType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-recipient coalescing windows for notification emails.
+ *
+ * The first notification of a type for a recipient opens a window and is sent right
+ * away. Further notifications of that type within the window are suppressed; they are
+ * counted and their details kept (identical details once, up to a bounded number of
+ * distinct ones). When the window has ended, the suppressed notifications are returned
+ * as one {@link Digest}, so a recipient gets at most two emails per type and window
+ * however often the event fires.
+ *
+ * When Redis is configured (spring.cache.type=redis), windows are shared by all
+ * instances: the window-open marker is a key set with NX and the window as expiry, and
+ * the suppressed notifications are counted in a hash (HINCRBY), both updated by one
+ * script per notification. Ended windows are listed in a sorted set by end time, and
+ * each digest is claimed by exactly one instance. If Redis fails, or is not configured,
+ * windows are held in memory per instance, bounded by entry count; a window evicted
+ * under pressure loses its digest (its first notification was already sent).
+ */
+@Component
+@Slf4j
+public class NotificationCoalescer {
+
+    private static final String KEY_PREFIX = "notify:";
+    private static final String WINDOW_PREFIX = KEY_PREFIX + "window:";
+    private static final String DIGEST_PREFIX = KEY_PREFIX + "digest:";
+    private static final String DUE_DIGESTS_KEY = KEY_PREFIX + "digests-due";
+    private static final String EVENT_FIELD_PREFIX = "e:";
+    private static final int DRAIN_BATCH_SIZE = 500;
+
+    /*
+     * KEYS: window marker, digest hash, due set. ARGV: now (epoch ms), window (ms),
+     * recipient, username, detail ('' for none), max distinct details.
+     * Returns {1, previous digest fields...} when the notification opens a window,
+     * {0} when it is suppressed.
+     */
+    private static final RedisScript<List> ADMIT = RedisScript.of("""
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                local result = {1}
+                if redis.call('ZREM', KEYS[3], KEYS[2]) == 1 then
+                    for _, value in ipairs(redis.call('HGETALL', KEYS[2])) do
+                        table.insert(result, value)
+                    end
+                    redis.call('DEL', KEYS[2])
+                end
+                return result
+            end
+            redis.call('HSETNX', KEYS[2], 'recipient', ARGV[3])
+            redis.call('HSETNX', KEYS[2], 'firstAt', ARGV[1])
+            redis.call('HSET', KEYS[2], 'lastAt', ARGV[1], 'username', ARGV[4])
+            redis.call('HINCRBY', KEYS[2], 'suppressed', 1)
+            if ARGV[5] ~= '' then
+                local field = 'e:' .. ARGV[5]
+                if redis.call('HEXISTS', KEYS[2], field) == 1 then
+                    redis.call('HINCRBY', KEYS[2], field, 1)
+                elseif tonumber(redis.call('HGET', KEYS[2], 'events') or '0') < tonumber(ARGV[6]) then
+                    redis.call('HINCRBY', KEYS[2], field, 1)
+                    redis.call('HINCRBY', KEYS[2], 'events', 1)
+                end
+            end
+            local endsAt = tonumber(redis.call('GET', KEYS[1]) or ARGV[1]) + tonumber(ARGV[2])
+            redis.call('ZADD', KEYS[3], endsAt, KEYS[2])
+            redis.call('PEXPIREAT', KEYS[2], endsAt + tonumber(ARGV[2]))
+            return {0}
+            """, List.class);
+
+    // Claim an ended window's digest; only one instance gets its fields
+    private static final RedisScript<List> CLAIM_DIGEST = RedisScript.of("""
+            if redis.call('ZREM', KEYS[2], KEYS[1]) == 0 then
+                return {}
+            end
+            local fields = redis.call('HGETALL', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return fields
+            """, List.class);
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+    private final Duration window;
+    private final int maxRecentEvents;
+    private final Cache<Key, Window> windows;
+
+    public NotificationCoalescer(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                                 ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider,
+                                 @Value("${app.mail.coalescing.window-seconds:900}") long windowSeconds,
+                                 @Value("${app.mail.coalescing.max-entries:100000}") long maxEntries,
+                                 @Value("${app.mail.coalescing.max-recent-events:5}") int maxRecentEvents) {
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.listenerContainerProvider = listenerContainerProvider;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.maxRecentEvents = maxRecentEvents;
+        this.windows = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Recipient (case-insensitive) and notification type of a window.
+     */
+    public record Key(String recipient, EmailType type) {
+    }
+
+    /**
+     * Notifications suppressed during one window.
+     *
+     * @param recipient recipient address
+     * @param type notification type
+     * @param username username of the last suppressed notification
+     * @param suppressed number of suppressed notifications
+     * @param firstAt time of the first suppressed notification
+     * @param lastAt time of the last suppressed notification
+     * @param recentEvents distinct event details with their number of occurrences
+     */
+    public record Digest(String recipient, EmailType type, String username, int suppressed,
+                         LocalDateTime firstAt, LocalDateTime lastAt, Map<String, Integer> recentEvents) {
+    }
+
+    /**
+     * Outcome of {@link #admit}.
+     *
+     * @param send whether the notification should be sent now
+     * @param closed digest of the recipient's previous, already ended window, if it had
+     *               suppressed notifications that were not collected yet
+     */
+    public record Admission(boolean send, Digest closed) {
+    }
+
+    /**
+     * Register a notification.
+     *
+     * @param recipient recipient address
+     * @param type notification type
+     * @param username recipient's username, for the digest
+     * @param detail what happened (e.g. the lock reason), may be null
+     * @param now time of the notification
+     * @return whether to send it, and a digest to send first if one is due
+     */
+    public Admission admit(String recipient, EmailType type, String username, String detail, LocalDateTime now) {
+        Key key = new Key(recipient.toLowerCase(Locale.ROOT), type);
+        StringRedisTemplate redisTemplate = sharedStore();
+        if (redisTemplate != null) {
+            try {
+                return admitShared(redisTemplate, key, recipient, username, detail, now);
+            } catch (Exception e) {
+                log.warn("Failed to coalesce notification in Redis, using local window: {}", e.getMessage());
+            }
+        }
+
+        Digest[] closed = new Digest[1];
+        boolean[] send = new boolean[1];
+
+        windows.asMap().compute(key, (k, current) -> {
+            if (current == null || !now.isBefore(current.endsAt)) {
+                if (current != null) {
+                    closed[0] = current.toDigest(k);
+                }
+                send[0] = true;
+                return new Window(recipient, now.plus(window));
+            }
+            current.suppress(username, detail, now, maxRecentEvents);
+            return current;
+        });
+        return new Admission(send[0], closed[0]);
+    }
+
+    /**
+     * Remove the windows that have ended and return the digests of those with suppressed
+     * notifications.
+     *
+     * @param now current time
+     * @return due digests
+     */
+    public List<Digest> drainDigests(LocalDateTime now) {
+        List<Digest> digests = new ArrayList<>();
+        StringRedisTemplate redisTemplate = sharedStore();
+        if (redisTemplate != null) {
+            try {
+                drainShared(redisTemplate, now, digests);
+            } catch (Exception e) {
+                log.warn("Failed to drain notification digests from Redis: {}", e.getMessage());
+            }
+        }
+
+        for (Map.Entry<Key, Window> entry : windows.asMap().entrySet()) {
+            Window current = entry.getValue();
+            if (now.isBefore(current.endsAt) || !windows.asMap().remove(entry.getKey(), current)) {
+                continue;
+            }
+            Digest digest = current.toDigest(entry.getKey());
+            if (digest != null) {
+                digests.add(digest);
+            }
+        }
+        return digests;
+    }
+
+    private StringRedisTemplate sharedStore() {
+        if (listenerContainerProvider.getIfAvailable() == null) {
+            return null;
+        }
+        return redisTemplateProvider.getIfAvailable();
+    }
+
+    private Admission admitShared(StringRedisTemplate redisTemplate, Key key, String recipient, String username,
+                                  String detail, LocalDateTime now) {
+        String suffix = key.recipient() + ":" + key.type().name();
+        List<?> result = redisTemplate.execute(ADMIT,
+                List.of(WINDOW_PREFIX + suffix, DIGEST_PREFIX + suffix, DUE_DIGESTS_KEY),
+                String.valueOf(toEpochMillis(now)), String.valueOf(window.toMillis()), recipient,
+                username != null ? username : "", detail != null ? detail : "", String.valueOf(maxRecentEvents));
+        if (result == null || result.isEmpty() || !Long.valueOf(1L).equals(result.get(0))) {
+            return new Admission(false, null);
+        }
+        return new Admission(true, toDigest(key.type(), result.subList(1, result.size())));
+    }
+
+    private void drainShared(StringRedisTemplate redisTemplate, LocalDateTime now, List<Digest> digests) {
+        Set<String> due = redisTemplate.opsForZSet()
+                .rangeByScore(DUE_DIGESTS_KEY, 0, toEpochMillis(now), 0, DRAIN_BATCH_SIZE);
+        if (due == null) {
+            return;
+        }
+        for (String digestKey : due) {
+            List<?> fields = redisTemplate.execute(CLAIM_DIGEST, List.of(digestKey, DUE_DIGESTS_KEY));
+            String type = digestKey.substring(digestKey.lastIndexOf(':') + 1);
+            Digest digest = fields != null ? toDigest(EmailType.valueOf(type), fields) : null;
+            if (digest != null) {
+                digests.add(digest);
+            }
+        }
+    }
+
+    /**
+     * Digest from the flattened field/value list of a digest hash, or null if nothing
+     * was suppressed.
+     */
+    private static Digest toDigest(EmailType type, List<?> fields) {
+        Map<String, String> hash = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            hash.put(String.valueOf(fields.get(i)), String.valueOf(fields.get(i + 1)));
+        }
+        if (!hash.containsKey("suppressed")) {
+            return null;
+        }
+        Map<String, Integer> recentEvents = new LinkedHashMap<>();
+        hash.forEach((field, value) -> {
+            if (field.startsWith(EVENT_FIELD_PREFIX)) {
+                recentEvents.put(field.substring(EVENT_FIELD_PREFIX.length()), Integer.parseInt(value));
+            }
+        });
+        String username = hash.get("username");
+        return new Digest(hash.get("recipient"), type, username == null || username.isEmpty() ? null : username,
+                Integer.parseInt(hash.get("suppressed")),
+                fromEpochMillis(hash.get("firstAt")), fromEpochMillis(hash.get("lastAt")),
+                Collections.unmodifiableMap(recentEvents));
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(String millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(millis)), ZoneId.systemDefault());
+    }
+
+    /**
+     * A coalescing window; only mutated while the cache holds its key's lock.
+     */
+    private static final class Window {
+
+        private final String recipient;
+        private final LocalDateTime endsAt;
+        private final Map<String, Integer> recentEvents = new LinkedHashMap<>();
+        private String username;
+        private int suppressed;
+        private LocalDateTime firstAt;
+        private LocalDateTime lastAt;
+
+        private Window(String recipient, LocalDateTime endsAt) {
+            this.recipient = recipient;
+            this.endsAt = endsAt;
+        }
+
+        private void suppress(String username, String detail, LocalDateTime now, int maxRecentEvents) {
+            this.username = username;
+            suppressed++;
+            if (firstAt == null) {
+                firstAt = now;
+            }
+            lastAt = now;
+            if (detail != null && (recentEvents.containsKey(detail) || recentEvents.size() < maxRecentEvents)) {
+                recentEvents.merge(detail, 1, Integer::sum);
+            }
+        }
+
+        private Digest toDigest(Key key) {
+            if (suppressed == 0) {
+                return null;
+            }
+            return new Digest(recipient, key.type(), username, suppressed, firstAt, lastAt,
+                    Collections.unmodifiableMap(new LinkedHashMap<>(recentEvents)));
+        }
+    }
+}
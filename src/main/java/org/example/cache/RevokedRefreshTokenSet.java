@@ -0,0 +1,132 @@
+package org.example.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.repository.RefreshTokenFamilyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-instance sets of recently revoked refresh-token digests and token families, so
+ * logged-out tokens are rejected without a database round-trip and access tokens of a
+ * revoked family are refused immediately instead of living until they expire.
+ *
+ * The token set is only a fast negative path: a token that is not in it is still
+ * verified against the database, which stays authoritative. Rotated tokens are not
+ * added, so their reuse still reaches the database and revokes the family. Token
+ * entries expire after the refresh-token lifetime and family entries after the
+ * access-token lifetime, since anything older is rejected as expired anyway; both sets
+ * are bounded.
+ *
+ * Revoked families are reloaded from the database at startup. Each revocation is
+ * published on {@link #CHANNEL} (see {@link CacheEvictionPublisher}) and applied by
+ * every instance; an instance that misses one falls back to the database check.
+ */
+@Component
+@Slf4j
+public class RevokedRefreshTokenSet implements MessageListener, ApplicationRunner {
+
+    public static final String CHANNEL = "refresh-token-revocations";
+
+    private static final String TOKEN_PREFIX = "t:";
+    private static final String FAMILY_PREFIX = "f:";
+
+    private final CacheEvictionPublisher evictionPublisher;
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final long accessTokenDurationMs;
+    private final Cache<ByteBuffer, Boolean> revokedTokens;
+    private final Cache<Long, Boolean> revokedFamilies;
+
+    public RevokedRefreshTokenSet(CacheEvictionPublisher evictionPublisher,
+                                  RefreshTokenFamilyRepository familyRepository,
+                                  @Value("${app.security.refresh-token.revoked-set.max-entries:50000}") long maxEntries,
+                                  @Value("${jwt.refresh-expiration:604800000}") long refreshTokenDurationMs,
+                                  @Value("${jwt.expiration:3600000}") long accessTokenDurationMs) {
+        this.evictionPublisher = evictionPublisher;
+        this.familyRepository = familyRepository;
+        this.accessTokenDurationMs = accessTokenDurationMs;
+        this.revokedTokens = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(refreshTokenDurationMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.revokedFamilies = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(accessTokenDurationMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Load families revoked within the access-token lifetime, whose access tokens may
+     * still be presented.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(accessTokenDurationMs, ChronoUnit.MILLIS);
+            familyRepository.findIdsRevokedSince(since).forEach(id -> revokedFamilies.put(id, Boolean.TRUE));
+            log.info("Loaded {} recently revoked refresh token families", revokedFamilies.size());
+        } catch (Exception e) {
+            log.warn("Failed to load revoked refresh token families: {}", e.getMessage());
+        }
+    }
+
+    public boolean isRevoked(byte[] tokenHash) {
+        return revokedTokens.getIfPresent(ByteBuffer.wrap(tokenHash)) != null;
+    }
+
+    public boolean isFamilyRevoked(Long familyId) {
+        return familyId != null && revokedFamilies.getIfPresent(familyId) != null;
+    }
+
+    /**
+     * Record a token revocation locally and broadcast it to the other instances. Call
+     * only after the revocation has committed.
+     */
+    public void markRevoked(byte[] tokenHash) {
+        remember(tokenHash);
+        evictionPublisher.publish(CHANNEL, TOKEN_PREFIX + Base64.getEncoder().encodeToString(tokenHash));
+    }
+
+    /**
+     * Record a token already known to be revoked (seen in the database), locally only.
+     */
+    public void remember(byte[] tokenHash) {
+        revokedTokens.put(ByteBuffer.wrap(tokenHash.clone()), Boolean.TRUE);
+    }
+
+    /**
+     * Record a family revocation locally and broadcast it to the other instances. Call
+     * only after the revocation has committed.
+     */
+    public void markFamilyRevoked(Long familyId) {
+        revokedFamilies.put(familyId, Boolean.TRUE);
+        evictionPublisher.publish(CHANNEL, FAMILY_PREFIX + familyId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.US_ASCII);
+        try {
+            if (body.startsWith(TOKEN_PREFIX)) {
+                revokedTokens.put(ByteBuffer.wrap(Base64.getDecoder().decode(body.substring(TOKEN_PREFIX.length()))),
+                        Boolean.TRUE);
+            } else if (body.startsWith(FAMILY_PREFIX)) {
+                revokedFamilies.put(Long.parseLong(body.substring(FAMILY_PREFIX.length())), Boolean.TRUE);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed refresh token revocation message");
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.example.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cache decorator that protects the database from cache stampedes.
+ *
+ * <ul>
+ *   <li><b>Single-flight loading</b> - only one loader runs per key per pod; concurrent
+ *       callers wait on the same future instead of hitting the database.</li>
+ *   <li><b>Probabilistic early refresh</b> - fresh entries are refreshed in the background
+ *       slightly before they expire (XFetch), spreading reloads away from the TTL boundary.</li>
+ *   <li><b>Stale-while-revalidate</b> - expired entries within the stale window are served
+ *       immediately while one background refresh replaces them.</li>
+ * </ul>
+ *
+ * Early refresh and stale serving only apply to {@code @Cacheable(sync = true)} lookups,
+ * since those are the only ones that hand the cache a loader.
+ */
+@Slf4j
+public class StampedeProtectedCache implements Cache {
+
+    private final Cache delegate;
+    private final Duration freshTtl;
+    private final double earlyRefreshBeta;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public StampedeProtectedCache(Cache delegate, Duration freshTtl, double earlyRefreshBeta, Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.freshTtl = freshTtl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CachedValue entry = read(key);
+        if (entry == null || isStale(entry)) {
+            // Callers without a loader cannot revalidate, so stale entries count as misses
+            return null;
+        }
+        return new SimpleValueWrapper(entry.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CachedValue entry = read(key);
+
+        if (entry == null) {
+            return (T) load(key, valueLoader);
+        }
+
+        if (isStale(entry)) {
+            log.debug("Serving stale entry for cache '{}' key '{}' while revalidating", getName(), key);
+            refreshAsync(key, valueLoader);
+        } else if (shouldRefreshEarly(entry)) {
+            log.debug("Early refresh triggered for cache '{}' key '{}'", getName(), key);
+            refreshAsync(key, valueLoader);
+        }
+
+        return (T) entry.getValue();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        write(key, value, 0L);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing == null) {
+            put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * Load the value for a key, coalescing concurrent loads into a single loader call.
+     */
+    private Object load(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            log.debug("Waiting on in-flight load for cache '{}' key '{}'", getName(), key);
+            return await(key, valueLoader, existing);
+        }
+
+        try {
+            // Another pod-local caller may have finished loading between our read and registration
+            CachedValue entry = read(key);
+            Object value;
+            if (entry != null && !isStale(entry)) {
+                value = entry.getValue();
+            } else {
+                long start = System.currentTimeMillis();
+                value = valueLoader.call();
+                write(key, value, System.currentTimeMillis() - start);
+            }
+            future.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Refresh a key in the background unless a load for it is already running.
+     */
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long start = System.currentTimeMillis();
+                    Object value = valueLoader.call();
+                    write(key, value, System.currentTimeMillis() - start);
+                    future.complete(value);
+                } catch (Throwable ex) {
+                    log.warn("Background refresh failed for cache '{}' key '{}': {}", getName(), key, ex.getMessage());
+                    future.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Could not schedule background refresh for cache '{}' key '{}': {}", getName(), key, ex.getMessage());
+            inFlight.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause() != null ? ex.getCause() : ex);
+        }
+    }
+
+    /**
+     * XFetch: refresh with increasing probability as expiry approaches, weighted by recompute cost.
+     */
+    private boolean shouldRefreshEarly(CachedValue entry) {
+        if (entry.getComputeMillis() <= 0 || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        double gap = -entry.getComputeMillis() * earlyRefreshBeta * Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.getFreshUntil();
+    }
+
+    private boolean isStale(CachedValue entry) {
+        return entry.getFreshUntil() > 0 && System.currentTimeMillis() >= entry.getFreshUntil();
+    }
+
+    private CachedValue read(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            return null;
+        }
+        Object raw = wrapper.get();
+        if (raw instanceof CachedValue cachedValue) {
+            return cachedValue;
+        }
+        // Entry written before stampede protection was enabled; treat as fresh until it expires
+        return new CachedValue(raw, 0L, 0L);
+    }
+
+    private void write(Object key, Object value, long computeMillis) {
+        if (value == null) {
+            // Null results are never cached so misses keep falling through to the loader
+            return;
+        }
+        long freshUntil = System.currentTimeMillis() + freshTtl.toMillis();
+        delegate.put(key, new CachedValue(value, freshUntil, computeMillis));
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Cache manager that wraps the configured caches of a delegate manager in a
+ * {@link StampedeProtectedCache}. Caches without a registered fresh TTL are
+ * returned undecorated.
+ */
+public class StampedeProtectedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final Map<String, Duration> freshTtls;
+    private final double earlyRefreshBeta;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+    public StampedeProtectedCacheManager(CacheManager delegate,
+                                         Map<String, Duration> freshTtls,
+                                         double earlyRefreshBeta,
+                                         Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.freshTtls = Map.copyOf(freshTtls);
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Duration freshTtl = freshTtls.get(name);
+        if (freshTtl == null) {
+            return delegate.getCache(name);
+        }
+        return decoratedCaches.computeIfAbsent(name, cacheName -> {
+            Cache cache = delegate.getCache(cacheName);
+            return cache != null
+                    ? new StampedeProtectedCache(cache, freshTtl, earlyRefreshBeta, refreshExecutor)
+                    : null;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
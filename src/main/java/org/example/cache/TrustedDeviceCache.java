@@ -0,0 +1,103 @@
+package org.example.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per-instance trusted-device state, so the trusted-device path of a login touches
+ * neither {@code trusted_devices} reads nor writes.
+ *
+ * <ul>
+ *   <li>Trusted devices per user, as device identifier (fixed-width SHA-256) to
+ *       trusted-until. Evicted when a device is trusted or revoked, again after commit,
+ *       and on other instances through {@link #CHANNEL} (see {@link CacheEvictionPublisher})</li>
+ *   <li>Pending last-used timestamps, coalesced to the latest use per device until the
+ *       next flush writes them in one batch</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TrustedDeviceCache implements MessageListener {
+
+    public static final String CHANNEL = "trusted-device-evictions";
+
+    private final CacheEvictionPublisher evictionPublisher;
+    private final Cache<Long, Map<String, LocalDateTime>> devices;
+    private final ConcurrentHashMap<DeviceUse, LocalDateTime> pendingUses = new ConcurrentHashMap<>();
+
+    public TrustedDeviceCache(CacheEvictionPublisher evictionPublisher,
+                              @Value("${mfa.trusted-device.cache.max-entries:10000}") long maxEntries,
+                              @Value("${mfa.trusted-device.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.evictionPublisher = evictionPublisher;
+        this.devices = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * A device of a user, as recorded by {@link #recordUse}.
+     */
+    public record DeviceUse(Long userId, String deviceIdentifier) {
+    }
+
+    /**
+     * Get the user's trusted devices (identifier to trusted-until), loading them once on a miss.
+     */
+    public Map<String, LocalDateTime> get(Long userId, Function<Long, Map<String, LocalDateTime>> loader) {
+        return devices.asMap().computeIfAbsent(userId, loader);
+    }
+
+    /**
+     * Evict the user's devices now and, inside a transaction, again after commit; other
+     * instances are notified once the change is visible.
+     */
+    public void evict(Long userId) {
+        evictionPublisher.evict(() -> devices.invalidate(userId), CHANNEL, userId.toString());
+    }
+
+    /**
+     * Record a use of a trusted device; only the latest use per device is kept.
+     */
+    public void recordUse(Long userId, String deviceIdentifier, LocalDateTime usedAt) {
+        pendingUses.merge(new DeviceUse(userId, deviceIdentifier), usedAt,
+                (previous, current) -> current.isAfter(previous) ? current : previous);
+    }
+
+    /**
+     * Remove and return the pending uses. A use recorded concurrently for the same device
+     * stays pending for the next drain.
+     */
+    public List<Map.Entry<DeviceUse, LocalDateTime>> drainUses() {
+        List<Map.Entry<DeviceUse, LocalDateTime>> drained = new ArrayList<>(pendingUses.size());
+        for (Map.Entry<DeviceUse, LocalDateTime> entry : pendingUses.entrySet()) {
+            if (pendingUses.remove(entry.getKey(), entry.getValue())) {
+                drained.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            devices.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.US_ASCII)));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed trusted device eviction message");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.User;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Targeted eviction of the per-user cache entries.
+ *
+ * Used where user state changes outside of {@code UserServiceImpl} (locks, MFA toggles,
+ * bulk statements) or through internal calls that bypass {@code @CacheEvict} proxies.
+ * The Spring caches are skipped when caching is disabled; the user's second-level cache
+ * entry is always evicted on every instance, since bulk statements do not raise the
+ * entity events {@link EntityCacheEvictionBroadcaster} listens to.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserCacheInvalidator {
+
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+    private final EntityCacheEvictionBroadcaster entityCacheEvictionBroadcaster;
+
+    public void evict(User user) {
+        evict(user.getId(), user.getUsername(), user.getEmail());
+    }
+
+    public void evict(Long id, String username, String email) {
+        if (id != null) {
+            entityCacheEvictionBroadcaster.evict(User.class, id);
+        }
+
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        if (cacheManager == null) {
+            return;
+        }
+
+        evict(cacheManager, "users", id);
+        evict(cacheManager, "userByUsername", username);
+        evict(cacheManager, "userByEmail", email);
+        log.debug("Evicted cached entries for user ID {}", id);
+    }
+
+    private void evict(CacheManager cacheManager, String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
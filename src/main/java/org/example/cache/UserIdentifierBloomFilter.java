@@ -0,0 +1,111 @@
+package org.example.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-instance Bloom filter over taken usernames and emails, used by registration to
+ * reject duplicates before spending a BCrypt hash on them.
+ *
+ * Only an optimisation: a negative answer is not trusted for correctness (the unique
+ * constraints decide), and a positive answer is confirmed against the database, since
+ * it may be a false positive, a user registered on another instance, or a deleted user
+ * (Bloom filters cannot forget). Disabled by default; when enabled it is loaded from
+ * the users table at startup and is inactive until loading has finished.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserIdentifierBloomFilter implements ApplicationRunner {
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+    private static final int LOAD_BATCH_SIZE = 10000;
+    private static final String LOAD_SQL =
+            "SELECT id, username, email FROM users WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.registration.bloom-filter.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.registration.bloom-filter.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${app.registration.bloom-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter<CharSequence> filter;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        BloomFilter<CharSequence> loading = BloomFilter.create(
+                Funnels.stringFunnel(StandardCharsets.UTF_8), expectedUsers * 2, falsePositiveRate);
+        try {
+            // Keyset batches, so the driver never buffers the whole table
+            long[] lastId = {0L};
+            int rows;
+            do {
+                rows = jdbcTemplate.query(LOAD_SQL, rs -> {
+                    int count = 0;
+                    while (rs.next()) {
+                        lastId[0] = rs.getLong(1);
+                        loading.put(USERNAME_PREFIX + rs.getString(2));
+                        loading.put(EMAIL_PREFIX + rs.getString(3));
+                        count++;
+                    }
+                    return count;
+                }, lastId[0], LOAD_BATCH_SIZE);
+            } while (rows == LOAD_BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("Registration Bloom filter not loaded, pre-checks stay disabled: {}", e.getMessage());
+            return;
+        }
+        filter = loading;
+        log.info("Registration Bloom filter loaded in {} ms (~{} entries)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loading.approximateElementCount());
+    }
+
+    /**
+     * Whether the filter is loaded and its answers may be used.
+     */
+    public boolean isActive() {
+        return filter != null;
+    }
+
+    public boolean mightContainUsername(String username) {
+        BloomFilter<CharSequence> current = filter;
+        return current != null && current.mightContain(USERNAME_PREFIX + username);
+    }
+
+    public boolean mightContainEmail(String email) {
+        BloomFilter<CharSequence> current = filter;
+        return current != null && current.mightContain(EMAIL_PREFIX + email);
+    }
+
+    /**
+     * Record a newly registered user. No-op while inactive.
+     */
+    public void add(String username, String email) {
+        BloomFilter<CharSequence> current = filter;
+        if (current != null) {
+            current.put(USERNAME_PREFIX + username);
+            current.put(EMAIL_PREFIX + email);
+        }
+    }
+}
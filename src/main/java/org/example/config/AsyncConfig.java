@@ -44,4 +44,50 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Thread pool for background cache refreshes (early refresh and stale-while-revalidate).
+     * Refreshes are best-effort, so rejected tasks are dropped instead of run on the caller.
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Thread pool for bulk user import jobs. One job runs at a time (each already uses
+     * every core for password hashing); a few more may queue, beyond that uploads are refused.
+     */
+    @Bean(name = "userImportExecutor")
+    public Executor userImportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(5);
+        executor.setThreadNamePrefix("user-import-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Thread pool for MFA setup QR code rendering. Kept small so enrollment bursts cannot
+     * take CPU from request handling; beyond the queue, renders are refused and clients
+     * fall back to the OTPAuth URI or retry.
+     */
+    @Bean(name = "qrCodeExecutor")
+    public Executor qrCodeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("qr-code-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -5,6 +5,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
+import org.example.cache.EntityCacheEvictionBroadcaster;
+import org.example.cache.MFACredentialCache;
+import org.example.cache.RevokedRefreshTokenSet;
+import org.example.cache.StampedeProtectedCacheManager;
+import org.example.cache.TrustedDeviceCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -14,6 +21,8 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -21,6 +30,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Redis cache configuration for distributed caching.
@@ -31,11 +41,28 @@ import java.util.Map;
 @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
 public class CacheConfig {
 
+    /**
+     * Fraction of a cache's TTL during which an expired entry may still be served
+     * while it is revalidated in the background.
+     */
+    @Value("${app.cache.stale-ratio:0.2}")
+    private double staleRatio;
+
+    /**
+     * XFetch beta for probabilistic early refresh. Higher values refresh earlier; 0 disables.
+     */
+    @Value("${app.cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
     /**
      * Configure Redis cache manager with different TTLs per cache.
+     *
+     * Read-mostly entity caches are wrapped with stampede protection (single-flight loading,
+     * early refresh and stale-while-revalidate); their Redis TTL is extended by the stale window.
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor) {
         // Create ObjectMapper for JSON serialization
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -58,51 +85,65 @@ public class CacheConfig {
         // Cache-specific configurations with different TTLs
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
 
+        // Fresh TTLs of the stampede-protected caches
+        Map<String, Duration> freshTtls = new HashMap<>();
+
         // User cache - 30 minutes
-        cacheConfigurations.put("users",
-                defaultConfig.entryTtl(Duration.ofMinutes(30)));
+        protectedCache(cacheConfigurations, freshTtls, defaultConfig, "users", Duration.ofMinutes(30));
 
         // User by username cache - 30 minutes
-        cacheConfigurations.put("userByUsername",
-                defaultConfig.entryTtl(Duration.ofMinutes(30)));
+        protectedCache(cacheConfigurations, freshTtls, defaultConfig, "userByUsername", Duration.ofMinutes(30));
 
         // User by email cache - 30 minutes
-        cacheConfigurations.put("userByEmail",
-                defaultConfig.entryTtl(Duration.ofMinutes(30)));
+        protectedCache(cacheConfigurations, freshTtls, defaultConfig, "userByEmail", Duration.ofMinutes(30));
 
         // MFA settings cache - 1 hour
-        cacheConfigurations.put("mfaSettings",
-                defaultConfig.entryTtl(Duration.ofHours(1)));
+        protectedCache(cacheConfigurations, freshTtls, defaultConfig, "mfaSettings", Duration.ofHours(1));
 
         // Audit logs cache - 5 minutes (frequently changing)
         cacheConfigurations.put("auditLogs",
                 defaultConfig.entryTtl(Duration.ofMinutes(5)));
 
-        // Login attempts cache - 15 minutes (matches reset time window)
+        // Login attempts cache - 15 minutes (matches reset time window, never served stale)
         cacheConfigurations.put("loginAttempts",
                 defaultConfig.entryTtl(Duration.ofMinutes(15)));
 
-        // Refresh tokens cache - 7 days (token lifetime)
+        // Refresh tokens cache - 7 days (token lifetime, never served stale)
         cacheConfigurations.put("refreshTokens",
                 defaultConfig.entryTtl(Duration.ofDays(7)));
 
-        // Rate limit cache - 1 minute
+        // Rate limit cache - 1 minute (never served stale)
         cacheConfigurations.put("rateLimits",
                 defaultConfig.entryTtl(Duration.ofMinutes(1)));
 
         // Statistics cache - 5 minutes
-        cacheConfigurations.put("statistics",
-                defaultConfig.entryTtl(Duration.ofMinutes(5)));
+        protectedCache(cacheConfigurations, freshTtls, defaultConfig, "statistics", Duration.ofMinutes(5));
 
         // API response cache - 2 minutes
-        cacheConfigurations.put("apiResponses",
-                defaultConfig.entryTtl(Duration.ofMinutes(2)));
+        protectedCache(cacheConfigurations, freshTtls, defaultConfig, "apiResponses", Duration.ofMinutes(2));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .transactionAware()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new StampedeProtectedCacheManager(redisCacheManager, freshTtls, earlyRefreshBeta, cacheRefreshExecutor);
+    }
+
+    /**
+     * Register a stampede-protected cache: entries are fresh for {@code freshTtl} and kept in
+     * Redis for an additional stale window so they can be served while being revalidated.
+     */
+    private void protectedCache(Map<String, RedisCacheConfiguration> cacheConfigurations,
+                                Map<String, Duration> freshTtls,
+                                RedisCacheConfiguration defaultConfig,
+                                String name,
+                                Duration freshTtl) {
+        Duration staleWindow = Duration.ofMillis((long) (freshTtl.toMillis() * staleRatio));
+        cacheConfigurations.put(name, defaultConfig.entryTtl(freshTtl.plus(staleWindow)));
+        freshTtls.put(name, freshTtl);
     }
 
     /**
@@ -133,4 +174,23 @@ public class CacheConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Subscribes this instance to refresh-token revocations and MFA credential,
+     * trusted-device and second-level cache evictions published by the others.
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory, RevokedRefreshTokenSet revokedRefreshTokenSet,
+            MFACredentialCache mfaCredentialCache, TrustedDeviceCache trustedDeviceCache,
+            EntityCacheEvictionBroadcaster entityCacheEvictionBroadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(revokedRefreshTokenSet, new ChannelTopic(RevokedRefreshTokenSet.CHANNEL));
+        container.addMessageListener(mfaCredentialCache, new ChannelTopic(MFACredentialCache.CHANNEL));
+        container.addMessageListener(trustedDeviceCache, new ChannelTopic(TrustedDeviceCache.CHANNEL));
+        container.addMessageListener(entityCacheEvictionBroadcaster,
+                new ChannelTopic(EntityCacheEvictionBroadcaster.CHANNEL));
+        return container;
+    }
 }
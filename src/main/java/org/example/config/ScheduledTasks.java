@@ -3,7 +3,11 @@ package org.example.config;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.service.AccountLockService;
+import org.example.service.EmailOutboxService;
+import org.example.service.EmailService;
 import org.example.service.MFAService;
+import org.example.service.UserStatisticsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -19,6 +23,12 @@ public class ScheduledTasks {
     private final MFAService mfaService;
     private final AuditLogService auditLogService;
     private final RefreshTokenService refreshTokenService;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailService emailService;
+    private final UserStatisticsService userStatisticsService;
+
+    @Value("${app.mail.outbox.retention-days:30}")
+    private int emailRetentionDays;
 
     /**
      * Clean up old login attempts.
@@ -50,6 +60,38 @@ public class ScheduledTasks {
         }
     }
 
+    /**
+     * Write buffered trusted-device last-used timestamps.
+     * Runs every minute.
+     */
+    @Scheduled(fixedDelayString = "${app.scheduled.flush-trusted-device-usage-ms:60000}")
+    public void flushTrustedDeviceUsage() {
+        try {
+            int updated = mfaService.flushDeviceUsage();
+            if (updated > 0) {
+                log.debug("Flushed last-used timestamps of {} trusted devices", updated);
+            }
+        } catch (Exception e) {
+            log.error("Error during trusted device usage flush", e);
+        }
+    }
+
+    /**
+     * Fold the user statistics deltas appended by user writes into the counters row.
+     * Runs every minute.
+     */
+    @Scheduled(fixedDelayString = "${app.scheduled.fold-user-statistics-ms:60000}")
+    public void foldUserStatistics() {
+        try {
+            int folded = userStatisticsService.foldCounterDeltas();
+            if (folded > 0) {
+                log.debug("Folded {} user statistics deltas", folded);
+            }
+        } catch (Exception e) {
+            log.error("Error during user statistics fold", e);
+        }
+    }
+
     /**
      * Clean up old audit logs.
      * Runs daily at 3:00 AM.
@@ -80,6 +122,53 @@ public class ScheduledTasks {
         }
     }
 
+    /**
+     * Deliver queued emails from the outbox.
+     * Runs every 2 seconds.
+     */
+    @Scheduled(fixedDelayString = "${app.scheduled.dispatch-email-outbox-ms:2000}")
+    public void dispatchEmailOutbox() {
+        try {
+            int sent = emailOutboxService.dispatchPending();
+            if (sent > 0) {
+                log.debug("Dispatched {} emails from the outbox", sent);
+            }
+        } catch (Exception e) {
+            log.error("Error during email outbox dispatch", e);
+        }
+    }
+
+    /**
+     * Send digests of coalesced security notifications whose window has ended.
+     * Runs every minute.
+     */
+    @Scheduled(fixedDelayString = "${app.scheduled.send-notification-digests-ms:60000}")
+    public void sendNotificationDigests() {
+        try {
+            int sent = emailService.sendNotificationDigests();
+            if (sent > 0) {
+                log.info("Sent {} security notification digests", sent);
+            }
+        } catch (Exception e) {
+            log.error("Error during notification digest sending", e);
+        }
+    }
+
+    /**
+     * Clean up sent and dead-lettered emails.
+     * Runs daily at 4:30 AM.
+     */
+    @Scheduled(cron = "${app.scheduled.cleanup-email-outbox:0 30 4 * * *}")
+    public void cleanupEmailOutbox() {
+        log.info("Starting scheduled cleanup of finished outbox emails");
+        try {
+            int deleted = emailOutboxService.cleanupFinished(emailRetentionDays);
+            log.info("Completed cleanup of finished outbox emails. Deleted {} records", deleted);
+        } catch (Exception e) {
+            log.error("Error during email outbox cleanup", e);
+        }
+    }
+
     /**
      * Health check and metrics reporting.
      * Runs every hour.
@@ -1,65 +1,92 @@
 package org.example.config;
 
-import org.example.security.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
+import org.example.security.BoundedPasswordEncoder;
 import org.example.security.JwtAuthenticationFilter;
+import org.example.security.LoginAuthenticationProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
-    private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CorsConfigurationSource corsConfigurationSource;
 
-    public SecurityConfig(CustomUserDetailsService userDetailsService,
-                         JwtAuthenticationFilter jwtAuthenticationFilter,
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
                          CorsConfigurationSource corsConfigurationSource) {
-        this.userDetailsService = userDetailsService;
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.corsConfigurationSource = corsConfigurationSource;
     }
 
+    /**
+     * Password encoder for all hashing in the application.
+     *
+     * New hashes use {@code app.security.password.encoding-id} (bcrypt or argon2) and are
+     * stored with an {id} prefix; unprefixed hashes (seed data, imports from before V14)
+     * are verified as BCrypt. Hashes with another id or a lower cost than configured are
+     * re-encoded on the next successful login. Hashing runs on a bounded pool, see
+     * {@link BoundedPasswordEncoder}. Pick costs with the JMH harness (-Pbenchmark).
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
-    }
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.security.password.encoding-id:bcrypt}") String encodingId,
+            @Value("${app.security.password.bcrypt-strength:12}") int bcryptStrength,
+            @Value("${app.security.password.argon2.memory-kib:19456}") int argon2MemoryKib,
+            @Value("${app.security.password.argon2.iterations:2}") int argon2Iterations,
+            @Value("${app.security.password.hashing.threads:0}") int hashingThreads,
+            @Value("${app.security.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password.hashing.timeout-ms:5000}") long timeoutMs) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKib, argon2Iterations));
 
-    @Bean
-    public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encodingId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegating, threads, queueCapacity, timeoutMs);
     }
 
+    /**
+     * The login endpoint is the only caller; {@link LoginAuthenticationProvider} loads the
+     * user once and rehashes outdated password encodings itself.
+     */
     @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
+    public AuthenticationManager authenticationManager(LoginAuthenticationProvider loginAuthenticationProvider) {
+        return new ProviderManager(loginAuthenticationProvider);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   LoginAuthenticationProvider loginAuthenticationProvider) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async results (CompletableFuture endpoints) are dispatched again without the
+                        // JWT filter; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/register",
                                 "/api/auth/login",
@@ -71,7 +98,7 @@ public class SecurityConfig {
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(loginAuthenticationProvider)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
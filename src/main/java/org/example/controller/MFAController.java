@@ -13,17 +13,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.*;
 import org.example.entity.User;
+import org.example.enums.QRCodeFormat;
 import org.example.service.MFAService;
 import org.example.service.UserService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST Controller for Multi-Factor Authentication operations.
@@ -45,24 +51,49 @@ public class MFAController {
      */
     @GetMapping("/setup")
     @Operation(summary = "Generate MFA setup",
-               description = "Generates TOTP secret, QR code, and backup codes. MFA is not enabled until verified with /enable endpoint.")
+               description = "Generates TOTP secret, QR code (PNG or SVG), and backup codes. MFA is not enabled until verified with /enable endpoint.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "MFA setup generated successfully",
                     content = @Content(schema = @Schema(implementation = MFASetupResponse.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "400", description = "MFA is already enabled")
     })
-    public ResponseEntity<MFASetupResponse> setupMFA() {
+    public CompletableFuture<ResponseEntity<MFASetupResponse>> setupMFA(
+            @RequestParam(defaultValue = "PNG") QRCodeFormat format) {
         User user = getCurrentUser();
 
         if (user.getMfaEnabled()) {
             throw new IllegalStateException("MFA is already enabled. Disable it first to regenerate setup.");
         }
 
-        MFASetupResponse response = mfaService.generateMFASetup(user);
-        log.info("MFA setup generated for user: {}", user.getUsername());
+        return mfaService.generateMFASetup(user, format).thenApply(response -> {
+            log.info("MFA setup generated for user: {}", user.getUsername());
+            return ResponseEntity.ok(response);
+        });
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * QR code of the pending MFA setup, as an image.
+     */
+    @GetMapping("/setup/qr")
+    @Operation(summary = "Get MFA setup QR code",
+               description = "Returns the QR code of the pending (not yet enabled) MFA setup as a PNG or SVG image")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "QR code image"),
+            @ApiResponse(responseCode = "400", description = "No pending MFA setup"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "503", description = "QR code rendering is saturated, retry shortly")
+    })
+    public CompletableFuture<ResponseEntity<byte[]>> getSetupQRCode(
+            @RequestParam(defaultValue = "PNG") QRCodeFormat format) {
+        User user = getCurrentUser();
+
+        return mfaService.getSetupQRCode(user, format).thenApply(image -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .cacheControl(CacheControl.noStore())
+                .body(format == QRCodeFormat.SVG
+                        ? image.getBytes(StandardCharsets.UTF_8)
+                        : Base64.getDecoder().decode(image)));
     }
 
     /**
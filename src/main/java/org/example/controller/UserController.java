@@ -1,5 +1,9 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,15 +16,23 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.CursorPageResponse;
+import org.example.dto.UserResponse;
 import org.example.dto.UserUpdateRequest;
 import org.example.entity.User;
 import org.example.exception.ErrorResponse;
+import org.example.security.AuthenticatedUser;
 import org.example.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/users")
@@ -30,13 +42,22 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class UserController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
-    @GetMapping
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
             summary = "Get All Users",
             description = """
-                    Retrieve a list of all registered users.
+                    Retrieve registered users one page at a time, ordered by ID.
+
+                    Pagination is keyset-based: pass the returned `nextCursor` as `after`
+                    to fetch the following page. No total count is computed.
+
+                    Send `Accept: application/x-ndjson` to stream every user as
+                    newline-delimited JSON instead (admin tooling, exports).
 
                     **Authorization:** ADMIN role required
 
@@ -48,32 +69,37 @@ public class UserController {
                     description = "Users retrieved successfully",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = User.class),
+                            schema = @Schema(implementation = CursorPageResponse.class),
                             examples = @ExampleObject(
-                                    name = "User List",
+                                    name = "User Page",
                                     value = """
-                                            [
-                                                {
-                                                    "id": 1,
-                                                    "username": "admin",
-                                                    "email": "admin@crudtest.com",
-                                                    "role": "ROLE_ADMIN",
-                                                    "mfaEnabled": false,
-                                                    "accountLocked": false,
-                                                    "createdAt": "2026-02-01T10:00:00",
-                                                    "updatedAt": "2026-02-01T10:00:00"
-                                                },
-                                                {
-                                                    "id": 2,
-                                                    "username": "testuser",
-                                                    "email": "test@test.com",
-                                                    "role": "ROLE_USER",
-                                                    "mfaEnabled": false,
-                                                    "accountLocked": false,
-                                                    "createdAt": "2026-02-02T15:30:00",
-                                                    "updatedAt": "2026-02-02T15:30:00"
-                                                }
-                                            ]
+                                            {
+                                                "content": [
+                                                    {
+                                                        "id": 1,
+                                                        "username": "admin",
+                                                        "email": "admin@crudtest.com",
+                                                        "role": "ROLE_ADMIN",
+                                                        "mfaEnabled": false,
+                                                        "isAccountLocked": false,
+                                                        "createdAt": "2026-02-01T10:00:00",
+                                                        "updatedAt": "2026-02-01T10:00:00"
+                                                    },
+                                                    {
+                                                        "id": 2,
+                                                        "username": "testuser",
+                                                        "email": "test@test.com",
+                                                        "role": "ROLE_USER",
+                                                        "mfaEnabled": false,
+                                                        "isAccountLocked": false,
+                                                        "createdAt": "2026-02-02T15:30:00",
+                                                        "updatedAt": "2026-02-02T15:30:00"
+                                                    }
+                                                ],
+                                                "size": 2,
+                                                "nextCursor": 2,
+                                                "hasNext": true
+                                            }
                                             """
                             )
                     )
@@ -107,22 +133,54 @@ public class UserController {
                     )
             )
     })
-    public ResponseEntity<List<User>> getAllUsers(Authentication authentication) {
-        String currentUsername = authentication.getName();
-        log.info("=== GET ALL USERS REQUEST === RequestedBy: '{}'", currentUsername);
+    public ResponseEntity<CursorPageResponse<UserResponse>> getAllUsers(
+            @Parameter(description = "Return users with an ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        log.info("=== GET ALL USERS REQUEST === RequestedBy: '{}', After: {}, Size: {}",
+            currentUser.getUsername(), after, size);
 
         try {
-            List<User> users = userService.getAllUsers(currentUsername);
-            log.info("=== GET ALL USERS SUCCESS === RequestedBy: '{}', ReturnedCount: {}",
-                currentUsername, users.size());
+            CursorPageResponse<UserResponse> users = userService.getAllUsers(currentUser, after, size);
+            log.info("=== GET ALL USERS SUCCESS === RequestedBy: '{}', ReturnedCount: {}, HasNext: {}",
+                currentUser.getUsername(), users.getContent().size(), users.isHasNext());
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             log.error("=== GET ALL USERS FAILED === RequestedBy: '{}', Error: {}",
-                currentUsername, e.getMessage(), e);
+                currentUser.getUsername(), e.getMessage(), e);
             throw e;
         }
     }
 
+    @GetMapping(produces = NDJSON)
+    @Operation(hidden = true)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        log.info("=== STREAM ALL USERS REQUEST === RequestedBy: '{}'", currentUser.getUsername());
+
+        // Authorization happens here, before the response is committed
+        Stream<UserResponse> users = userService.streamAllUsers(currentUser);
+
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writerFor(UserResponse.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (users) {
+                users.forEach(user -> {
+                    try {
+                        writer.writeValue(outputStream, user);
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Get User By ID",
@@ -139,7 +197,7 @@ public class UserController {
                     description = "User retrieved successfully",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = User.class),
+                            schema = @Schema(implementation = UserResponse.class),
                             examples = @ExampleObject(
                                     name = "User Details",
                                     value = """
@@ -208,15 +266,15 @@ public class UserController {
                     )
             )
     })
-    public ResponseEntity<User> getUserById(
+    public ResponseEntity<UserResponse> getUserById(
             @Parameter(description = "User ID", required = true, example = "1")
             @PathVariable Long id,
-            Authentication authentication) {
-        String currentUsername = authentication.getName();
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        String currentUsername = currentUser.getUsername();
         log.info("=== GET USER REQUEST === UserID: {}, RequestedBy: '{}'", id, currentUsername);
 
         try {
-            User user = userService.getUserById(id, currentUsername);
+            UserResponse user = userService.getUserById(id, currentUser);
             log.info("=== GET USER SUCCESS === UserID: {}, Username: '{}', RequestedBy: '{}'",
                 id, user.getUsername(), currentUsername);
             return ResponseEntity.ok(user);
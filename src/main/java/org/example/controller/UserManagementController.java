@@ -8,24 +8,38 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.BulkUserOperationRequest;
+import org.example.dto.BulkUserOperationResponse;
 import org.example.dto.PageResponse;
+import org.example.dto.UserImportJobStatus;
+import org.example.dto.UserCountsView;
 import org.example.dto.UserFilterRequest;
 import org.example.dto.UserResponse;
 import org.example.entity.Role;
 import org.example.entity.User;
 import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
+import org.example.service.UserBulkOperationService;
+import org.example.service.UserCountEstimator;
+import org.example.service.UserImportService;
+import org.example.service.UserStatisticsService;
+import org.example.specification.UserSortPlanner;
 import org.example.specification.UserSpecification;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 
 /**
@@ -39,7 +53,19 @@ import java.time.LocalDateTime;
 @SecurityRequirement(name = "bearerAuth")
 public class UserManagementController {
 
+    private static final String RELEVANCE_SORT = "relevance";
+    private static final String EXACT_COUNT = "exact";
+    private static final String ESTIMATED_COUNT = "estimated";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    private static final String COUNT_PARAM_DESCRIPTION =
+            "Total count mode: 'exact' runs COUNT(*) per page, 'estimated' skips it and reports a cached estimate";
+
     private final UserRepository userRepository;
+    private final UserCountEstimator userCountEstimator;
+    private final UserStatisticsService userStatisticsService;
+    private final UserBulkOperationService userBulkOperationService;
+    private final UserImportService userImportService;
 
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
@@ -49,31 +75,37 @@ public class UserManagementController {
                     Advanced user search with pagination, filtering, and sorting.
 
                     **Filters:**
-                    - Username (partial match, case-insensitive)
-                    - Email (partial match, case-insensitive)
+                    - Username (partial match, case-insensitive; terms under 3 characters match as prefix)
+                    - Email (partial match, case-insensitive; terms under 3 characters match as prefix)
                     - Role (exact match)
                     - MFA enabled status
                     - Account locked status
                     - Created date range
 
                     **Sorting:**
-                    - Supported fields: id, username, email, createdAt, updatedAt
-                    - Direction: ASC or DESC
+                    - Default `relevance`: exact matches first, then prefix matches, then
+                      earliest/shortest matches (falls back to id order without a username/email term)
+                    - Supported fields: relevance, id, username, email, createdAt, updatedAt
+                      (index-backed only; other fields are rejected with 400)
+                    - Direction: ASC or DESC (ignored for relevance)
+                    - `id` is always appended as a tiebreaker, so ordering is stable across pages
 
                     **Pagination:**
                     - Page: 0-indexed
                     - Size: 1-100 items per page
+                    - count=exact (default) or count=estimated; the latter skips the per-page
+                      COUNT(*) and returns `hasNext` with an estimated total (`totalEstimated=true`)
 
                     **Example:**
                     ```
-                    GET /api/users/search?username=john&role=ROLE_USER&page=0&size=20&sortBy=createdAt&sortDirection=DESC
+                    GET /api/users/search?username=john&role=ROLE_USER&page=0&size=20
                     ```
                     """
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Users retrieved successfully",
                     content = @Content(schema = @Schema(implementation = PageResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid filter parameters"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter parameters or unsupported sort field"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin only")
     })
@@ -87,8 +119,9 @@ public class UserManagementController {
             @Parameter(description = "Created before date") @RequestParam(required = false) LocalDateTime createdBefore,
             @Parameter(description = "Page number (0-indexed)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size,
-            @Parameter(description = "Sort field") @RequestParam(defaultValue = "id") String sortBy,
-            @Parameter(description = "Sort direction (ASC/DESC)") @RequestParam(defaultValue = "ASC") String sortDirection
+            @Parameter(description = "Sort field") @RequestParam(defaultValue = RELEVANCE_SORT) String sortBy,
+            @Parameter(description = "Sort direction (ASC/DESC)") @RequestParam(defaultValue = "ASC") String sortDirection,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(defaultValue = EXACT_COUNT) String count
     ) {
         log.info("Searching users with filters - username: {}, email: {}, role: {}, page: {}, size: {}, sort: {} {}",
                  username, email, role, page, size, sortBy, sortDirection);
@@ -115,19 +148,25 @@ public class UserManagementController {
         // Build specification
         Specification<User> spec = UserSpecification.withFilters(filter);
 
-        // Build pageable with sorting
-        Sort.Direction direction = "DESC".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        // Build pageable with sorting; relevance ordering lives in the specification
+        Pageable pageable;
+        if (RELEVANCE_SORT.equalsIgnoreCase(sortBy)) {
+            spec = spec.and(UserSpecification.orderedByRelevance(filter));
+            pageable = PageRequest.of(page, size);
+        } else {
+            pageable = PageRequest.of(page, size, UserSortPlanner.plan(sortBy, sortDirection));
+        }
 
         // Execute query
-        Page<User> userPage = userRepository.findAll(spec, pageable);
-
-        // Convert to DTOs
-        Page<UserResponse> responsePage = userPage.map(UserResponse::from);
+        String countKey = String.join("|", "search", String.valueOf(username), String.valueOf(email),
+                String.valueOf(role), String.valueOf(mfaEnabled), String.valueOf(isAccountLocked),
+                String.valueOf(createdAfter), String.valueOf(createdBefore));
+        PageResponse<UserResponse> response = findUsers(countKey, spec, pageable, count);
 
-        log.info("Found {} users (page {} of {})", userPage.getTotalElements(), page + 1, userPage.getTotalPages());
+        log.info("Found {}{} users (page {} of {})", response.isTotalEstimated() ? "~" : "",
+                 response.getTotalElements(), page + 1, response.getTotalPages());
 
-        return ResponseEntity.ok(PageResponse.from(responsePage));
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/active")
@@ -138,6 +177,7 @@ public class UserManagementController {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Active users retrieved"),
+            @ApiResponse(responseCode = "400", description = "Unsupported sort field"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin only")
     })
@@ -145,18 +185,15 @@ public class UserManagementController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(defaultValue = EXACT_COUNT) String count
     ) {
         log.info("Fetching active users - page: {}, size: {}", page, size);
 
         size = Math.min(size, 100);
-        Sort.Direction direction = "DESC".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        Pageable pageable = PageRequest.of(page, size, UserSortPlanner.plan(sortBy, sortDirection));
 
-        Page<User> userPage = userRepository.findAll(UserSpecification.activeUsers(), pageable);
-        Page<UserResponse> responsePage = userPage.map(UserResponse::from);
-
-        return ResponseEntity.ok(PageResponse.from(responsePage));
+        return ResponseEntity.ok(findUsers("active", UserSpecification.activeUsers(), pageable, count));
     }
 
     @GetMapping("/locked")
@@ -172,17 +209,15 @@ public class UserManagementController {
     })
     public ResponseEntity<PageResponse<UserResponse>> getLockedUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(defaultValue = EXACT_COUNT) String count
     ) {
         log.info("Fetching locked users - page: {}, size: {}", page, size);
 
         size = Math.min(size, 100);
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "accountLockedUntil"));
+        Pageable pageable = PageRequest.of(page, size, UserSortPlanner.withTiebreaker("accountLockedUntil", Sort.Direction.DESC));
 
-        Page<User> userPage = userRepository.findAll(UserSpecification.lockedUsers(), pageable);
-        Page<UserResponse> responsePage = userPage.map(UserResponse::from);
-
-        return ResponseEntity.ok(PageResponse.from(responsePage));
+        return ResponseEntity.ok(findUsers("locked", UserSpecification.lockedUsers(), pageable, count));
     }
 
     @GetMapping("/mfa-enabled")
@@ -198,24 +233,22 @@ public class UserManagementController {
     })
     public ResponseEntity<PageResponse<UserResponse>> getMfaEnabledUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(defaultValue = EXACT_COUNT) String count
     ) {
         log.info("Fetching MFA-enabled users - page: {}, size: {}", page, size);
 
         size = Math.min(size, 100);
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-
-        Page<User> userPage = userRepository.findAll(UserSpecification.mfaEnabledUsers(), pageable);
-        Page<UserResponse> responsePage = userPage.map(UserResponse::from);
+        Pageable pageable = PageRequest.of(page, size, UserSortPlanner.withTiebreaker("createdAt", Sort.Direction.DESC));
 
-        return ResponseEntity.ok(PageResponse.from(responsePage));
+        return ResponseEntity.ok(findUsers("mfa-enabled", UserSpecification.mfaEnabledUsers(), pageable, count));
     }
 
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
             summary = "Get user statistics",
-            description = "Retrieve overall user statistics"
+            description = "Retrieve overall user statistics (snapshot, may lag writes by a few seconds)"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Statistics retrieved"),
@@ -225,20 +258,18 @@ public class UserManagementController {
     public ResponseEntity<UserStatistics> getUserStatistics() {
         log.info("Fetching user statistics");
 
-        long totalUsers = userRepository.count();
-        long activeUsers = userRepository.count(UserSpecification.activeUsers());
-        long lockedUsers = userRepository.count(UserSpecification.lockedUsers());
-        long mfaEnabledUsers = userRepository.count(UserSpecification.mfaEnabledUsers());
-        long adminUsers = userRepository.count(UserSpecification.hasRole(Role.ROLE_ADMIN));
-        long regularUsers = userRepository.count(UserSpecification.hasRole(Role.ROLE_USER));
+        UserCountsView counts = userStatisticsService.getUserCounts();
+        long totalUsers = counts.getTotalUsers();
+        long lockedUsers = counts.getLockedUsers();
+        long mfaEnabledUsers = counts.getMfaEnabledUsers();
 
         UserStatistics stats = UserStatistics.builder()
                 .totalUsers(totalUsers)
-                .activeUsers(activeUsers)
+                .activeUsers(counts.getActiveUsers())
                 .lockedUsers(lockedUsers)
                 .mfaEnabledUsers(mfaEnabledUsers)
-                .adminUsers(adminUsers)
-                .regularUsers(regularUsers)
+                .adminUsers(counts.getAdminUsers())
+                .regularUsers(counts.getRegularUsers())
                 .mfaEnabledPercentage(totalUsers > 0 ? (double) mfaEnabledUsers / totalUsers * 100 : 0.0)
                 .lockedPercentage(totalUsers > 0 ? (double) lockedUsers / totalUsers * 100 : 0.0)
                 .build();
@@ -246,6 +277,114 @@ public class UserManagementController {
         return ResponseEntity.ok(stats);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Bulk user operation",
+            description = """
+                    Lock, unlock, change the role of, or delete many users in one request.
+
+                    **Targets** (exactly one):
+                    - `ids`: up to 10000 user IDs (unknown IDs are ignored)
+                    - `filter`: same criteria as /search, at least one required; paging and sorting fields are ignored
+
+                    Users are processed in ID-ordered chunks, each one set-based statement in its own
+                    transaction with one audit event. A failure leaves earlier chunks applied. The
+                    caller's own account is always skipped.
+
+                    **Example:**
+                    ```
+                    POST /api/users/bulk
+                    {"action": "LOCK", "filter": {"email": "@tenant.example.com"}, "lockReason": "Tenant offboarded"}
+                    ```
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Operation applied",
+                    content = @Content(schema = @Schema(implementation = BulkUserOperationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid action or target selection"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin only")
+    })
+    public ResponseEntity<BulkUserOperationResponse> bulkOperation(
+            @Valid @RequestBody BulkUserOperationRequest request,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) {
+        return ResponseEntity.ok(userBulkOperationService.execute(request, currentUser));
+    }
+
+    @PostMapping(value = "/import", consumes = {CSV, NDJSON})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Start bulk user import",
+            description = """
+                    Import users from a CSV (`text/csv`) or NDJSON (`application/x-ndjson`) request body.
+                    The file is processed in the background; poll the returned job for progress and per-row errors.
+
+                    **Fields:** `username`, `email`, and either `password` (plain text, validated and hashed)
+                    or `passwordHash` (an existing BCrypt hash, stored as is), plus optional `role`
+                    (default ROLE_USER). CSV input needs a header row naming the columns.
+
+                    Rows that fail validation or collide with existing users are reported and skipped;
+                    all other rows are imported.
+
+                    **Example (CSV):**
+                    ```
+                    username,email,passwordHash
+                    jdoe,jdoe@example.com,$2a$10$...
+                    ```
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import job accepted",
+                    content = @Content(schema = @Schema(implementation = UserImportJobStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin only")
+    })
+    public ResponseEntity<UserImportJobStatus> importUsers(
+            @RequestHeader("Content-Type") String contentType,
+            InputStream body,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf(CSV))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        return ResponseEntity.accepted().body(userImportService.startImport(body, format, currentUser));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Get bulk user import status",
+            description = "Progress, throughput and per-row errors of an import job started on this instance"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job status retrieved"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin only"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    public ResponseEntity<UserImportJobStatus> getImportStatus(@PathVariable String jobId) {
+        return userImportService.getJobStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Run a paged user query in the requested count mode. In estimated mode the page is read
+     * as a Slice (no COUNT(*)) and the total comes from {@link UserCountEstimator}, keyed by
+     * {@code countKey}.
+     */
+    private PageResponse<UserResponse> findUsers(String countKey, Specification<User> spec,
+                                                 Pageable pageable, String countMode) {
+        if (ESTIMATED_COUNT.equalsIgnoreCase(countMode)) {
+            return PageResponse.from(
+                    userRepository.findSlice(spec, pageable).map(UserResponse::from),
+                    () -> userCountEstimator.estimate(countKey, spec));
+        }
+        return PageResponse.from(userRepository.findAll(spec, pageable).map(UserResponse::from));
+    }
+
     /**
      * User statistics DTO.
      */
@@ -15,6 +15,7 @@ import org.example.dto.LoginResponse;
 import org.example.dto.RefreshTokenRequest;
 import org.example.exception.ErrorResponse;
 import org.example.service.RefreshTokenService;
+import org.example.service.TokenIssuanceService;
 import org.example.service.UserService;
 import org.example.versioning.ApiVersion;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +38,7 @@ public class AuthControllerV2 {
 
     private final UserService userService;
     private final RefreshTokenService refreshTokenService;
+    private final TokenIssuanceService tokenIssuanceService;
 
     @PostMapping("/login")
     @Operation(
@@ -62,17 +64,10 @@ public class AuthControllerV2 {
     ) {
         log.info("V2 API: Login request for user: {}", request.getUsername());
 
-        // Authenticate user
-        LoginResponse response = userService.authenticateUser(request, httpRequest);
+        // Authenticate and issue access + refresh token (V2 enhancement) with a single user load
+        LoginResponse response = tokenIssuanceService.login(request, httpRequest);
 
-        // Generate refresh token (V2 enhancement)
-        if (response.getToken() != null) {
-            var user = userService.findByUsername(request.getUsername()).orElseThrow();
-            var refreshToken = refreshTokenService.createRefreshToken(user, httpRequest);
-            response.setRefreshToken(refreshToken.getToken());
-
-            log.info("V2 API: Login successful for user: {} with refresh token", request.getUsername());
-        }
+        log.info("V2 API: Login successful for user: {} with refresh token", request.getUsername());
 
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,72 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.entity.Role;
+
+import java.util.List;
+
+/**
+ * Request to apply one administrative action to many users, selected either by
+ * explicit IDs or by a filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Bulk user operation. Exactly one of 'ids' or 'filter' must be given.")
+public class BulkUserOperationRequest {
+
+    public enum Action {
+        LOCK,
+        UNLOCK,
+        CHANGE_ROLE,
+        DELETE
+    }
+
+    @NotNull(message = "Action is required")
+    @Schema(description = "Action to apply", example = "LOCK", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Action action;
+
+    @Size(max = 10000, message = "At most 10000 user IDs per request")
+    @Schema(description = "Target user IDs", example = "[101, 102, 103]")
+    private List<Long> ids;
+
+    @Valid
+    @Schema(description = "Target users matching this filter (paging and sorting fields are ignored)")
+    private UserFilterRequest filter;
+
+    @Schema(description = "New role, required for CHANGE_ROLE", example = "ROLE_USER")
+    private Role role;
+
+    @Size(max = 500, message = "Lock reason must not exceed 500 characters")
+    @Schema(description = "Lock reason, used by LOCK", example = "Tenant offboarded")
+    private String lockReason;
+
+    @Positive(message = "Lock duration must be positive")
+    @Schema(description = "Lock duration in minutes, used by LOCK; omit to lock until explicitly unlocked",
+            example = "1440")
+    private Integer lockDurationMinutes;
+
+    @AssertTrue(message = "Exactly one of 'ids' (non-empty) or 'filter' (with at least one criterion) is required")
+    @Schema(hidden = true)
+    public boolean isTargetSpecified() {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        boolean hasFilter = filter != null && filter.hasCriteria();
+        return hasIds != hasFilter;
+    }
+
+    @AssertTrue(message = "Role is required for CHANGE_ROLE")
+    @Schema(hidden = true)
+    public boolean isRoleSpecified() {
+        return action != Action.CHANGE_ROLE || role != null;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk user operation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Bulk user operation result")
+public class BulkUserOperationResponse {
+
+    @Schema(description = "Action that was applied", example = "LOCK")
+    private BulkUserOperationRequest.Action action;
+
+    @Schema(description = "Existing users selected by the request (excluding the caller)", example = "2500")
+    private long matchedUsers;
+
+    @Schema(description = "Rows changed or deleted", example = "2498")
+    private long affectedUsers;
+
+    @Schema(description = "Number of chunks (one transaction and one audit event each)", example = "3")
+    private int chunks;
+
+    @Schema(description = "Whether the caller's own account was in the selection and skipped", example = "false")
+    private boolean selfSkipped;
+}
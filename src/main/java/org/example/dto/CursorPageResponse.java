@@ -0,0 +1,37 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset (cursor) paginated response wrapper.
+ *
+ * Unlike {@link PageResponse}, no total count is computed; clients pass
+ * {@code nextCursor} back to fetch the following page.
+ *
+ * @param <T> the type of content in the page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Cursor-paginated response")
+public class CursorPageResponse<T> {
+
+    @Schema(description = "List of items in current page")
+    private List<T> content;
+
+    @Schema(description = "Maximum number of items per page", example = "50")
+    private int size;
+
+    @Schema(description = "Cursor to pass as 'after' for the next page, null when there is none", example = "1050")
+    private Long nextCursor;
+
+    @Schema(description = "Whether there is a next page", example = "true")
+    private boolean hasNext;
+}
@@ -21,9 +21,12 @@ public class MFASetupResponse {
             example = "otpauth://totp/CRUDTest:admin?secret=JBSWY3DPEHPK3PXP&issuer=CRUDTest")
     private String otpAuthUri;
 
-    @Schema(description = "Base64-encoded QR code image (PNG format)")
+    @Schema(description = "Base64-encoded QR code image (PNG format); null when SVG was requested or rendering was refused")
     private String qrCodeBase64;
 
+    @Schema(description = "QR code as SVG markup; set only when SVG was requested")
+    private String qrCodeSvg;
+
     @Schema(description = "Array of one-time backup codes")
     private String[] backupCodes;
 
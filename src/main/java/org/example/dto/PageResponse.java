@@ -32,6 +32,9 @@ public class PageResponse<T> {
     @Schema(description = "Total number of items across all pages", example = "150")
     private long totalElements;
 
+    @Schema(description = "Whether totalElements/totalPages are estimates (count=estimated mode)", example = "false")
+    private boolean totalEstimated;
+
     @Schema(description = "Total number of pages", example = "8")
     private int totalPages;
 
@@ -71,4 +74,43 @@ public class PageResponse<T> {
                 .empty(page.isEmpty())
                 .build();
     }
+
+    /**
+     * Create PageResponse from a Spring Data Slice and an estimated total.
+     *
+     * The estimate is only consulted when the slice cannot determine the total itself
+     * (more pages follow, or the page is past the end); first/last/hasNext always come
+     * from the slice, and the estimate is raised if the slice proves it too low.
+     */
+    public static <T> PageResponse<T> from(org.springframework.data.domain.Slice<T> slice,
+                                           java.util.function.LongSupplier estimatedTotal) {
+        long offset = (long) slice.getNumber() * slice.getSize();
+        long total;
+        boolean estimated;
+        if (slice.hasNext()) {
+            total = Math.max(estimatedTotal.getAsLong(), offset + slice.getNumberOfElements() + 1);
+            estimated = true;
+        } else if (slice.hasContent() || slice.isFirst()) {
+            total = offset + slice.getNumberOfElements();
+            estimated = false;
+        } else {
+            total = estimatedTotal.getAsLong();
+            estimated = true;
+        }
+
+        return PageResponse.<T>builder()
+                .content(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .totalElements(total)
+                .totalEstimated(estimated)
+                .totalPages(slice.getSize() == 0 ? 1 : (int) Math.ceil((double) total / slice.getSize()))
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .hasNext(slice.hasNext())
+                .hasPrevious(slice.hasPrevious())
+                .numberOfElements(slice.getNumberOfElements())
+                .empty(slice.isEmpty())
+                .build();
+    }
 }
@@ -0,0 +1,54 @@
+package org.example.dto;
+
+import org.example.entity.Role;
+import org.example.security.AuthenticatedUser;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token state together with its family's state and the owner's token claims,
+ * read in one join so a refresh needs neither the token entity nor the lazily loaded
+ * user. The family columns are null for tokens issued before families existed.
+ */
+public record RefreshTokenClaims(Long tokenId,
+                                 LocalDateTime expiresAt,
+                                 LocalDateTime revokedAt,
+                                 int generation,
+                                 Long familyId,
+                                 Integer familyGeneration,
+                                 LocalDateTime familyRevokedAt,
+                                 Long userId,
+                                 String username,
+                                 String email,
+                                 Role role) {
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+
+    public boolean hasFamily() {
+        return familyId != null;
+    }
+
+    public boolean isFamilyRevoked() {
+        return familyRevokedAt != null;
+    }
+
+    /**
+     * The family has rotated past this token: presenting it again is reuse.
+     */
+    public boolean isSuperseded() {
+        return familyGeneration != null && generation < familyGeneration;
+    }
+
+    /**
+     * Principal for issuing the access token. Carries no password hash.
+     */
+    public AuthenticatedUser toPrincipal() {
+        return new AuthenticatedUser(userId, username, email, null, role);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns needed to decide whether a device is trusted, loaded per user into the
+ * in-memory trusted-device set.
+ */
+public record TrustedDeviceEntry(String deviceIdentifier, LocalDateTime trustedUntil) {
+}
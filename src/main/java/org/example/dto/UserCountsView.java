@@ -0,0 +1,19 @@
+package org.example.dto;
+
+/**
+ * Spring Data projection of the per-category user counts behind the statistics endpoint.
+ */
+public interface UserCountsView {
+
+    long getTotalUsers();
+
+    long getActiveUsers();
+
+    long getLockedUsers();
+
+    long getMfaEnabledUsers();
+
+    long getAdminUsers();
+
+    long getRegularUsers();
+}
@@ -51,4 +51,17 @@ public class UserFilterRequest {
 
     @Schema(description = "Sort direction (ASC or DESC)", example = "DESC", defaultValue = "ASC")
     private String sortDirection = "ASC";
+
+    /**
+     * Whether any filter criterion is set (paging and sorting fields do not count).
+     */
+    public boolean hasCriteria() {
+        return (username != null && !username.isBlank())
+                || (email != null && !email.isBlank())
+                || role != null
+                || mfaEnabled != null
+                || isAccountLocked != null
+                || createdAfter != null
+                || createdBefore != null;
+    }
 }
@@ -0,0 +1,77 @@
+package org.example.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress and outcome of a bulk user import job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Bulk user import job status")
+public class UserImportJobStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Schema(description = "Job ID", example = "5f0c2a9e-8d1b-4c35-9a57-3b1e0f6f9a21")
+    private String jobId;
+
+    @Schema(description = "Job state", example = "RUNNING")
+    private State state;
+
+    @Schema(description = "Data rows read so far (header excluded)", example = "250000")
+    private long rowsRead;
+
+    @Schema(description = "Users inserted so far", example = "249870")
+    private long imported;
+
+    @Schema(description = "Rows rejected so far", example = "130")
+    private long rejected;
+
+    @Schema(description = "Average throughput since the job started", example = "4100.5")
+    private double rowsPerSecond;
+
+    @Schema(description = "When processing started")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "When processing finished")
+    private LocalDateTime finishedAt;
+
+    @Schema(description = "Job-level failure, if the job stopped early")
+    private String failureMessage;
+
+    @Schema(description = "Per-row errors, capped at the configured maximum")
+    private List<RowError> errors;
+
+    @Schema(description = "Whether more rows were rejected than are listed in 'errors'", example = "false")
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Rejected import row")
+    public static class RowError {
+
+        @Schema(description = "Line number in the uploaded file (1-based, header included)", example = "1042")
+        private long line;
+
+        @Schema(description = "Username from the row, if readable", example = "jdoe")
+        private String username;
+
+        @Schema(description = "Why the row was rejected", example = "Username already exists")
+        private String message;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One user record from a bulk import file (a CSV row or an NDJSON line).
+ *
+ * Exactly one of {@code password} (plain text, hashed during import) or
+ * {@code passwordHash} (an existing BCrypt hash from the legacy system, stored as is)
+ * must be given. {@code role} defaults to ROLE_USER.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserImportRow {
+
+    private String username;
+
+    private String email;
+
+    private String password;
+
+    private String passwordHash;
+
+    private String role;
+}
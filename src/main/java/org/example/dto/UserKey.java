@@ -0,0 +1,8 @@
+package org.example.dto;
+
+/**
+ * The columns that key the per-user cache entries (ID, username, email), read ahead of
+ * bulk statements so exactly the affected entries can be evicted afterwards.
+ */
+public record UserKey(Long id, String username, String email) {
+}
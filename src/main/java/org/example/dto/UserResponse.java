@@ -67,4 +67,22 @@ public class UserResponse {
                 .updatedAt(user.getUpdatedAt())
                 .build();
     }
+
+    /**
+     * Convert a projection row to UserResponse DTO.
+     */
+    public static UserResponse from(UserResponseView view) {
+        return UserResponse.builder()
+                .id(view.getId())
+                .username(view.getUsername())
+                .email(view.getEmail())
+                .role(view.getRole())
+                .mfaEnabled(view.getMfaEnabled())
+                .isAccountLocked(view.getIsAccountLocked())
+                .accountLockedUntil(view.getAccountLockedUntil())
+                .lockReason(view.getLockReason())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,32 @@
+package org.example.dto;
+
+import org.example.entity.Role;
+
+import java.time.LocalDateTime;
+
+/**
+ * Spring Data interface projection over the {@link UserResponse} columns of {@code users}.
+ * Queries returning this type never select the password hash.
+ */
+public interface UserResponseView {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    Role getRole();
+
+    Boolean getMfaEnabled();
+
+    Boolean getIsAccountLocked();
+
+    LocalDateTime getAccountLockedUntil();
+
+    String getLockReason();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
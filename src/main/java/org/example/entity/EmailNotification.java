@@ -0,0 +1,71 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.enums.EmailStatus;
+import org.example.enums.EmailType;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outgoing email in the transactional outbox. Written by services in their own
+ * transaction and delivered by the outbox dispatcher.
+ * Maps to the email_notifications table created in V7__add_email_notifications.sql
+ * (outbox columns from V20__email_outbox.sql).
+ */
+@Entity
+@Table(name = "email_notifications")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "email_type", nullable = false, length = 30)
+    private EmailType emailType;
+
+    @Column(name = "recipient_email", nullable = false, length = 100)
+    private String recipientEmail;
+
+    @Column(nullable = false, length = 200)
+    private String subject;
+
+    @Column(name = "body_text", columnDefinition = "TEXT")
+    private String bodyText;
+
+    @Column(name = "body_html", columnDefinition = "TEXT")
+    private String bodyHtml;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailStatus status = EmailStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "max_attempts", nullable = false)
+    private Integer maxAttempts = 3;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_attempt_at")
+    private LocalDateTime lastAttemptAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
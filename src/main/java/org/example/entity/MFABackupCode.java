@@ -0,0 +1,45 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single-use MFA backup code, stored only as a salted hash.
+ * Maps to the mfa_backup_codes table created in V18__add_mfa_backup_codes.sql.
+ */
+@Entity
+@Table(name = "mfa_backup_codes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MFABackupCode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * SHA-256 of the user's backup-code salt followed by the code
+     */
+    @Column(name = "code_hash", nullable = false)
+    private byte[] codeHash;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * When the code was consumed (NULL if unused)
+     */
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+}
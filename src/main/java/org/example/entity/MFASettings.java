@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,6 +17,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "mfa_settings")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "mfa-settings")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,11 +39,10 @@ public class MFASettings {
     private String secret;
 
     /**
-     * Array of one-time backup codes (encrypted)
-     * Stored as PostgreSQL text array
+     * Per-user salt of the backup code hashes (codes live in mfa_backup_codes)
      */
-    @Column(name = "backup_codes", columnDefinition = "text[]")
-    private String[] backupCodes;
+    @Column(name = "backup_code_salt", nullable = false)
+    private byte[] backupCodeSalt;
 
     /**
      * Whether MFA has been verified with a successful TOTP code
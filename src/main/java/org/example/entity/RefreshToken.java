@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing a JWT refresh token for token rotation and renewal.
- * Maps to the refresh_tokens table created in V6__add_refresh_tokens.sql migration.
+ * Maps to the refresh_tokens table created in V6__add_refresh_tokens.sql migration
+ * (token digests since V15__hash_refresh_tokens.sql).
  */
 @Entity
 @Table(name = "refresh_tokens")
@@ -31,11 +32,29 @@ public class RefreshToken {
     private User user;
 
     /**
-     * Unique refresh token (UUID or secure random string)
+     * SHA-256 digest of the refresh token; the token itself is never stored (V15)
      */
-    @Column(nullable = false, unique = true)
+    @Column(name = "token_hash", nullable = false, unique = true, length = 32)
+    private byte[] tokenHash;
+
+    /**
+     * The issued token, only available on the instance returned at creation
+     */
+    @Transient
     private String token;
 
+    /**
+     * Family (login session) this token belongs to; NULL only for tokens revoked before V17
+     */
+    @Column(name = "family_id")
+    private Long familyId;
+
+    /**
+     * Rotation count within the family when this token was issued
+     */
+    @Column(nullable = false)
+    private Integer generation = 0;
+
     /**
      * Token expiration timestamp (typically 7 days)
      */
@@ -53,10 +72,10 @@ public class RefreshToken {
     private LocalDateTime revokedAt;
 
     /**
-     * Token that replaced this one (for token rotation)
+     * Digest of the token that replaced this one (for token rotation)
      */
-    @Column(name = "replaced_by")
-    private String replacedBy;
+    @Column(name = "replaced_by_hash", length = 32)
+    private byte[] replacedByHash;
 
     /**
      * IP address when token was issued
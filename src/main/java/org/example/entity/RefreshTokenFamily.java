@@ -0,0 +1,54 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A login session: the chain of refresh tokens produced by rotating the token issued
+ * at login. Only the token whose generation equals {@link #generation} is usable;
+ * presenting an older one means a rotated token was reused.
+ * Maps to the refresh_token_families table created in V17__add_refresh_token_families.sql.
+ */
+@Entity
+@Table(name = "refresh_token_families")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenFamily {
+
+    public static final String REASON_LOGOUT = "LOGOUT";
+    public static final String REASON_REUSE_DETECTED = "REUSE_DETECTED";
+    public static final String REASON_REVOKE_ALL = "REVOKE_ALL";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * Generation of the current (only usable) token in the family
+     */
+    @Column(nullable = false)
+    private Integer generation = 0;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * When the whole family was revoked (NULL if active)
+     */
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "revoke_reason", length = 50)
+    private String revokeReason;
+}
@@ -5,6 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 
@@ -19,6 +23,9 @@ import java.time.LocalDateTime;
     @Index(name = "idx_threat_expires_at", columnList = "expires_at"),
     @Index(name = "idx_threat_created_at", columnList = "created_at")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "threat-intelligence")
+@NaturalIdCache(region = "threat-intelligence-by-ip")
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,6 +36,7 @@ public class ThreatIntelligence {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(name = "ip_address", nullable = false, length = 45)
     private String ipAddress;
 
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "trusted_devices")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "trusted-devices")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
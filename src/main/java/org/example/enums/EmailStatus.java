@@ -0,0 +1,15 @@
+package org.example.enums;
+
+/**
+ * Delivery states of an email_notifications (outbox) row.
+ */
+public enum EmailStatus {
+    /** Waiting for its next attempt */
+    PENDING,
+    /** Claimed by a dispatcher */
+    SENDING,
+    SENT,
+    /** Dead-lettered after its last attempt failed */
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,20 @@
+package org.example.enums;
+
+/**
+ * Types of outgoing email notifications, stored in email_notifications.email_type.
+ */
+public enum EmailType {
+    WELCOME,
+    PASSWORD_RESET,
+    PASSWORD_CHANGED,
+    EMAIL_CHANGED,
+    LOGIN_ALERT,
+    ACCOUNT_LOCKED,
+    ACCOUNT_UNLOCKED,
+    MFA_ENABLED,
+    MFA_DISABLED,
+    NEW_DEVICE_LOGIN,
+    SECURITY_ALERT,
+    /** Ad-hoc emails (simple text, arbitrary templates) */
+    NOTIFICATION
+}
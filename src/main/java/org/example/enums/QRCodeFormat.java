@@ -0,0 +1,21 @@
+package org.example.enums;
+
+/**
+ * Output formats for MFA setup QR codes.
+ */
+public enum QRCodeFormat {
+    /** 300x300 PNG, Base64-encoded */
+    PNG("image/png"),
+    /** Scalable SVG markup with one unit per module, typically a few KB */
+    SVG("image/svg+xml");
+
+    private final String mediaType;
+
+    QRCodeFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class InvalidSortException extends RuntimeException {
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated, so the request is refused
+ * instead of waiting for a hashing thread.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -133,6 +133,48 @@ public class CustomMetrics {
                 .increment();
     }
 
+    // User import metrics
+    public void recordUserImportRows(String outcome, long count) {
+        Counter.builder("user.import.rows")
+                .description("Rows processed by bulk user imports")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    public void recordUserImportBatch(String phase, long durationNanos) {
+        Timer.builder("user.import.batch.duration")
+                .description("Time per import batch phase (validate, hash, insert)")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Email outbox metrics
+    public void recordEmailOutboxMessages(String outcome, long count) {
+        Counter.builder("email.outbox.messages")
+                .description("Outbox emails processed by the dispatcher")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    public void recordEmailOutboxBatch(long durationNanos) {
+        Timer.builder("email.outbox.batch.duration")
+                .description("Time per outbox batch (build, SMTP session, record outcome)")
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEmailCoalescing(String type, String outcome) {
+        Counter.builder("email.coalescing")
+                .description("Security notifications sent, suppressed into a digest, or digested")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
     // Audit log metrics
     public void recordAuditEvent(String action, String entityType) {
         Counter.builder("audit.event")
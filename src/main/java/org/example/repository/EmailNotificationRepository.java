@@ -0,0 +1,109 @@
+package org.example.repository;
+
+import org.example.entity.EmailNotification;
+import org.example.enums.EmailStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the email outbox. Rows are claimed in batches with
+ * {@code FOR UPDATE SKIP LOCKED}, so several dispatchers (instances) never claim the
+ * same row, and state changes are set-based statements.
+ */
+@Repository
+public interface EmailNotificationRepository extends JpaRepository<EmailNotification, Long> {
+
+    /**
+     * Lock the IDs of due pending emails, skipping rows locked by other dispatchers.
+     * Must run in the transaction that marks them {@code SENDING}.
+     *
+     * @param now current time
+     * @param limit maximum number of rows
+     * @return claimed IDs, oldest due first
+     */
+    @Query(value = "SELECT id FROM email_notifications " +
+                   "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Mark claimed emails as being sent and count the attempt.
+     *
+     * @param ids claimed IDs
+     * @param now attempt time
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE EmailNotification e SET e.status = org.example.enums.EmailStatus.SENDING, " +
+           "e.attempts = e.attempts + 1, e.lastAttemptAt = :now WHERE e.id IN :ids")
+    int markSending(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Mark emails as sent.
+     *
+     * @param ids sent IDs
+     * @param now send time
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE EmailNotification e SET e.status = org.example.enums.EmailStatus.SENT, " +
+           "e.sentAt = :now, e.errorMessage = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Record a failed attempt: back to PENDING until {@code nextAttemptAt}, or FAILED
+     * (dead-lettered) once the attempts are exhausted.
+     *
+     * @param id email ID
+     * @param error failure message
+     * @param nextAttemptAt earliest time of the retry
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE EmailNotification e SET " +
+           "e.status = CASE WHEN e.attempts >= e.maxAttempts THEN org.example.enums.EmailStatus.FAILED " +
+           "ELSE org.example.enums.EmailStatus.PENDING END, " +
+           "e.errorMessage = :error, e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    /**
+     * Return emails left SENDING by a dispatcher that stopped mid-batch to PENDING. The
+     * interrupted attempt stays counted.
+     *
+     * @param before lease expiry: rows claimed before this time are released
+     * @return number of released rows
+     */
+    @Modifying
+    @Query("UPDATE EmailNotification e SET e.status = org.example.enums.EmailStatus.PENDING " +
+           "WHERE e.status = org.example.enums.EmailStatus.SENDING AND e.lastAttemptAt < :before")
+    int releaseExpiredClaims(@Param("before") LocalDateTime before);
+
+    /**
+     * Count emails in a status (e.g. the outbox backlog).
+     *
+     * @param status the status
+     * @return number of emails
+     */
+    long countByStatus(EmailStatus status);
+
+    /**
+     * Delete finished (sent, dead-lettered, cancelled) emails created before the cutoff.
+     *
+     * @param cutoff creation time cutoff
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM EmailNotification e WHERE e.createdAt < :cutoff AND e.status IN " +
+           "(org.example.enums.EmailStatus.SENT, org.example.enums.EmailStatus.FAILED, " +
+           "org.example.enums.EmailStatus.CANCELLED)")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
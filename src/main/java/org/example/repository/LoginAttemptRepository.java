@@ -1,6 +1,7 @@
 package org.example.repository;
 
 import org.example.entity.LoginAttempt;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -112,4 +113,15 @@ public interface LoginAttemptRepository extends JpaRepository<LoginAttempt, Long
            "FROM LoginAttempt la WHERE la.username = :username " +
            "AND la.success = true AND la.createdAt > :since")
     boolean hasRecentSuccessfulLogin(@Param("username") String username, @Param("since") LocalDateTime since);
+
+    /**
+     * Find the usernames with the most successful logins since the given time.
+     *
+     * @param since timestamp to search from
+     * @param pageable limit on the number of usernames returned
+     * @return usernames ordered by successful login count, most active first
+     */
+    @Query("SELECT la.username FROM LoginAttempt la WHERE la.success = true AND la.createdAt > :since " +
+           "GROUP BY la.username ORDER BY COUNT(la) DESC")
+    List<String> findMostActiveUsernames(@Param("since") LocalDateTime since, Pageable pageable);
 }
@@ -0,0 +1,50 @@
+package org.example.repository;
+
+import org.example.entity.MFABackupCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for MFA backup codes. Codes are looked up by (user, hash) through the
+ * unique index and consumed by a single conditional UPDATE.
+ */
+@Repository
+public interface MFABackupCodeRepository extends JpaRepository<MFABackupCode, Long> {
+
+    /**
+     * Hashes of a user's unused backup codes.
+     *
+     * @param userId the user ID
+     * @return code hashes
+     */
+    @Query("SELECT c.codeHash FROM MFABackupCode c WHERE c.user.id = :userId AND c.usedAt IS NULL")
+    List<byte[]> findUnusedHashesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Mark an unused backup code as used. Returns 0 when the code does not exist or was
+     * already used, including by a concurrent request.
+     *
+     * @param userId the user ID
+     * @param codeHash salted hash of the code
+     * @return number of consumed codes (0 or 1)
+     */
+    @Modifying
+    @Query("UPDATE MFABackupCode c SET c.usedAt = CURRENT_TIMESTAMP " +
+           "WHERE c.user.id = :userId AND c.codeHash = :codeHash AND c.usedAt IS NULL")
+    int consume(@Param("userId") Long userId, @Param("codeHash") byte[] codeHash);
+
+    /**
+     * Delete all backup codes of a user.
+     *
+     * @param userId the user ID
+     * @return number of deleted codes
+     */
+    @Modifying
+    @Query("DELETE FROM MFABackupCode c WHERE c.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
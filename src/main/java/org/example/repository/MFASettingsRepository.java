@@ -1,8 +1,11 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.entity.MFASettings;
 import org.example.entity.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -19,6 +22,7 @@ public interface MFASettingsRepository extends JpaRepository<MFASettings, Long>
      * @param user the user
      * @return Optional containing MFA settings if found
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<MFASettings> findByUser(User user);
 
     /**
@@ -27,6 +31,7 @@ public interface MFASettingsRepository extends JpaRepository<MFASettings, Long>
      * @param userId the user ID
      * @return Optional containing MFA settings if found
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<MFASettings> findByUserId(Long userId);
 
     /**
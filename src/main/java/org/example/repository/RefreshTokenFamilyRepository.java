@@ -0,0 +1,87 @@
+package org.example.repository;
+
+import org.example.entity.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for refresh token families. Rotation and revocation are single keyed
+ * statements on the family row; token rows are not walked.
+ */
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, Long> {
+
+    /**
+     * Move an active family from {@code expected} to the next generation. Returns 0 when
+     * the family is revoked or was already rotated past {@code expected} (token reuse or
+     * a concurrent rotation).
+     *
+     * @param id the family ID
+     * @param expected generation of the token being rotated
+     * @return number of updated families (0 or 1)
+     */
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.generation = f.generation + 1 " +
+           "WHERE f.id = :id AND f.generation = :expected AND f.revokedAt IS NULL")
+    int advanceGeneration(@Param("id") Long id, @Param("expected") int expected);
+
+    /**
+     * Revoke a whole family.
+     *
+     * @param id the family ID
+     * @param reason revocation reason
+     * @return number of revoked families (0 if already revoked)
+     */
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revokedAt = CURRENT_TIMESTAMP, f.revokeReason = :reason " +
+           "WHERE f.id = :id AND f.revokedAt IS NULL")
+    int revoke(@Param("id") Long id, @Param("reason") String reason);
+
+    /**
+     * IDs of a user's active families, read ahead of {@link #revokeAllByUserId} so the
+     * revocations can be broadcast.
+     *
+     * @param userId the user ID
+     * @return IDs of active families
+     */
+    @Query("SELECT f.id FROM RefreshTokenFamily f WHERE f.user.id = :userId AND f.revokedAt IS NULL")
+    List<Long> findActiveIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Revoke every active family of a user.
+     *
+     * @param userId the user ID
+     * @param reason revocation reason
+     * @return number of revoked families
+     */
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revokedAt = CURRENT_TIMESTAMP, f.revokeReason = :reason " +
+           "WHERE f.user.id = :userId AND f.revokedAt IS NULL")
+    int revokeAllByUserId(@Param("userId") Long userId, @Param("reason") String reason);
+
+    /**
+     * IDs of families revoked since the given time, used to warm the in-memory
+     * revocation set at startup.
+     *
+     * @param since lower bound on revoked_at
+     * @return IDs of recently revoked families
+     */
+    @Query("SELECT f.id FROM RefreshTokenFamily f WHERE f.revokedAt > :since")
+    List<Long> findIdsRevokedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Delete families that no longer have any tokens (after token cleanup).
+     *
+     * @return number of deleted families
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE NOT EXISTS " +
+           "(SELECT 1 FROM RefreshToken rt WHERE rt.familyId = f.id)")
+    int deleteEmpty();
+}
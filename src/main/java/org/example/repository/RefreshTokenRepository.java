@@ -1,5 +1,6 @@
 package org.example.repository;
 
+import org.example.dto.RefreshTokenClaims;
 import org.example.entity.RefreshToken;
 import org.example.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,12 +20,42 @@ import java.util.Optional;
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
     /**
-     * Find refresh token by token string.
+     * Token state, family state and owner claims by token digest, in one round-trip over
+     * the unique token_hash index joined to users and families by primary key.
      *
-     * @param token the token string
-     * @return Optional containing refresh token if found
+     * @param tokenHash SHA-256 digest of the token
+     * @return Optional containing the claims if the token exists
      */
-    Optional<RefreshToken> findByToken(String token);
+    @Query("SELECT new org.example.dto.RefreshTokenClaims(rt.id, rt.expiresAt, rt.revokedAt, rt.generation, " +
+           "f.id, f.generation, f.revokedAt, u.id, u.username, u.email, u.role) " +
+           "FROM RefreshToken rt JOIN rt.user u LEFT JOIN RefreshTokenFamily f ON f.id = rt.familyId " +
+           "WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshTokenClaims> findClaimsByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    /**
+     * Revoke a token unless it is already revoked, recording its replacement. Returns 0
+     * when another request revoked (or rotated) it first.
+     *
+     * @param id the token ID
+     * @param replacedByHash digest of the replacing token, or null
+     * @return number of revoked tokens (0 or 1)
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = CURRENT_TIMESTAMP, rt.replacedByHash = :replacedByHash " +
+           "WHERE rt.id = :id AND rt.revokedAt IS NULL")
+    int revokeIfActive(@Param("id") Long id, @Param("replacedByHash") byte[] replacedByHash);
+
+    /**
+     * Revoke a token by digest. Revoking an already revoked token keeps its original
+     * revocation time.
+     *
+     * @param tokenHash SHA-256 digest of the token
+     * @return number of matched tokens (0 if the token does not exist)
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = COALESCE(rt.revokedAt, CURRENT_TIMESTAMP) " +
+           "WHERE rt.tokenHash = :tokenHash")
+    int revokeByTokenHash(@Param("tokenHash") byte[] tokenHash);
 
     /**
      * Find all active (non-revoked, non-expired) tokens for a user.
@@ -55,6 +86,23 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
            "AND rt.revokedAt IS NULL AND rt.expiresAt > CURRENT_TIMESTAMP")
     long countActiveByUser(@Param("user") User user);
 
+    /**
+     * Revoke a user's active tokens beyond the newest {@code keep}, in one statement.
+     * Walks idx_refresh_tokens_user_live (V16) in order; tokens share one lifetime, so
+     * expiry order is issue order.
+     *
+     * @param userId the user ID
+     * @param keep number of newest active tokens to leave active
+     * @return number of revoked tokens
+     */
+    @Modifying
+    @Query(value = "UPDATE refresh_tokens SET revoked_at = CURRENT_TIMESTAMP WHERE id IN (" +
+                   "SELECT id FROM refresh_tokens WHERE user_id = :userId " +
+                   "AND revoked_at IS NULL AND expires_at > CURRENT_TIMESTAMP " +
+                   "ORDER BY expires_at DESC, id DESC OFFSET :keep ROWS)",
+           nativeQuery = true)
+    int revokeOldestActiveBeyond(@Param("userId") Long userId, @Param("keep") int keep);
+
     /**
      * Revoke all active tokens for a user.
      *
@@ -86,11 +134,11 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     /**
      * Check if token exists and is valid.
      *
-     * @param token the token string
+     * @param tokenHash SHA-256 digest of the token
      * @return true if token exists and is valid
      */
     @Query("SELECT CASE WHEN COUNT(rt) > 0 THEN true ELSE false END " +
-           "FROM RefreshToken rt WHERE rt.token = :token " +
+           "FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash " +
            "AND rt.revokedAt IS NULL AND rt.expiresAt > CURRENT_TIMESTAMP")
-    boolean isValidToken(@Param("token") String token);
+    boolean isValidToken(@Param("tokenHash") byte[] tokenHash);
 }
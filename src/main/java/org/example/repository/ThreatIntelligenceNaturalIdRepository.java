@@ -0,0 +1,17 @@
+package org.example.repository;
+
+import org.example.entity.ThreatIntelligence;
+
+import java.util.Optional;
+
+/**
+ * Natural-id lookups for {@link ThreatIntelligence}, resolved through Hibernate's
+ * natural-id cache instead of a query.
+ */
+public interface ThreatIntelligenceNaturalIdRepository {
+
+    /**
+     * Load threat intelligence by IP address, served from the second-level cache when present.
+     */
+    Optional<ThreatIntelligence> loadByIpAddress(String ipAddress);
+}
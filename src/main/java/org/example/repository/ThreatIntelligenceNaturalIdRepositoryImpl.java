@@ -0,0 +1,26 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.entity.ThreatIntelligence;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Spring Data fragment implementation of {@link ThreatIntelligenceNaturalIdRepository}.
+ */
+class ThreatIntelligenceNaturalIdRepositoryImpl implements ThreatIntelligenceNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ThreatIntelligence> loadByIpAddress(String ipAddress) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(ThreatIntelligence.class)
+                .loadOptional(ipAddress);
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.repository;
 
 import org.example.entity.ThreatIntelligence;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,7 +16,8 @@ import java.util.Optional;
  * Threat Intelligence Repository
  */
 @Repository
-public interface ThreatIntelligenceRepository extends JpaRepository<ThreatIntelligence, Long> {
+public interface ThreatIntelligenceRepository extends JpaRepository<ThreatIntelligence, Long>,
+        ThreatIntelligenceNaturalIdRepository {
 
     /**
      * Find threat intelligence by IP address
@@ -78,4 +80,11 @@ public interface ThreatIntelligenceRepository extends JpaRepository<ThreatIntell
      */
     @Query("SELECT t FROM ThreatIntelligence t ORDER BY t.riskScore DESC, t.suspiciousActivityCount DESC")
     List<ThreatIntelligence> findTopRiskyIps();
+
+    /**
+     * Find recently seen blacklisted or high-risk IP addresses (cache warm-up candidates)
+     */
+    @Query("SELECT t.ipAddress FROM ThreatIntelligence t WHERE t.isBlacklisted = true OR t.riskScore >= :threshold " +
+           "ORDER BY t.lastSeen DESC")
+    List<String> findHotIpAddresses(@Param("threshold") Integer threshold, Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package org.example.repository;
 
+import org.example.dto.TrustedDeviceEntry;
 import org.example.entity.TrustedDevice;
 import org.example.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -33,6 +34,29 @@ public interface TrustedDeviceRepository extends JpaRepository<TrustedDevice, Lo
             @Param("deviceIdentifier") String deviceIdentifier
     );
 
+    /**
+     * Find a user's device by identifier, whether or not its trust has expired.
+     *
+     * @param userId the user ID
+     * @param deviceIdentifier the device identifier
+     * @return Optional containing the device if found
+     */
+    @Query("SELECT td FROM TrustedDevice td WHERE td.user.id = :userId AND td.deviceIdentifier = :deviceIdentifier")
+    Optional<TrustedDevice> findAnyByUserIdAndDeviceIdentifier(
+            @Param("userId") Long userId,
+            @Param("deviceIdentifier") String deviceIdentifier
+    );
+
+    /**
+     * Identifiers and expiry of a user's non-expired trusted devices.
+     *
+     * @param userId the user ID
+     * @return trusted device entries
+     */
+    @Query("SELECT new org.example.dto.TrustedDeviceEntry(td.deviceIdentifier, td.trustedUntil) " +
+           "FROM TrustedDevice td WHERE td.user.id = :userId AND td.trustedUntil > CURRENT_TIMESTAMP")
+    List<TrustedDeviceEntry> findEntriesByUserId(@Param("userId") Long userId);
+
     /**
      * Find all trusted devices for a user (non-expired only).
      *
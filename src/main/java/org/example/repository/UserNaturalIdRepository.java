@@ -0,0 +1,21 @@
+package org.example.repository;
+
+import org.example.entity.User;
+
+import java.util.Optional;
+
+/**
+ * Natural-id lookups for {@link User}, resolved through Hibernate's natural-id
+ * cache instead of a query.
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Load a user by username. Repeated calls for the same username are served
+     * from the second-level cache without reaching the database.
+     *
+     * @param username the username
+     * @return Optional containing the user if found
+     */
+    Optional<User> loadByUsername(String username);
+}
@@ -1,16 +1,35 @@
 package org.example.repository;
 
+import org.example.dto.UserCountsView;
+import org.example.dto.UserKey;
+import org.example.dto.UserResponse;
+import org.example.dto.UserResponseView;
+import jakarta.persistence.QueryHint;
+import org.example.entity.Role;
 import org.example.entity.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository for User entity operations with dynamic filtering support.
  *
  * Extends JpaSpecificationExecutor for complex queries with Specification API.
+ * Username lookups that only need the entity should prefer
+ * {@link UserNaturalIdRepository#loadByUsername(String)}, which is served from the
+ * second-level natural-id cache.
  *
  * DEBUGGING GUIDE:
  * ----------------
@@ -26,7 +45,8 @@ import java.util.Optional;
  * - Line 26: existsByEmail() - Debug email uniqueness checks (registration)
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>,
+        UserNaturalIdRepository, UserSliceRepository {
 
     // BREAKPOINT: Set in RepositoryLoggingAspect to debug username existence checks
     boolean existsByUsername(String username);
@@ -35,8 +55,92 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     boolean existsByEmail(String email);
 
     // BREAKPOINT: Set in RepositoryLoggingAspect to debug login queries
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
     // BREAKPOINT: Set in RepositoryLoggingAspect to debug email-based lookups
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
+
+    // Cached profile projection: selects only the UserResponse columns (never the password hash)
+    @Cacheable(value = "users", key = "#p0", sync = true)
+    @Query("SELECT new org.example.dto.UserResponse(u.id, u.username, u.email, u.role, u.mfaEnabled, " +
+           "u.isAccountLocked, u.accountLockedUntil, u.lockReason, u.createdAt, u.updatedAt) " +
+           "FROM User u WHERE u.id = :id")
+    Optional<UserResponse> findResponseById(@Param("id") Long id);
+
+    // Keyset page over the primary key: index range scan, cost independent of how deep the client pages
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.role AS role, " +
+           "u.mfaEnabled AS mfaEnabled, u.isAccountLocked AS isAccountLocked, " +
+           "u.accountLockedUntil AS accountLockedUntil, u.lockReason AS lockReason, " +
+           "u.createdAt AS createdAt, u.updatedAt AS updatedAt " +
+           "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserResponseView> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // All statistics categories in one scan of users
+    @Query("SELECT count(u) AS totalUsers, " +
+           "count(u) FILTER (WHERE u.isAccountLocked = false) AS activeUsers, " +
+           "count(u) FILTER (WHERE u.isAccountLocked = true) AS lockedUsers, " +
+           "count(u) FILTER (WHERE u.mfaEnabled = true) AS mfaEnabledUsers, " +
+           "count(u) FILTER (WHERE u.role = org.example.entity.Role.ROLE_ADMIN) AS adminUsers, " +
+           "count(u) FILTER (WHERE u.role = org.example.entity.Role.ROLE_USER) AS regularUsers " +
+           "FROM User u")
+    UserCountsView aggregateUserCounts();
+
+    // Trigger-maintained counters (V12, V21; PostgreSQL only): folded totals plus the deltas not yet
+    // folded, which the fold job keeps to a handful of rows; O(1) regardless of user count
+    @Query(value = "SELECT c.total_users + d.total_users AS \"totalUsers\", " +
+                   "(c.total_users + d.total_users) - (c.locked_users + d.locked_users) AS \"activeUsers\", " +
+                   "c.locked_users + d.locked_users AS \"lockedUsers\", " +
+                   "c.mfa_enabled_users + d.mfa_enabled_users AS \"mfaEnabledUsers\", " +
+                   "c.admin_users + d.admin_users AS \"adminUsers\", " +
+                   "c.regular_users + d.regular_users AS \"regularUsers\" " +
+                   "FROM user_statistics_counters c CROSS JOIN (" +
+                   "SELECT CAST(COALESCE(SUM(total_users), 0) AS BIGINT) AS total_users, " +
+                   "CAST(COALESCE(SUM(locked_users), 0) AS BIGINT) AS locked_users, " +
+                   "CAST(COALESCE(SUM(mfa_enabled_users), 0) AS BIGINT) AS mfa_enabled_users, " +
+                   "CAST(COALESCE(SUM(admin_users), 0) AS BIGINT) AS admin_users, " +
+                   "CAST(COALESCE(SUM(regular_users), 0) AS BIGINT) AS regular_users " +
+                   "FROM user_statistics_counter_deltas) d " +
+                   "WHERE c.id = 1",
+           nativeQuery = true)
+    Optional<UserCountsView> findMaintainedUserCounts();
+
+    // Folds pending statistics deltas into the counters row (V21); returns the number of deltas folded
+    @Query(value = "SELECT fold_user_statistics_counter_deltas()", nativeQuery = true)
+    int foldUserStatisticsCounterDeltas();
+
+    // Cache keys for an explicit ID chunk, read before bulk statements so eviction stays targeted
+    @Query("SELECT new org.example.dto.UserKey(u.id, u.username, u.email) FROM User u " +
+           "WHERE u.id IN :ids ORDER BY u.id")
+    List<UserKey> findKeysByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Set-based bulk statements. JPQL (not native) so Hibernate also invalidates the users L2 region;
+    // updatedAt is set explicitly because bulk statements bypass @UpdateTimestamp
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.isAccountLocked = true, u.accountLockedUntil = :lockedUntil, " +
+           "u.lockReason = :reason, u.updatedAt = :now WHERE u.id IN :ids")
+    int lockAllById(@Param("ids") Collection<Long> ids, @Param("lockedUntil") LocalDateTime lockedUntil,
+                    @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.isAccountLocked = false, u.accountLockedUntil = null, u.lockReason = null, " +
+           "u.updatedAt = :now WHERE u.id IN :ids AND u.isAccountLocked = true")
+    int unlockAllById(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.role = :role, u.updatedAt = :now WHERE u.id IN :ids AND u.role <> :role")
+    int changeRoleById(@Param("ids") Collection<Long> ids, @Param("role") Role role, @Param("now") LocalDateTime now);
+
+    // Dependent rows (MFA settings, devices, tokens, history) go with the user via ON DELETE CASCADE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Batch uniqueness checks for bulk imports: one index probe per value, one round trip per batch
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 }
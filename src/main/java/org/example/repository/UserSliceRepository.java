@@ -0,0 +1,36 @@
+package org.example.repository;
+
+import org.example.dto.UserKey;
+import org.example.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Count-free pagination over {@link User} specifications.
+ */
+public interface UserSliceRepository {
+
+    /**
+     * Fetch one page of users matching the specification without issuing a count query.
+     * One extra row is read to determine {@link Slice#hasNext()}.
+     *
+     * @param spec the filter (may also apply ordering when the pageable is unsorted)
+     * @param pageable page number, size and optional sort
+     * @return slice of matching users
+     */
+    Slice<User> findSlice(Specification<User> spec, Pageable pageable);
+
+    /**
+     * Keyset scan of the cache keys of users matching the specification, in ID order.
+     * Used to walk a filter in chunks for bulk operations without an OFFSET.
+     *
+     * @param spec the filter (any ordering it applies is replaced by ID order)
+     * @param afterId exclusive lower bound on the user ID
+     * @param limit maximum number of keys to return
+     * @return keys of the next matching users
+     */
+    List<UserKey> findKeysAfter(Specification<User> spec, Long afterId, int limit);
+}
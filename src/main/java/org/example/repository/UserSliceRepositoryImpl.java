@@ -0,0 +1,71 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.dto.UserKey;
+import org.example.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Spring Data fragment implementation of {@link UserSliceRepository}.
+ */
+class UserSliceRepositoryImpl implements UserSliceRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<User> findSlice(Specification<User> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<User> query = criteriaBuilder.createQuery(User.class);
+        Root<User> root = query.from(User.class);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // Same precedence as SimpleJpaRepository: an explicit sort replaces any ordering from the spec
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        int pageSize = pageable.getPageSize();
+        List<User> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > pageSize;
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageSize) : rows, pageable, hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserKey> findKeysAfter(Specification<User> spec, Long afterId, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserKey> query = criteriaBuilder.createQuery(UserKey.class);
+        Root<User> root = query.from(User.class);
+
+        Predicate keyset = criteriaBuilder.greaterThan(root.get("id"), afterId);
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        query.select(criteriaBuilder.construct(UserKey.class, root.get("id"), root.get("username"), root.get("email")))
+                .where(predicate != null ? criteriaBuilder.and(keyset, predicate) : keyset)
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.security;
+
+import lombok.Getter;
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Security principal carrying the user's ID and role, so authorization checks
+ * can be made in memory without reloading the user from the database.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final Role role;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String username, String email, String password, Role role) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.authorities = List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getEmail(),
+                user.getPasswordHash(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ROLE_ADMIN;
+    }
+
+    /**
+     * Whether this principal may act on the given user: admins on anyone, users on themselves.
+     */
+    public boolean isAdminOrOwner(Long userId) {
+        return isAdmin() || id.equals(userId);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
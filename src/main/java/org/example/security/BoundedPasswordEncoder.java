@@ -0,0 +1,129 @@
+package org.example.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.PasswordHashingUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs password hashing (encode and matches) on a dedicated, fixed-size pool instead of
+ * the calling request thread's CPU budget.
+ *
+ * The pool has one thread per configured core and a bounded queue. When the queue is
+ * full, or a queued hash is not done within the timeout, the call fails fast with
+ * {@link PasswordHashingUnavailableException} (HTTP 503). At most threads + queue
+ * request threads can ever be waiting on hashing, so a login burst cannot take every
+ * Tomcat thread away from the other endpoints.
+ *
+ * {@link #upgradeEncoding(String)} only parses the stored hash and runs inline.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+    private static final String METRIC_PREFIX = "password.hashing";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private volatile Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Password hashing pool started: {} threads, queue capacity {}, timeout {} ms",
+                threads, queueCapacity, timeoutMs);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * The underlying encoder, for callers that already bound their own hashing concurrency
+     * (bulk import runs on its own pool in a maintenance window).
+     */
+    public PasswordEncoder unbounded() {
+        return delegate;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, METRIC_PREFIX, Tags.empty()).bindTo(registry);
+        rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Hash requests refused because the hashing pool was saturated")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw rejected("Password hashing queue is full");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw rejected("Password hashing did not complete within " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw rejected("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private PasswordHashingUnavailableException rejected(String message) {
+        Counter counter = rejectedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        log.warn("{} (active: {}, queued: {})", message, executor.getActiveCount(), executor.getQueue().size());
+        return new PasswordHashingUnavailableException(message);
+    }
+}
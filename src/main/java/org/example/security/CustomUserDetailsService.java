@@ -1,31 +1,33 @@
 package org.example.security;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.UserCacheInvalidator;
 import org.example.entity.User;
 import org.example.repository.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.Collections;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCacheInvalidator userCacheInvalidator;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserCacheInvalidator userCacheInvalidator) {
         this.userRepository = userRepository;
+        this.userCacheInvalidator = userCacheInvalidator;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("=== LOADING USER DETAILS === Username: '{}'", username);
 
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.loadByUsername(username)
                 .orElseThrow(() -> {
                     log.warn("=== USER NOT FOUND === Username: '{}'", username);
                     return new UsernameNotFoundException("User not found: " + username);
@@ -33,12 +35,24 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         log.debug("=== USER DETAILS LOADED === Username: '{}', Role: {}", username, user.getRole());
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPasswordHash())
-                .authorities(Collections.singletonList(
-                        new SimpleGrantedAuthority(user.getRole().name())
-                ))
-                .build();
+        return AuthenticatedUser.from(user);
+    }
+
+    /**
+     * Store a re-encoded hash after a successful login whose stored hash used an outdated
+     * encoder or cost. Called by {@link LoginAuthenticationProvider}.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.loadByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+
+        user.setPasswordHash(newPassword);
+        userRepository.save(user);
+        userCacheInvalidator.evict(user);
+        log.info("Upgraded password hash encoding for user '{}'", user.getUsername());
+
+        return AuthenticatedUser.from(user);
     }
 }
@@ -0,0 +1,113 @@
+package org.example.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failed logins per IP within the lockout window, shared by all instances through Redis.
+ *
+ * Each failure is a member of a per-IP sorted set scored by its time; failures older
+ * than the window are trimmed on every write, and at most the IP block threshold is
+ * kept, since reaching it is all the check needs. The set expires with the window, so
+ * an IP that stops failing leaves nothing behind.
+ *
+ * Counts are only shared when Redis is configured (spring.cache.type=redis). Without
+ * it, or if Redis is unreachable, {@link #countByIp} returns empty and callers fall back
+ * to counting login_attempts.
+ */
+@Component
+@Slf4j
+public class FailedLoginCounter {
+
+    private static final String KEY_PREFIX = "login:failures:ip:";
+
+    // Add the failure, drop the ones outside the window and all but the newest ARGV[4]
+    private static final RedisScript<Long> RECORD_FAILURE = RedisScript.of("""
+            redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. (tonumber(ARGV[1]) - tonumber(ARGV[3])))
+            redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[4]) + 1))
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return redis.call('ZCARD', KEYS[1])
+            """, Long.class);
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+    private final long windowMillis;
+    private final int maxTrackedFailures;
+
+    public FailedLoginCounter(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                              ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider,
+                              @Value("${app.security.account-lock.reset-time-minutes:15}") int resetTimeMinutes,
+                              @Value("${app.security.ip-block.max-failed-attempts:10}") int maxFailedAttemptsPerIp) {
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.listenerContainerProvider = listenerContainerProvider;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(resetTimeMinutes);
+        this.maxTrackedFailures = Math.max(1, maxFailedAttemptsPerIp);
+    }
+
+    /**
+     * Record a failed login from an IP address, if Redis is configured.
+     *
+     * @param ipAddress client IP address
+     */
+    public void recordFailure(String ipAddress) {
+        recordFailure(ipAddress, System.currentTimeMillis());
+    }
+
+    void recordFailure(String ipAddress, long nowMillis) {
+        StringRedisTemplate redisTemplate = sharedRedisTemplate();
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RECORD_FAILURE, List.of(KEY_PREFIX + ipAddress),
+                    String.valueOf(nowMillis), UUID.randomUUID().toString(),
+                    String.valueOf(windowMillis), String.valueOf(maxTrackedFailures));
+        } catch (Exception e) {
+            // The login_attempts row is still written, and counted when Redis is unreachable
+            log.warn("Failed to record failed login in Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Count the failed logins from an IP address within the window.
+     *
+     * @param ipAddress client IP address
+     * @return the shared count, or empty if Redis is not configured or unreachable
+     */
+    public OptionalLong countByIp(String ipAddress) {
+        return countByIp(ipAddress, System.currentTimeMillis());
+    }
+
+    OptionalLong countByIp(String ipAddress, long nowMillis) {
+        StringRedisTemplate redisTemplate = sharedRedisTemplate();
+        if (redisTemplate == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            Long count = redisTemplate.opsForZSet()
+                    .count(KEY_PREFIX + ipAddress, nowMillis - windowMillis, Double.POSITIVE_INFINITY);
+            return OptionalLong.of(count != null ? count : 0L);
+        } catch (Exception e) {
+            log.warn("Failed to read failed logins from Redis: {}", e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    private StringRedisTemplate sharedRedisTemplate() {
+        if (listenerContainerProvider.getIfAvailable() == null) {
+            return null;
+        }
+        return redisTemplateProvider.getIfAvailable();
+    }
+}
@@ -1,10 +1,12 @@
 package org.example.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.RevokedRefreshTokenSet;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,10 +23,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final RevokedRefreshTokenSet revokedRefreshTokens;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                   RevokedRefreshTokenSet revokedRefreshTokens) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revokedRefreshTokens = revokedRefreshTokens;
     }
 
     @Override
@@ -41,8 +46,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (StringUtils.hasText(jwt)) {
                 log.debug("=== JWT TOKEN FOUND === URI: {}", requestURI);
 
-                if (jwtUtil.validateToken(jwt)) {
-                    String username = jwtUtil.getUsernameFromToken(jwt);
+                // One signature verification; subject and family are read from the claims
+                Claims claims = jwtUtil.validateAndGetClaims(jwt);
+                if (claims == null) {
+                    log.warn("=== JWT TOKEN INVALID === URI: {}", requestURI);
+                } else if (revokedRefreshTokens.isFamilyRevoked(jwtUtil.getFamilyId(claims))) {
+                    log.warn("=== JWT TOKEN FROM REVOKED SESSION === URI: {}", requestURI);
+                } else {
+                    String username = claims.getSubject();
                     log.debug("=== JWT TOKEN VALID === User: '{}', URI: {}", username, requestURI);
 
                     UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -54,8 +65,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     log.debug("=== AUTHENTICATION SET === User: '{}', Authorities: {}, URI: {}",
                         username, userDetails.getAuthorities(), requestURI);
-                } else {
-                    log.warn("=== JWT TOKEN INVALID === URI: {}", requestURI);
                 }
             } else {
                 log.debug("=== NO JWT TOKEN === URI: {} (Public endpoint or missing auth)", requestURI);
@@ -1,8 +1,10 @@
 package org.example.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -17,56 +19,99 @@ import java.util.Date;
 @Slf4j
 public class JwtUtil {
 
+    private static final String FAMILY_ID_CLAIM = "fid";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * Derive the signing key and build the (immutable, thread-safe) parser once.
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
+    /**
+     * Verify the token's signature and expiry and return its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims extractAllClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Claims of a valid token, or null if it is invalid; verifies the signature once, so
+     * callers read the subject and family from the result instead of parsing again.
+     */
+    public Claims validateAndGetClaims(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            log.debug("=== JWT TOKEN VALIDATION SUCCESS ===");
+            return claims;
+        } catch (Exception e) {
+            log.warn("=== JWT TOKEN VALIDATION FAILED === Error: {}", e.getMessage());
+            return null;
+        }
     }
 
     public String generateToken(Authentication authentication) {
+        return generateToken(authentication, null);
+    }
+
+    /**
+     * Access token bound to a refresh-token family (claim {@code fid}), so revoking the
+     * family also invalidates access tokens already issued from it.
+     */
+    public String generateToken(Authentication authentication, Long familyId) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
         String token = Jwts.builder()
                 .subject(userDetails.getUsername())
+                .claim(FAMILY_ID_CLAIM, familyId)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
 
         log.info("=== JWT TOKEN GENERATED === User: '{}', Expiry: {}", userDetails.getUsername(), expiryDate);
         return token;
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Refresh-token family the access token was issued from, or null.
+     */
+    public Long getFamilyIdFromToken(String token) {
+        return getFamilyId(extractAllClaims(token));
+    }
+
+    /**
+     * Refresh-token family from already verified claims, or null.
+     */
+    public Long getFamilyId(Claims claims) {
+        return claims.get(FAMILY_ID_CLAIM, Long.class);
+    }
 
-        String username = claims.getSubject();
+    public String getUsernameFromToken(String token) {
+        String username = extractAllClaims(token).getSubject();
         log.debug("=== JWT USERNAME EXTRACTED === User: '{}'", username);
         return username;
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            log.debug("=== JWT TOKEN VALIDATION SUCCESS ===");
-            return true;
-        } catch (Exception e) {
-            log.warn("=== JWT TOKEN VALIDATION FAILED === Error: {}", e.getMessage());
-            return false;
-        }
+        return validateAndGetClaims(token) != null;
     }
 
     // Temp token methods for MFA flow (5-minute expiration)
@@ -80,17 +125,13 @@ public class JwtUtil {
                 .claim("temp", true)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public boolean validateTempToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = extractAllClaims(token);
 
             // Check if it's a temp token
             Boolean isTemp = claims.get("temp", Boolean.class);
@@ -101,21 +142,13 @@ public class JwtUtil {
     }
 
     public Long extractUserIdFromTempToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = extractAllClaims(token);
 
         return claims.get("userId", Long.class);
     }
 
     public String extractUsernameFromTempToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = extractAllClaims(token);
 
         return claims.getSubject();
     }
@@ -0,0 +1,97 @@
+package org.example.security;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.example.service.AccountLockService;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Username/password authentication for the login endpoint.
+ *
+ * Loads the user once through the natural-id cache and uses that same entity for the
+ * lock check, password verification and the authenticated principal, so a successful
+ * login reads the users table at most once (and not at all on a cache hit). Replaces
+ * {@code DaoAuthenticationProvider}, whose {@code loadUserByUsername} forced callers
+ * to look the user up again for lock state and the login response.
+ *
+ * Failures are reported as {@link UsernameNotFoundException}, {@link LockedException}
+ * or {@link BadCredentialsException} so the caller can record the right failure reason.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LoginAuthenticationProvider implements AuthenticationProvider {
+
+    // Verified against when the user does not exist, so unknown usernames cost one hash as well
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final AccountLockService accountLockService;
+    private final CustomUserDetailsService userDetailsService;
+    private final ObservationRegistry observationRegistry;
+
+    private volatile String userNotFoundEncodedPassword;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        String rawPassword = authentication.getCredentials() != null ? authentication.getCredentials().toString() : "";
+
+        User user = Observation.createNotStarted("login.user.load", observationRegistry)
+                .observe(() -> userRepository.loadByUsername(username).orElse(null));
+
+        if (user == null) {
+            verifyPassword(rawPassword, userNotFoundEncodedPassword());
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+
+        // Expired locks are lifted here; only then is the entity written
+        accountLockService.checkAndAutoUnlock(user);
+        if (Boolean.TRUE.equals(user.getIsAccountLocked())) {
+            throw new LockedException("Account is locked");
+        }
+
+        if (!verifyPassword(rawPassword, user.getPasswordHash())) {
+            throw new BadCredentialsException("Invalid username or password");
+        }
+
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        if (passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+            principal = (AuthenticatedUser) userDetailsService.updatePassword(principal, passwordEncoder.encode(rawPassword));
+        }
+
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    private boolean verifyPassword(String rawPassword, String encodedPassword) {
+        return Observation.createNotStarted("login.password.verify", observationRegistry)
+                .observe(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private String userNotFoundEncodedPassword() {
+        String encoded = userNotFoundEncodedPassword;
+        if (encoded == null) {
+            encoded = passwordEncoder.encode(USER_NOT_FOUND_PASSWORD);
+            userNotFoundEncodedPassword = encoded;
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RFC 6238 TOTP verification (HMAC-SHA1, 6 digits, 30-second steps), compatible with
+ * the codes produced for secrets issued by {@code GoogleAuthenticator}.
+ *
+ * Each thread reuses one {@link Mac} instead of looking up a provider per code. Every
+ * step of the tolerance window is computed regardless of where (or whether) the code
+ * matches, so response time does not reveal the matching step. A code is accepted at
+ * most once: the last accepted step per user is kept for as long as the window can
+ * still accept it, and codes at or before that step are rejected.
+ *
+ * The last step is kept in memory and, when Redis is configured (spring.cache.type=redis),
+ * also advanced in Redis with an atomic compare-and-set, so a code accepted on one
+ * instance cannot be replayed against another. If Redis is unreachable the in-memory
+ * check still applies, which only guards against replays on the same instance.
+ */
+@Component
+@Slf4j
+public class TotpVerifier {
+
+    private static final String LAST_STEP_KEY_PREFIX = "totp:last-step:";
+
+    // Advance the stored step only forward; 1 if this call advanced it
+    private static final RedisScript<Long> ADVANCE_LAST_STEP = RedisScript.of("""
+            local last = redis.call('GET', KEYS[1])
+            if last and tonumber(last) >= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final String ALGORITHM = "HmacSHA1";
+    private static final long TIME_STEP_SECONDS = 30;
+    private static final int CODE_MODULUS = 1_000_000;
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    });
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+    private final int windowSteps;
+    private final long replayTtlSeconds;
+    private final Cache<Long, Long> lastAcceptedSteps;
+
+    public TotpVerifier(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                        ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider,
+                        @Value("${mfa.totp.window-steps:1}") int windowSteps,
+                        @Value("${mfa.totp.replay-cache.max-entries:100000}") long maxEntries) {
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.listenerContainerProvider = listenerContainerProvider;
+        this.windowSteps = windowSteps;
+        this.replayTtlSeconds = (2L * windowSteps + 1) * TIME_STEP_SECONDS;
+        this.lastAcceptedSteps = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(replayTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Verify a code against the current time and consume it.
+     *
+     * @param userId owner of the key, for replay tracking
+     * @param key raw TOTP key
+     * @param code the 6-digit code
+     * @return true if the code is valid and has not been used before
+     */
+    public boolean verify(Long userId, byte[] key, int code) {
+        return verify(userId, key, code, Instant.now().getEpochSecond());
+    }
+
+    boolean verify(Long userId, byte[] key, int code, long epochSeconds) {
+        long currentStep = epochSeconds / TIME_STEP_SECONDS;
+        long matchedStep = -1;
+        for (long step = currentStep - windowSteps; step <= currentStep + windowSteps; step++) {
+            if (generate(key, step) == code) {
+                matchedStep = step;
+            }
+        }
+        if (matchedStep < 0) {
+            return false;
+        }
+
+        long accepted = matchedStep;
+        boolean[] fresh = {false};
+        lastAcceptedSteps.asMap().compute(userId, (id, last) -> {
+            if (last != null && last >= accepted) {
+                return last;
+            }
+            fresh[0] = true;
+            return accepted;
+        });
+        return fresh[0] && advanceSharedStep(userId, accepted);
+    }
+
+    /**
+     * Advance the user's last accepted step in Redis.
+     *
+     * @return false if another instance already accepted this or a later step
+     */
+    private boolean advanceSharedStep(Long userId, long step) {
+        if (listenerContainerProvider.getIfAvailable() == null) {
+            return true;
+        }
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return true;
+        }
+        try {
+            Long advanced = redisTemplate.execute(ADVANCE_LAST_STEP, List.of(LAST_STEP_KEY_PREFIX + userId),
+                    String.valueOf(step), String.valueOf(TimeUnit.SECONDS.toMillis(replayTtlSeconds)));
+            return advanced == null || advanced == 1L;
+        } catch (Exception e) {
+            // The in-memory check above still rejects replays on this instance
+            log.warn("Failed to record TOTP step in Redis: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private static int generate(byte[] key, long step) {
+        Mac mac = MAC.get();
+        try {
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Invalid TOTP key", e);
+        }
+
+        byte[] counter = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            counter[i] = (byte) step;
+            step >>>= 8;
+        }
+        byte[] hash = mac.doFinal(counter);
+
+        // Dynamic truncation (RFC 4226, section 5.3)
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        return binary % CODE_MODULUS;
+    }
+}
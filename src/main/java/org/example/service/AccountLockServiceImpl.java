@@ -2,15 +2,20 @@ package org.example.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.UserCacheInvalidator;
 import org.example.entity.LoginAttempt;
+import org.example.entity.ThreatIntelligence;
 import org.example.entity.User;
 import org.example.repository.LoginAttemptRepository;
 import org.example.repository.UserRepository;
+import org.example.security.FailedLoginCounter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.OptionalLong;
 
 /**
  * Implementation of account locking and brute force protection service.
@@ -23,6 +28,8 @@ public class AccountLockServiceImpl implements AccountLockService {
     private final LoginAttemptRepository loginAttemptRepository;
     private final UserRepository userRepository;
     private final ThreatIntelligenceService threatIntelligenceService;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final FailedLoginCounter failedLoginCounter;
 
     @Value("${app.security.account-lock.max-failed-attempts:5}")
     private int maxFailedAttempts;
@@ -39,7 +46,11 @@ public class AccountLockServiceImpl implements AccountLockService {
     @Value("${app.security.login-attempts.retention-days:90}")
     private int retentionDays;
 
+    /**
+     * Runs after the login response is built, off the request thread.
+     */
     @Override
+    @Async
     @Transactional
     public void recordSuccessfulLogin(String username, String ipAddress, String userAgent) {
         log.debug("Recording successful login for user: {} from IP: {}", username, ipAddress);
@@ -57,7 +68,12 @@ public class AccountLockServiceImpl implements AccountLockService {
         resetFailedAttempts(username);
     }
 
+    /**
+     * Runs off the request thread; the lock (if any) is applied a moment after the
+     * response, which the windowed count tolerates.
+     */
     @Override
+    @Async
     @Transactional
     public void recordFailedLogin(String username, String ipAddress, String userAgent, String failureReason) {
         log.warn("Recording failed login for user: {} from IP: {} - Reason: {}", username, ipAddress, failureReason);
@@ -70,6 +86,7 @@ public class AccountLockServiceImpl implements AccountLockService {
         attempt.setFailureReason(failureReason);
 
         loginAttemptRepository.save(attempt);
+        failedLoginCounter.recordFailure(ipAddress);
 
         // Record in threat intelligence system
         try {
@@ -99,11 +116,17 @@ public class AccountLockServiceImpl implements AccountLockService {
         return shouldLock;
     }
 
+    /**
+     * The threat record comes from the natural-id cache and only short-circuits an IP it
+     * already marks as blocked. Its failed-login counter is per instance and may lag, so
+     * the windowed count of failures decides: read from the shared Redis counter when
+     * Redis is configured, otherwise counted over login_attempts.
+     */
     @Override
     public boolean shouldBlockIp(String ipAddress) {
-        // Check threat intelligence first
         try {
-            if (threatIntelligenceService.shouldBlockIp(ipAddress)) {
+            ThreatIntelligence threat = threatIntelligenceService.getThreatIntelligence(ipAddress);
+            if (threat != null && threat.shouldBlock()) {
                 log.warn("IP {} blocked by threat intelligence", ipAddress);
                 return true;
             }
@@ -133,6 +156,7 @@ public class AccountLockServiceImpl implements AccountLockService {
         user.setLockReason(reason);
 
         userRepository.save(user);
+        userCacheInvalidator.evict(user);
 
         log.info("Account locked until: {} for user: {}", user.getAccountLockedUntil(), user.getUsername());
     }
@@ -147,6 +171,7 @@ public class AccountLockServiceImpl implements AccountLockService {
         user.setLockReason(null);
 
         userRepository.save(user);
+        userCacheInvalidator.evict(user);
 
         log.info("Account unlocked for user: {}", user.getUsername());
     }
@@ -172,6 +197,10 @@ public class AccountLockServiceImpl implements AccountLockService {
 
     @Override
     public long getFailedAttemptCountByIp(String ipAddress) {
+        OptionalLong sharedCount = failedLoginCounter.countByIp(ipAddress);
+        if (sharedCount.isPresent()) {
+            return sharedCount.getAsLong();
+        }
         LocalDateTime since = LocalDateTime.now().minusMinutes(resetTimeMinutes);
         return loginAttemptRepository.countFailedAttemptsByIp(ipAddress, since);
     }
@@ -0,0 +1,37 @@
+package org.example.service;
+
+import org.example.enums.EmailType;
+
+/**
+ * Service interface for the transactional email outbox.
+ */
+public interface EmailOutboxService {
+
+    /**
+     * Queue an email. Joins the caller's transaction, so the email is sent if and only
+     * if the caller's changes commit.
+     *
+     * @param type notification type
+     * @param recipient recipient address
+     * @param subject subject line
+     * @param bodyHtml HTML body (may be null)
+     * @param bodyText plain text body (may be null)
+     */
+    void enqueue(EmailType type, String recipient, String subject, String bodyHtml, String bodyText);
+
+    /**
+     * Send due emails in batches, one SMTP session per batch (scheduled task).
+     *
+     * @return number of emails sent
+     */
+    int dispatchPending();
+
+    /**
+     * Delete sent, dead-lettered and cancelled emails older than the retention period
+     * (scheduled task).
+     *
+     * @param retentionDays days to keep finished emails
+     * @return number of emails deleted
+     */
+    int cleanupFinished(int retentionDays);
+}
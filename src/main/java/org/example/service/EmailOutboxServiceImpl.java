@@ -0,0 +1,226 @@
+package org.example.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.EmailNotification;
+import org.example.enums.EmailType;
+import org.example.metrics.CustomMetrics;
+import org.example.repository.EmailNotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox over the email_notifications table.
+ *
+ * Services queue emails in their own transaction; the dispatcher then works in three
+ * short steps per batch so no transaction or row lock spans SMTP I/O:
+ * <ol>
+ *   <li>Claim: lock due rows with SKIP LOCKED (safe across instances) and mark them SENDING</li>
+ *   <li>Send: all messages of the batch through one SMTP connection</li>
+ *   <li>Record: mark sent rows SENT in one statement; failed rows go back to PENDING with
+ *       exponential backoff, or to FAILED (dead letter) after their last attempt</li>
+ * </ol>
+ * Rows left SENDING by a dispatcher that died mid-batch are released after the claim
+ * timeout, so delivery is at-least-once.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final EmailNotificationRepository emailNotificationRepository;
+    private final JavaMailSender mailSender;
+    private final PlatformTransactionManager transactionManager;
+    private final CustomMetrics customMetrics;
+
+    @Value("${app.mail.from}")
+    private String fromAddress;
+
+    @Value("${app.mail.from-name}")
+    private String fromName;
+
+    @Value("${app.mail.retry-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.mail.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.mail.outbox.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    @Override
+    @Transactional
+    public void enqueue(EmailType type, String recipient, String subject, String bodyHtml, String bodyText) {
+        EmailNotification email = new EmailNotification();
+        email.setEmailType(type);
+        email.setRecipientEmail(recipient);
+        email.setSubject(subject);
+        email.setBodyHtml(bodyHtml);
+        email.setBodyText(bodyText);
+        email.setMaxAttempts(maxAttempts);
+        email.setNextAttemptAt(LocalDateTime.now());
+        emailNotificationRepository.save(email);
+    }
+
+    @Override
+    public int dispatchPending() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Integer released = transactionTemplate.execute(status -> emailNotificationRepository
+                .releaseExpiredClaims(LocalDateTime.now().minusNanos(claimTimeoutMs * 1_000_000)));
+        if (released != null && released > 0) {
+            log.warn("Released {} emails left in SENDING by an interrupted dispatch", released);
+        }
+
+        int sent = 0;
+        for (int batchNumber = 0; batchNumber < maxBatchesPerRun; batchNumber++) {
+            List<EmailNotification> batch = transactionTemplate.execute(status -> claimBatch());
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            sent += sendBatch(batch, transactionTemplate);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return sent;
+    }
+
+    @Override
+    @Transactional
+    public int cleanupFinished(int retentionDays) {
+        return emailNotificationRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    private List<EmailNotification> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = emailNotificationRepository.lockDueIds(now, batchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        emailNotificationRepository.markSending(ids, now);
+        return emailNotificationRepository.findAllById(ids);
+    }
+
+    private int sendBatch(List<EmailNotification> batch, TransactionTemplate transactionTemplate) {
+        long start = System.nanoTime();
+        Map<MimeMessage, EmailNotification> messages = new LinkedHashMap<>();
+        Map<EmailNotification, Exception> failures = new LinkedHashMap<>();
+
+        for (EmailNotification email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                failures.put(email, e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                // One connection for the whole batch
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(email -> failures.put(email, e));
+                } else {
+                    e.getFailedMessages().forEach((message, ex) -> failures.put(messages.get(message), ex));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        }
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (EmailNotification email : batch) {
+            if (!failures.containsKey(email)) {
+                sentIds.add(email.getId());
+            }
+        }
+
+        int deadLettered = 0;
+        for (EmailNotification email : failures.keySet()) {
+            if (email.getAttempts() >= email.getMaxAttempts()) {
+                deadLettered++;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                emailNotificationRepository.markSent(sentIds, now);
+            }
+            failures.forEach((email, e) -> emailNotificationRepository.markFailed(
+                    email.getId(), truncate(e.getMessage()), now.plusNanos(backoffMs(email.getAttempts()) * 1_000_000)));
+        });
+
+        customMetrics.recordEmailOutboxBatch(System.nanoTime() - start);
+        customMetrics.recordEmailOutboxMessages("sent", sentIds.size());
+        customMetrics.recordEmailOutboxMessages("retry", failures.size() - deadLettered);
+        customMetrics.recordEmailOutboxMessages("dead_letter", deadLettered);
+
+        if (!failures.isEmpty()) {
+            log.warn("Email batch: {} sent, {} failed ({} dead-lettered). First error: {}",
+                    sentIds.size(), failures.size(), deadLettered, failures.values().iterator().next().getMessage());
+        } else {
+            log.debug("Email batch: {} sent", sentIds.size());
+        }
+        return sentIds.size();
+    }
+
+    private MimeMessage toMimeMessage(EmailNotification email) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        boolean html = email.getBodyHtml() != null;
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, html && email.getBodyText() != null, "UTF-8");
+
+        helper.setFrom(fromAddress, fromName);
+        helper.setTo(email.getRecipientEmail());
+        helper.setSubject(email.getSubject());
+        if (html && email.getBodyText() != null) {
+            helper.setText(email.getBodyText(), email.getBodyHtml());
+        } else if (html) {
+            helper.setText(email.getBodyHtml(), true);
+        } else {
+            helper.setText(email.getBodyText() != null ? email.getBodyText() : "", false);
+        }
+        return mimeMessage;
+    }
+
+    /**
+     * Delay before the next attempt: retry-delay doubled per failed attempt.
+     */
+    private long backoffMs(int attempts) {
+        return retryDelayMs << Math.min(Math.max(attempts - 1, 0), MAX_BACKOFF_SHIFT);
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
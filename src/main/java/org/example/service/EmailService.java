@@ -70,6 +70,13 @@ public interface EmailService {
      */
     void sendNotificationEmail(EmailRequest request);
 
+    /**
+     * Send the digests of coalesced security notifications whose window has ended
+     *
+     * @return number of digests sent
+     */
+    int sendNotificationDigests();
+
     /**
      * Test email configuration
      */
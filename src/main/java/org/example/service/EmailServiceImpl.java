@@ -1,41 +1,38 @@
 package org.example.service;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.NotificationCoalescer;
 import org.example.dto.EmailRequest;
+import org.example.enums.EmailType;
+import org.example.metrics.CustomMetrics;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Email Service Implementation
- * Handles all email notifications with Thymeleaf templates
- * Includes circuit breaker and retry for resilience
+ * Handles all email notifications with Thymeleaf templates, rendered by {@link EmailTemplateRenderer}
+ * Emails are queued in the transactional outbox; delivery, retries and dead-lettering
+ * happen in {@link EmailOutboxService#dispatchPending()}
+ * Security notifications an attacker can trigger repeatedly are coalesced per recipient
+ * and type by {@link NotificationCoalescer}: the first is sent, repeats within the window
+ * are summarised in one digest email
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender mailSender;
-    private final SpringTemplateEngine templateEngine;
-
-    @Value("${app.mail.from}")
-    private String fromAddress;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailTemplateRenderer templateRenderer;
+    private final NotificationCoalescer notificationCoalescer;
+    private final CustomMetrics customMetrics;
 
     @Value("${app.mail.from-name}")
     private String fromName;
@@ -43,181 +40,125 @@ public class EmailServiceImpl implements EmailService {
     @Value("${app.mail.enabled:true}")
     private boolean emailEnabled;
 
-    @Value("${server.port:8080}")
-    private String serverPort;
+    @Value("${app.mail.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
 
-    private static final String BASE_URL = "http://localhost";
+    @Value("${app.mail.coalescing.types:ACCOUNT_LOCKED,ACCOUNT_UNLOCKED,SECURITY_ALERT,NEW_DEVICE_LOGIN}")
+    private Set<EmailType> coalescedTypes;
 
     @Override
-    @Async
-    @CircuitBreaker(name = "emailService", fallbackMethod = "emailFallback")
-    @Retry(name = "emailService")
     public void sendSimpleEmail(String to, String subject, String text) {
         if (!emailEnabled) {
             log.info("Email disabled. Would send to {}: {}", to, subject);
             return;
         }
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromAddress);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-
-            mailSender.send(message);
-            log.info("Simple email sent successfully to: {}", to);
-        } catch (Exception e) {
-            log.error("Failed to send simple email to: {}", to, e);
-            throw new RuntimeException("Failed to send email", e);
-        }
+        emailOutboxService.enqueue(EmailType.NOTIFICATION, to, subject, null, text);
+        log.info("Simple email queued for: {}", to);
     }
 
     @Override
-    @Async
-    @CircuitBreaker(name = "emailService", fallbackMethod = "emailFallback")
-    @Retry(name = "emailService")
     public void sendTemplateEmail(String to, String subject, String templateName, Map<String, Object> variables) {
-        if (!emailEnabled) {
-            log.info("Email disabled. Would send to {}: {}", to, subject);
-            return;
-        }
-
-        try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            // Set email properties
-            helper.setFrom(fromAddress, fromName);
-            helper.setTo(to);
-            helper.setSubject(subject);
-
-            // Process template
-            Context context = new Context();
-            context.setVariables(variables);
-            String htmlContent = templateEngine.process(templateName, context);
-
-            helper.setText(htmlContent, true);
-
-            mailSender.send(mimeMessage);
-            log.info("Template email '{}' sent successfully to: {}", templateName, to);
-        } catch (MessagingException e) {
-            log.error("Failed to send template email to: {}", to, e);
-            throw new RuntimeException("Failed to send email", e);
-        } catch (Exception e) {
-            log.error("Unexpected error sending email to: {}", to, e);
-            throw new RuntimeException("Failed to send email", e);
-        }
+        sendTemplateEmail(EmailType.NOTIFICATION, to, subject, templateName,
+                templateRenderer.variables().withAll(variables));
     }
 
     @Override
     public void sendWelcomeEmail(String to, String username) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("appName", fromName);
-        variables.put("loginUrl", BASE_URL + ":" + serverPort + "/login");
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Welcome to " + fromName, "welcome-email", variables);
+        sendTemplateEmail(EmailType.WELCOME, to, "Welcome to " + fromName, "welcome-email",
+                templateRenderer.variables()
+                        .with("username", username));
     }
 
     @Override
     public void sendPasswordResetEmail(String to, String username, String resetToken) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("resetLink", BASE_URL + ":" + serverPort + "/reset-password?token=" + resetToken);
-        variables.put("expirationMinutes", 30);
-        variables.put("appName", fromName);
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Password Reset Request", "password-reset-email", variables);
+        sendTemplateEmail(EmailType.PASSWORD_RESET, to, "Password Reset Request", "password-reset-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("resetLink", templateRenderer.url("/reset-password?token=" + resetToken))
+                        .with("expirationMinutes", 30));
     }
 
     @Override
     public void sendAccountLockedEmail(String to, String username, String reason) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("reason", reason);
-        variables.put("appName", fromName);
-        variables.put("supportEmail", fromAddress);
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Account Locked - Security Alert", "account-locked-email", variables);
+        if (!admit(EmailType.ACCOUNT_LOCKED, to, username, reason)) {
+            return;
+        }
+        sendTemplateEmail(EmailType.ACCOUNT_LOCKED, to, "Account Locked - Security Alert", "account-locked-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("reason", reason));
     }
 
     @Override
     public void sendAccountUnlockedEmail(String to, String username) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("appName", fromName);
-        variables.put("loginUrl", BASE_URL + ":" + serverPort + "/login");
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Account Unlocked", "account-unlocked-email", variables);
+        if (!admit(EmailType.ACCOUNT_UNLOCKED, to, username, null)) {
+            return;
+        }
+        sendTemplateEmail(EmailType.ACCOUNT_UNLOCKED, to, "Account Unlocked", "account-unlocked-email",
+                templateRenderer.variables()
+                        .with("username", username));
     }
 
     @Override
     public void sendMFAEnabledEmail(String to, String username) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("appName", fromName);
-        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Two-Factor Authentication Enabled", "mfa-enabled-email", variables);
+        if (!admit(EmailType.MFA_ENABLED, to, username, null)) {
+            return;
+        }
+        sendTemplateEmail(EmailType.MFA_ENABLED, to, "Two-Factor Authentication Enabled", "mfa-enabled-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.now())));
     }
 
     @Override
     public void sendMFADisabledEmail(String to, String username) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("appName", fromName);
-        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        variables.put("supportEmail", fromAddress);
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Two-Factor Authentication Disabled", "mfa-disabled-email", variables);
+        if (!admit(EmailType.MFA_DISABLED, to, username, null)) {
+            return;
+        }
+        sendTemplateEmail(EmailType.MFA_DISABLED, to, "Two-Factor Authentication Disabled", "mfa-disabled-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.now())));
     }
 
     @Override
     public void sendPasswordChangedEmail(String to, String username) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("appName", fromName);
-        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        variables.put("supportEmail", fromAddress);
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Password Changed Successfully", "password-changed-email", variables);
+        if (!admit(EmailType.PASSWORD_CHANGED, to, username, null)) {
+            return;
+        }
+        sendTemplateEmail(EmailType.PASSWORD_CHANGED, to, "Password Changed Successfully", "password-changed-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.now())));
     }
 
     @Override
     public void sendSuspiciousLoginEmail(String to, String username, String ipAddress, String location, String device) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("ipAddress", ipAddress);
-        variables.put("location", location);
-        variables.put("device", device);
-        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        variables.put("appName", fromName);
-        variables.put("securityUrl", BASE_URL + ":" + serverPort + "/security");
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "Suspicious Login Activity Detected", "suspicious-login-email", variables);
+        if (!admit(EmailType.SECURITY_ALERT, to, username, describeLogin(device, ipAddress, location))) {
+            return;
+        }
+        sendTemplateEmail(EmailType.SECURITY_ALERT, to, "Suspicious Login Activity Detected", "suspicious-login-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("ipAddress", ipAddress)
+                        .with("location", location)
+                        .with("device", device)
+                        .with("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.now())));
     }
 
     @Override
     public void sendNewDeviceLoginEmail(String to, String username, String device, String ipAddress, String location) {
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("username", username);
-        variables.put("device", device);
-        variables.put("ipAddress", ipAddress);
-        variables.put("location", location);
-        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        variables.put("appName", fromName);
-        variables.put("year", LocalDateTime.now().getYear());
-
-        sendTemplateEmail(to, "New Device Login Detected", "new-device-login-email", variables);
+        if (!admit(EmailType.NEW_DEVICE_LOGIN, to, username, describeLogin(device, ipAddress, location))) {
+            return;
+        }
+        sendTemplateEmail(EmailType.NEW_DEVICE_LOGIN, to, "New Device Login Detected", "new-device-login-email",
+                templateRenderer.variables()
+                        .with("username", username)
+                        .with("device", device)
+                        .with("ipAddress", ipAddress)
+                        .with("location", location)
+                        .with("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.now())));
     }
 
     @Override
@@ -229,6 +170,15 @@ public class EmailServiceImpl implements EmailService {
         }
     }
 
+    @Override
+    public int sendNotificationDigests() {
+        List<NotificationCoalescer.Digest> digests = notificationCoalescer.drainDigests(LocalDateTime.now());
+        for (NotificationCoalescer.Digest digest : digests) {
+            sendDigest(digest);
+        }
+        return digests.size();
+    }
+
     @Override
     public boolean testEmailConfiguration(String testRecipient) {
         try {
@@ -245,14 +195,74 @@ public class EmailServiceImpl implements EmailService {
     }
 
     /**
-     * Fallback method for circuit breaker
+     * Render a template and queue the email in the outbox (joining the caller's transaction).
+     */
+    private void sendTemplateEmail(EmailType type, String to, String subject, String templateName,
+                                   EmailTemplateRenderer.Variables variables) {
+        if (!emailEnabled) {
+            log.info("Email disabled. Would send to {}: {}", to, subject);
+            return;
+        }
+
+        String htmlContent = templateRenderer.render(templateName, variables);
+
+        emailOutboxService.enqueue(type, to, subject, htmlContent, null);
+        log.info("Template email '{}' queued for: {}", templateName, to);
+    }
+
+    /**
+     * Pass a notification through the coalescing window of its recipient and type.
+     * A digest of the previous window that is due is sent first.
+     *
+     * @return whether to send the notification now
      */
-    private void emailFallback(String to, String subject, String text, Exception e) {
-        log.warn("Email circuit breaker activated. Email not sent to: {}. Error: {}", to, e.getMessage());
+    private boolean admit(EmailType type, String to, String username, String detail) {
+        if (!coalescingEnabled || !coalescedTypes.contains(type) || to == null) {
+            return true;
+        }
+
+        NotificationCoalescer.Admission admission =
+                notificationCoalescer.admit(to, type, username, detail, LocalDateTime.now());
+        if (admission.closed() != null) {
+            sendDigest(admission.closed());
+        }
+        if (!admission.send()) {
+            customMetrics.recordEmailCoalescing(type.name(), "suppressed");
+            log.debug("{} notification for {} coalesced into the next digest", type, to);
+            return false;
+        }
+        customMetrics.recordEmailCoalescing(type.name(), "sent");
+        return true;
+    }
+
+    private void sendDigest(NotificationCoalescer.Digest digest) {
+        customMetrics.recordEmailCoalescing(digest.type().name(), "digest");
+        sendTemplateEmail(digest.type(), digest.recipient(),
+                "Security Notifications Summary - " + digest.suppressed() + " more alerts", "security-digest-email",
+                templateRenderer.variables()
+                        .with("username", digest.username())
+                        .with("count", digest.suppressed())
+                        .with("eventDescription", describe(digest.type()))
+                        .with("firstAt", EmailTemplateRenderer.formatTimestamp(digest.firstAt()))
+                        .with("lastAt", EmailTemplateRenderer.formatTimestamp(digest.lastAt()))
+                        .with("recentEvents", digest.recentEvents()));
+    }
+
+    private static String describe(EmailType type) {
+        return switch (type) {
+            case ACCOUNT_LOCKED -> "account locked";
+            case ACCOUNT_UNLOCKED -> "account unlocked";
+            case SECURITY_ALERT -> "suspicious login";
+            case NEW_DEVICE_LOGIN -> "new device login";
+            case MFA_ENABLED -> "two-factor authentication enabled";
+            case MFA_DISABLED -> "two-factor authentication disabled";
+            case PASSWORD_CHANGED -> "password changed";
+            default -> "security";
+        };
     }
 
-    private void emailFallback(String to, String subject, String templateName, Map<String, Object> variables, Exception e) {
-        log.warn("Email circuit breaker activated. Template email '{}' not sent to: {}. Error: {}",
-                 templateName, to, e.getMessage());
+    private static String describeLogin(String device, String ipAddress, String location) {
+        return Objects.toString(device, "Unknown device") + " from " + Objects.toString(ipAddress, "unknown IP")
+                + " (" + Objects.toString(location, "unknown location") + ")";
     }
 }
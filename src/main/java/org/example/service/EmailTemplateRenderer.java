@@ -0,0 +1,198 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders the Thymeleaf email templates under {@code resources/templates}.
+ *
+ * All email templates are parsed at startup, so Thymeleaf's template cache holds their
+ * parsed form (static markup included) before the first email and a broken template
+ * fails fast. Variables shared by every template (application name, support address,
+ * links) are built once; per-email variables are layered on top in a small
+ * {@link Variables} context instead of a fresh map. Each thread renders into its own
+ * reusable buffer.
+ */
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    public static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String TEMPLATE_LOCATION = "classpath:templates/*-email.html";
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<StringWriter> BUFFER =
+            ThreadLocal.withInitial(() -> new StringWriter(INITIAL_BUFFER_SIZE));
+
+    private final ITemplateEngine templateEngine;
+    private final String baseUrl;
+    private final Map<String, Object> sharedVariables;
+
+    public EmailTemplateRenderer(ITemplateEngine templateEngine,
+                                 @Value("${app.mail.from}") String fromAddress,
+                                 @Value("${app.mail.from-name}") String fromName,
+                                 @Value("${app.mail.base-url:http://localhost:${server.port:8080}}") String baseUrl) {
+        this.templateEngine = templateEngine;
+        this.baseUrl = baseUrl;
+        this.sharedVariables = Map.of(
+                "appName", fromName,
+                "supportEmail", fromAddress,
+                "loginUrl", baseUrl + "/login",
+                "securityUrl", baseUrl + "/security");
+    }
+
+    /**
+     * Parse every email template into the template cache.
+     */
+    @PostConstruct
+    public void preloadTemplates() {
+        long start = System.nanoTime();
+        int loaded = 0;
+        try {
+            Resource[] templates = new PathMatchingResourcePatternResolver().getResources(TEMPLATE_LOCATION);
+            for (Resource template : templates) {
+                String filename = template.getFilename();
+                if (filename == null) {
+                    continue;
+                }
+                templateEngine.process(filename.substring(0, filename.length() - ".html".length()),
+                        variables(), Writer.nullWriter());
+                loaded++;
+            }
+        } catch (IOException e) {
+            log.warn("Could not list email templates for preloading: {}", e.getMessage());
+        }
+        log.info("Preloaded {} email templates in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Start a context for one email; the shared variables and the current year are
+     * already included.
+     *
+     * @return a context to add per-email variables to
+     */
+    public Variables variables() {
+        return new Variables(sharedVariables).with("year", Year.now().getValue());
+    }
+
+    /**
+     * Render a template.
+     *
+     * @param templateName template name (file name without {@code .html})
+     * @param variables per-email variables
+     * @return the rendered HTML
+     */
+    public String render(String templateName, Variables variables) {
+        StringWriter buffer = BUFFER.get();
+        buffer.getBuffer().setLength(0);
+        templateEngine.process(templateName, variables, buffer);
+        String html = buffer.toString();
+        if (buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    /**
+     * Absolute link into the application.
+     *
+     * @param path path (and query) starting with {@code /}
+     * @return the link
+     */
+    public String url(String path) {
+        return baseUrl + path;
+    }
+
+    /**
+     * Format a timestamp the way the templates display it.
+     */
+    public static String formatTimestamp(LocalDateTime timestamp) {
+        return TIMESTAMP_FORMAT.format(timestamp);
+    }
+
+    /**
+     * Template context: per-email variables in insertion-ordered arrays, falling back
+     * to the shared variables. A later {@link #with} for the same name wins.
+     */
+    public static final class Variables implements IContext {
+
+        private final Map<String, Object> shared;
+        private String[] names = new String[8];
+        private Object[] values = new Object[8];
+        private int size;
+
+        private Variables(Map<String, Object> shared) {
+            this.shared = shared;
+        }
+
+        public Variables with(String name, Object value) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            names[size] = name;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public Variables withAll(Map<String, ?> variables) {
+            if (variables != null) {
+                variables.forEach(this::with);
+            }
+            return this;
+        }
+
+        @Override
+        public Locale getLocale() {
+            return Locale.getDefault();
+        }
+
+        @Override
+        public boolean containsVariable(String name) {
+            return indexOf(name) >= 0 || shared.containsKey(name);
+        }
+
+        @Override
+        public Set<String> getVariableNames() {
+            Set<String> variableNames = new HashSet<>(shared.keySet());
+            variableNames.addAll(Arrays.asList(names).subList(0, size));
+            return variableNames;
+        }
+
+        @Override
+        public Object getVariable(String name) {
+            int index = indexOf(name);
+            return index >= 0 ? values[index] : shared.get(name);
+        }
+
+        private int indexOf(String name) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -3,8 +3,10 @@ package org.example.service;
 import org.example.dto.MFASetupResponse;
 import org.example.dto.TrustedDeviceResponse;
 import org.example.entity.User;
+import org.example.enums.QRCodeFormat;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service interface for Multi-Factor Authentication operations.
@@ -14,11 +16,23 @@ public interface MFAService {
     /**
      * Generate MFA setup (secret, QR code, backup codes) for a user.
      * Does not enable MFA yet - requires verification with setupMFA().
+     * The setup is committed before the QR code is rendered on the QR code pool.
      *
      * @param user the user
-     * @return MFA setup response with QR code and backup codes
+     * @param format QR code output format
+     * @return MFA setup response with QR code and backup codes, completed once the QR code is rendered
      */
-    MFASetupResponse generateMFASetup(User user);
+    CompletableFuture<MFASetupResponse> generateMFASetup(User user, QRCodeFormat format);
+
+    /**
+     * Get the QR code of the user's pending (not yet verified) MFA setup.
+     *
+     * @param user the user
+     * @param format QR code output format
+     * @return Base64-encoded PNG or SVG markup
+     * @throws IllegalStateException if there is no pending setup
+     */
+    CompletableFuture<String> getSetupQRCode(User user, QRCodeFormat format);
 
     /**
      * Enable MFA for a user after verifying the TOTP code.
@@ -93,13 +107,21 @@ public interface MFAService {
     boolean isDeviceTrusted(User user, String deviceIdentifier);
 
     /**
-     * Update last used timestamp for a trusted device.
+     * Update last used timestamp for a trusted device. The update is buffered in memory
+     * and written by {@link #flushDeviceUsage()}.
      *
      * @param user the user
      * @param deviceIdentifier unique device identifier
      */
     void updateDeviceLastUsed(User user, String deviceIdentifier);
 
+    /**
+     * Write buffered last-used timestamps of trusted devices in one batch (scheduled task).
+     *
+     * @return number of devices updated
+     */
+    int flushDeviceUsage();
+
     /**
      * Get all trusted devices for a user.
      *
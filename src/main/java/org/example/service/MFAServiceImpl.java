@@ -1,34 +1,49 @@
 package org.example.service;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import com.warrenstrange.googleauth.GoogleAuthenticatorQRGenerator;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base32;
+import org.example.cache.MFACredentialCache;
+import org.example.cache.MFACredentialCache.MFACredentials;
+import org.example.cache.TrustedDeviceCache;
+import org.example.cache.UserCacheInvalidator;
 import org.example.dto.MFASetupResponse;
+import org.example.dto.TrustedDeviceEntry;
 import org.example.dto.TrustedDeviceResponse;
+import org.example.entity.MFABackupCode;
 import org.example.entity.MFASettings;
 import org.example.entity.TrustedDevice;
 import org.example.entity.User;
+import org.example.enums.QRCodeFormat;
+import org.example.repository.MFABackupCodeRepository;
 import org.example.repository.MFASettingsRepository;
 import org.example.repository.TrustedDeviceRepository;
 import org.example.repository.UserRepository;
+import org.example.security.TotpVerifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -40,8 +55,16 @@ import java.util.stream.Collectors;
 public class MFAServiceImpl implements MFAService {
 
     private final MFASettingsRepository mfaSettingsRepository;
+    private final MFABackupCodeRepository backupCodeRepository;
     private final TrustedDeviceRepository trustedDeviceRepository;
     private final UserRepository userRepository;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final MFACredentialCache mfaCredentialCache;
+    private final TotpVerifier totpVerifier;
+    private final QRCodeService qrCodeService;
+    private final PlatformTransactionManager transactionManager;
+    private final TrustedDeviceCache trustedDeviceCache;
+    private final JdbcTemplate jdbcTemplate;
     private final GoogleAuthenticator googleAuthenticator = new GoogleAuthenticator();
 
     @Value("${app.name:CRUDTest}")
@@ -53,13 +76,26 @@ public class MFAServiceImpl implements MFAService {
     @Value("${mfa.trusted-device.duration-days:30}")
     private int trustedDeviceDurationDays;
 
-    private static final int QR_CODE_SIZE = 300;
     private static final int BACKUP_CODE_LENGTH = 8;
     private static final String BACKUP_CODE_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int BACKUP_CODE_SALT_LENGTH = 16;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final String UPDATE_LAST_USED_SQL =
+            "UPDATE trusted_devices SET last_used_at = ? WHERE user_id = ? AND device_identifier = ? " +
+            "AND (last_used_at IS NULL OR last_used_at < ?)";
+
+    private static final ThreadLocal<MessageDigest> DEVICE_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    private static final Pattern TOTP_CODE_PATTERN = Pattern.compile("^[0-9]{6}$");
+    private static final Pattern BACKUP_CODE_PATTERN = Pattern.compile("^[A-Z0-9]{8}$");
 
     @Override
-    @Transactional
-    public MFASetupResponse generateMFASetup(User user) {
+    public CompletableFuture<MFASetupResponse> generateMFASetup(User user, QRCodeFormat format) {
         log.info("Generating MFA setup for user: {}", user.getUsername());
 
         // Generate new TOTP secret
@@ -73,28 +109,53 @@ public class MFAServiceImpl implements MFAService {
                 key
         );
 
-        // Generate QR code image
-        String qrCodeBase64 = generateQRCodeBase64(otpAuthUri);
-
         // Generate backup codes
         String[] backupCodes = generateBackupCodes();
 
-        // Save or update MFA settings (not verified yet)
-        MFASettings mfaSettings = mfaSettingsRepository.findByUser(user)
-                .orElse(new MFASettings());
+        // Save or update MFA settings (not verified yet); committed before rendering starts
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            MFASettings mfaSettings = mfaSettingsRepository.findByUser(user)
+                    .orElse(new MFASettings());
 
-        mfaSettings.setUser(user);
-        mfaSettings.setSecret(secret);
-        mfaSettings.setBackupCodes(encryptBackupCodes(backupCodes));
-        mfaSettings.setIsVerified(false);
+            mfaSettings.setUser(user);
+            mfaSettings.setSecret(secret);
+            mfaSettings.setIsVerified(false);
 
-        mfaSettingsRepository.save(mfaSettings);
+            replaceBackupCodes(user, mfaSettings, backupCodes);
+        });
 
         String instructions = "1. Scan the QR code with your authenticator app (Google Authenticator, Authy, etc.)\n" +
                 "2. Enter the 6-digit code from your app to verify and enable MFA\n" +
                 "3. Save the backup codes in a secure location - you can use them if you lose access to your authenticator app";
 
-        return new MFASetupResponse(secret, otpAuthUri, qrCodeBase64, backupCodes, instructions);
+        MFASetupResponse response = new MFASetupResponse(secret, otpAuthUri, null, null, backupCodes, instructions);
+
+        // Generate QR code image on the QR code pool
+        return qrCodeService.render(user.getId(), otpAuthUri, format).handle((image, ex) -> {
+            if (ex != null) {
+                // The setup itself is stored; the client can use the OTPAuth URI or fetch the QR code later
+                log.warn("QR code not rendered for user {}: {}", user.getUsername(), ex.getMessage());
+            } else if (format == QRCodeFormat.SVG) {
+                response.setQrCodeSvg(image);
+            } else {
+                response.setQrCodeBase64(image);
+            }
+            return response;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> getSetupQRCode(User user, QRCodeFormat format) {
+        MFASettings mfaSettings = mfaSettingsRepository.findByUserId(user.getId())
+                .filter(settings -> !settings.getIsVerified())
+                .orElseThrow(() -> new IllegalStateException("No pending MFA setup. Please call /mfa/setup first."));
+
+        String otpAuthUri = GoogleAuthenticatorQRGenerator.getOtpAuthTotpURL(
+                appName,
+                user.getUsername(),
+                new GoogleAuthenticatorKey.Builder(mfaSettings.getSecret()).build()
+        );
+        return qrCodeService.render(user.getId(), otpAuthUri, format);
     }
 
     @Override
@@ -117,10 +178,13 @@ public class MFAServiceImpl implements MFAService {
         // Mark as verified
         mfaSettings.setIsVerified(true);
         mfaSettingsRepository.save(mfaSettings);
+        mfaCredentialCache.evict(user.getId());
+        qrCodeService.evict(user.getId());
 
         // Update user entity
         user.setMfaEnabled(true);
         userRepository.save(user);
+        userCacheInvalidator.evict(user);
 
         log.info("MFA successfully enabled for user: {}", user.getUsername());
     }
@@ -130,15 +194,20 @@ public class MFAServiceImpl implements MFAService {
     public void disableMFA(User user) {
         log.info("Disabling MFA for user: {}", user.getUsername());
 
-        // Delete MFA settings
+        // Delete MFA settings and backup codes
         mfaSettingsRepository.findByUser(user).ifPresent(mfaSettingsRepository::delete);
+        backupCodeRepository.deleteByUserId(user.getId());
+        mfaCredentialCache.evict(user.getId());
+        qrCodeService.evict(user.getId());
 
         // Delete all trusted devices
         trustedDeviceRepository.deleteByUser(user);
+        trustedDeviceCache.evict(user.getId());
 
         // Update user entity
         user.setMfaEnabled(false);
         userRepository.save(user);
+        userCacheInvalidator.evict(user);
 
         log.info("MFA successfully disabled for user: {}", user.getUsername());
     }
@@ -150,12 +219,12 @@ public class MFAServiceImpl implements MFAService {
         }
 
         // Try TOTP code first (6 digits)
-        if (code.matches("^[0-9]{6}$")) {
+        if (TOTP_CODE_PATTERN.matcher(code).matches()) {
             return verifyTOTPCode(user, code);
         }
 
         // Try backup code (8 characters)
-        if (code.matches("^[A-Z0-9]{8}$")) {
+        if (BACKUP_CODE_PATTERN.matcher(code).matches()) {
             return verifyAndUseBackupCode(user, code);
         }
 
@@ -164,51 +233,51 @@ public class MFAServiceImpl implements MFAService {
 
     @Override
     public boolean verifyTOTPCode(User user, String totpCode) {
-        MFASettings mfaSettings = mfaSettingsRepository.findByUser(user).orElse(null);
-        if (mfaSettings == null) {
+        MFACredentials credentials = getCredentials(user).orElse(null);
+        if (credentials == null) {
             log.warn("No MFA settings found for user: {}", user.getUsername());
             return false;
         }
 
-        try {
-            int code = Integer.parseInt(totpCode);
-            boolean isValid = googleAuthenticator.authorize(mfaSettings.getSecret(), code);
-
-            if (isValid) {
-                log.info("TOTP code verified for user: {}", user.getUsername());
-            } else {
-                log.warn("Invalid TOTP code for user: {}", user.getUsername());
-            }
-
-            return isValid;
-        } catch (NumberFormatException e) {
+        if (totpCode == null || !TOTP_CODE_PATTERN.matcher(totpCode).matches()) {
             log.warn("Invalid TOTP code format for user: {}", user.getUsername());
             return false;
         }
+
+        boolean isValid = totpVerifier.verify(user.getId(), credentials.secretKey(), Integer.parseInt(totpCode));
+
+        if (isValid) {
+            log.info("TOTP code verified for user: {}", user.getUsername());
+        } else {
+            log.warn("Invalid or already used TOTP code for user: {}", user.getUsername());
+        }
+
+        return isValid;
     }
 
     @Override
     @Transactional
     public boolean verifyAndUseBackupCode(User user, String backupCode) {
-        MFASettings mfaSettings = mfaSettingsRepository.findByUser(user).orElse(null);
-        if (mfaSettings == null || mfaSettings.getBackupCodes() == null) {
+        MFACredentials credentials = getCredentials(user).orElse(null);
+        if (credentials == null || credentials.backupCodeHashes().isEmpty()) {
             log.warn("No MFA settings or backup codes found for user: {}", user.getUsername());
             return false;
         }
 
-        String[] encryptedCodes = mfaSettings.getBackupCodes();
-        String[] decryptedCodes = decryptBackupCodes(encryptedCodes);
-
-        // Check if backup code matches any unused code
-        for (int i = 0; i < decryptedCodes.length; i++) {
-            if (backupCode.equalsIgnoreCase(decryptedCodes[i])) {
-                log.info("Backup code verified for user: {}", user.getUsername());
+        // Check the cached hashes first; only a matching code reaches the database
+        byte[] codeHash = hashBackupCode(credentials.backupCodeSalt(), backupCode.toUpperCase());
+        boolean matched = false;
+        for (byte[] hash : credentials.backupCodeHashes()) {
+            matched |= MessageDigest.isEqual(codeHash, hash);
+        }
 
-                // Mark code as used by replacing it with "USED"
-                decryptedCodes[i] = "USED";
-                mfaSettings.setBackupCodes(encryptBackupCodes(decryptedCodes));
-                mfaSettingsRepository.save(mfaSettings);
+        if (matched) {
+            // Consumed by one conditional UPDATE: of two concurrent uses, only one succeeds
+            boolean consumed = backupCodeRepository.consume(user.getId(), codeHash) == 1;
+            mfaCredentialCache.evict(user.getId());
 
+            if (consumed) {
+                log.info("Backup code verified for user: {}", user.getUsername());
                 return true;
             }
         }
@@ -226,8 +295,7 @@ public class MFAServiceImpl implements MFAService {
                 .orElseThrow(() -> new IllegalStateException("MFA is not enabled for this user."));
 
         String[] backupCodes = generateBackupCodes();
-        mfaSettings.setBackupCodes(encryptBackupCodes(backupCodes));
-        mfaSettingsRepository.save(mfaSettings);
+        replaceBackupCodes(user, mfaSettings, backupCodes);
 
         return backupCodes;
     }
@@ -237,7 +305,9 @@ public class MFAServiceImpl implements MFAService {
     public void trustDevice(User user, String deviceIdentifier, String deviceName, String ipAddress, String userAgent) {
         log.info("Trusting device for user: {} - Device: {}", user.getUsername(), deviceName);
 
-        TrustedDevice device = new TrustedDevice();
+        // (user, device) is unique: re-trusting a known device renews it
+        TrustedDevice device = trustedDeviceRepository.findAnyByUserIdAndDeviceIdentifier(user.getId(), deviceIdentifier)
+                .orElseGet(TrustedDevice::new);
         device.setUser(user);
         device.setDeviceIdentifier(deviceIdentifier);
         device.setDeviceName(deviceName);
@@ -247,21 +317,47 @@ public class MFAServiceImpl implements MFAService {
         device.setLastUsedAt(LocalDateTime.now());
 
         trustedDeviceRepository.save(device);
+        trustedDeviceCache.evict(user.getId());
     }
 
     @Override
     public boolean isDeviceTrusted(User user, String deviceIdentifier) {
-        return trustedDeviceRepository.isDeviceTrusted(user, deviceIdentifier);
+        LocalDateTime trustedUntil = trustedDeviceCache.get(user.getId(), this::loadTrustedDevices).get(deviceIdentifier);
+        return trustedUntil != null && trustedUntil.isAfter(LocalDateTime.now());
     }
 
     @Override
-    @Transactional
     public void updateDeviceLastUsed(User user, String deviceIdentifier) {
-        trustedDeviceRepository.findByUserAndDeviceIdentifier(user, deviceIdentifier)
-                .ifPresent(device -> {
-                    device.setLastUsedAt(LocalDateTime.now());
-                    trustedDeviceRepository.save(device);
-                });
+        trustedDeviceCache.recordUse(user.getId(), deviceIdentifier, LocalDateTime.now());
+    }
+
+    @Override
+    public int flushDeviceUsage() {
+        List<Map.Entry<TrustedDeviceCache.DeviceUse, LocalDateTime>> uses = trustedDeviceCache.drainUses();
+        if (uses.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_LAST_USED_SQL, uses, uses.size(), (ps, use) -> {
+            Timestamp usedAt = Timestamp.valueOf(use.getValue());
+            ps.setTimestamp(1, usedAt);
+            ps.setLong(2, use.getKey().userId());
+            ps.setString(3, use.getKey().deviceIdentifier());
+            ps.setTimestamp(4, usedAt);
+        });
+        return uses.size();
+    }
+
+    /**
+     * Write pending device uses before the data source goes away.
+     */
+    @PreDestroy
+    public void flushDeviceUsageOnShutdown() {
+        try {
+            flushDeviceUsage();
+        } catch (Exception e) {
+            log.warn("Failed to flush trusted device usage on shutdown: {}", e.getMessage());
+        }
     }
 
     @Override
@@ -279,6 +375,7 @@ public class MFAServiceImpl implements MFAService {
         trustedDeviceRepository.findById(deviceId)
                 .filter(device -> device.getUser().getId().equals(user.getId()))
                 .ifPresent(trustedDeviceRepository::delete);
+        trustedDeviceCache.evict(user.getId());
     }
 
     @Override
@@ -286,6 +383,7 @@ public class MFAServiceImpl implements MFAService {
     public void revokeAllTrustedDevices(User user) {
         log.info("Revoking all trusted devices for user: {}", user.getUsername());
         trustedDeviceRepository.deleteByUser(user);
+        trustedDeviceCache.evict(user.getId());
     }
 
     @Override
@@ -299,49 +397,73 @@ public class MFAServiceImpl implements MFAService {
 
     @Override
     public String generateDeviceIdentifier(String ipAddress, String userAgent) {
-        try {
-            String fingerprint = ipAddress + "|" + userAgent;
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(fingerprint.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception e) {
-            log.error("Error generating device identifier", e);
-            return String.valueOf(System.currentTimeMillis());
-        }
+        MessageDigest digest = DEVICE_DIGEST.get();
+        digest.update(String.valueOf(ipAddress).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '|');
+        return Base64.getEncoder().encodeToString(digest.digest(String.valueOf(userAgent).getBytes(StandardCharsets.UTF_8)));
     }
 
     // ========================================
     // Private Helper Methods
     // ========================================
 
-    private String generateQRCodeBase64(String otpAuthUri) {
+    private Optional<MFACredentials> getCredentials(User user) {
+        return mfaCredentialCache.get(user.getId(), this::loadCredentials);
+    }
+
+    private Map<String, LocalDateTime> loadTrustedDevices(Long userId) {
+        return trustedDeviceRepository.findEntriesByUserId(userId).stream()
+                .collect(Collectors.toUnmodifiableMap(TrustedDeviceEntry::deviceIdentifier,
+                        TrustedDeviceEntry::trustedUntil, (a, b) -> a.isAfter(b) ? a : b));
+    }
+
+    private Optional<MFACredentials> loadCredentials(Long userId) {
+        return mfaSettingsRepository.findByUserId(userId).map(settings -> new MFACredentials(
+                new Base32().decode(settings.getSecret()),
+                settings.getBackupCodeSalt(),
+                backupCodeRepository.findUnusedHashesByUserId(userId)));
+    }
+
+    /**
+     * Replace the user's backup codes (and their salt) with {@code codes}, saving the settings.
+     */
+    private void replaceBackupCodes(User user, MFASettings mfaSettings, String[] codes) {
+        byte[] salt = new byte[BACKUP_CODE_SALT_LENGTH];
+        SECURE_RANDOM.nextBytes(salt);
+        mfaSettings.setBackupCodeSalt(salt);
+        mfaSettingsRepository.save(mfaSettings);
+
+        backupCodeRepository.deleteByUserId(user.getId());
+        List<MFABackupCode> rows = Arrays.stream(codes)
+                .map(code -> {
+                    MFABackupCode row = new MFABackupCode();
+                    row.setUser(user);
+                    row.setCodeHash(hashBackupCode(salt, code));
+                    return row;
+                })
+                .toList();
+        backupCodeRepository.saveAll(rows);
+
+        mfaCredentialCache.evict(user.getId());
+    }
+
+    private static byte[] hashBackupCode(byte[] salt, String code) {
         try {
-            BitMatrix matrix = new MultiFormatWriter().encode(
-                    otpAuthUri,
-                    BarcodeFormat.QR_CODE,
-                    QR_CODE_SIZE,
-                    QR_CODE_SIZE
-            );
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(matrix, "PNG", outputStream);
-            byte[] qrCodeBytes = outputStream.toByteArray();
-
-            return Base64.getEncoder().encodeToString(qrCodeBytes);
-        } catch (Exception e) {
-            log.error("Error generating QR code", e);
-            throw new RuntimeException("Failed to generate QR code", e);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return digest.digest(code.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
     private String[] generateBackupCodes() {
-        SecureRandom random = new SecureRandom();
         String[] codes = new String[backupCodesCount];
 
         for (int i = 0; i < backupCodesCount; i++) {
             StringBuilder code = new StringBuilder();
             for (int j = 0; j < BACKUP_CODE_LENGTH; j++) {
-                int index = random.nextInt(BACKUP_CODE_CHARS.length());
+                int index = SECURE_RANDOM.nextInt(BACKUP_CODE_CHARS.length());
                 code.append(BACKUP_CODE_CHARS.charAt(index));
             }
             codes[i] = code.toString();
@@ -350,22 +472,6 @@ public class MFAServiceImpl implements MFAService {
         return codes;
     }
 
-    private String[] encryptBackupCodes(String[] codes) {
-        // In production, use proper encryption (AES-256)
-        // For now, using Base64 encoding as placeholder
-        return Arrays.stream(codes)
-                .map(code -> Base64.getEncoder().encodeToString(code.getBytes(StandardCharsets.UTF_8)))
-                .toArray(String[]::new);
-    }
-
-    private String[] decryptBackupCodes(String[] encryptedCodes) {
-        // In production, use proper decryption (AES-256)
-        // For now, using Base64 decoding as placeholder
-        return Arrays.stream(encryptedCodes)
-                .map(code -> new String(Base64.getDecoder().decode(code), StandardCharsets.UTF_8))
-                .toArray(String[]::new);
-    }
-
     private TrustedDeviceResponse mapToResponse(TrustedDevice device) {
         return new TrustedDeviceResponse(
                 device.getId(),
@@ -96,14 +96,9 @@ public class PasswordResetServiceImpl implements PasswordResetService {
 
         tokenRepository.save(resetToken);
 
-        // Send reset email
-        try {
-            emailService.sendPasswordResetEmail(user.getEmail(), user.getUsername(), token);
-            log.info("Password reset email sent to user: {}", user.getUsername());
-        } catch (Exception e) {
-            log.error("Failed to send password reset email to user: {}", user.getUsername(), e);
-            // Don't throw exception - token is still valid
-        }
+        // Queue the reset email in the outbox: committed together with the token, delivered with retries
+        emailService.sendPasswordResetEmail(user.getEmail(), user.getUsername(), token);
+        log.info("Password reset email queued for user: {}", user.getUsername());
 
         // Audit log
         auditLogService.log(
@@ -162,12 +157,8 @@ public class PasswordResetServiceImpl implements PasswordResetService {
         // Invalidate all other tokens for this user
         invalidateAllTokensForUser(user.getId());
 
-        // Send confirmation email
-        try {
-            emailService.sendPasswordChangedEmail(user.getEmail(), user.getUsername());
-        } catch (Exception e) {
-            log.error("Failed to send password changed email to user: {}", user.getUsername(), e);
-        }
+        // Queue the confirmation email in the outbox, committed together with the new password
+        emailService.sendPasswordChangedEmail(user.getEmail(), user.getUsername());
 
         // Audit log
         auditLogService.log(
@@ -0,0 +1,30 @@
+package org.example.service;
+
+import org.example.enums.QRCodeFormat;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service interface for rendering MFA setup QR codes off the request threads.
+ */
+public interface QRCodeService {
+
+    /**
+     * Render the QR code of a user's pending MFA setup. The result is cached per user
+     * and format until the setup changes or is evicted.
+     *
+     * @param userId the user ID
+     * @param otpAuthUri OTPAuth URI to encode
+     * @param format output format
+     * @return Base64-encoded PNG or SVG markup; fails with
+     *         {@link java.util.concurrent.RejectedExecutionException} when the render pool is saturated
+     */
+    CompletableFuture<String> render(Long userId, String otpAuthUri, QRCodeFormat format);
+
+    /**
+     * Drop the cached QR codes of a user (setup verified or discarded).
+     *
+     * @param userId the user ID
+     */
+    void evict(Long userId);
+}
@@ -0,0 +1,144 @@
+package org.example.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import lombok.extern.slf4j.Slf4j;
+import org.example.enums.QRCodeFormat;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders MFA setup QR codes on the bounded {@code qrCodeExecutor} pool, so bursts of
+ * enrollments queue (and beyond the queue are refused) instead of taking CPU from
+ * request threads.
+ *
+ * Renders are cached per user and format together with the URI they encode; a new
+ * setup (different URI) replaces them, and they are evicted when the setup is verified
+ * or MFA is disabled. Failed renders are not cached.
+ */
+@Service
+@Slf4j
+public class QRCodeServiceImpl implements QRCodeService {
+
+    private static final int PNG_SIZE = 300;
+    private static final Map<EncodeHintType, Object> SVG_HINTS = Map.of(EncodeHintType.MARGIN, 4);
+
+    private final Executor qrCodeExecutor;
+    private final Cache<RenderKey, Rendering> renderings;
+
+    public QRCodeServiceImpl(@Qualifier("qrCodeExecutor") Executor qrCodeExecutor,
+                             @Value("${mfa.qr-code.cache.max-entries:10000}") long maxEntries,
+                             @Value("${mfa.qr-code.cache.ttl-minutes:30}") long ttlMinutes) {
+        this.qrCodeExecutor = qrCodeExecutor;
+        this.renderings = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    private record RenderKey(Long userId, QRCodeFormat format) {
+    }
+
+    private record Rendering(String otpAuthUri, CompletableFuture<String> image) {
+    }
+
+    @Override
+    public CompletableFuture<String> render(Long userId, String otpAuthUri, QRCodeFormat format) {
+        RenderKey key = new RenderKey(userId, format);
+        Rendering rendering = renderings.asMap().compute(key, (k, existing) ->
+                existing != null && existing.otpAuthUri().equals(otpAuthUri) && !existing.image().isCompletedExceptionally()
+                        ? existing
+                        : new Rendering(otpAuthUri, submit(otpAuthUri, format)));
+
+        rendering.image().whenComplete((image, ex) -> {
+            if (ex != null) {
+                renderings.asMap().remove(key, rendering);
+            }
+        });
+        return rendering.image();
+    }
+
+    @Override
+    public void evict(Long userId) {
+        for (QRCodeFormat format : QRCodeFormat.values()) {
+            renderings.invalidate(new RenderKey(userId, format));
+        }
+    }
+
+    private CompletableFuture<String> submit(String otpAuthUri, QRCodeFormat format) {
+        try {
+            return CompletableFuture.supplyAsync(() -> format == QRCodeFormat.SVG
+                    ? renderSvg(otpAuthUri)
+                    : renderPngBase64(otpAuthUri), qrCodeExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("QR code render pool saturated, refusing render");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static String renderPngBase64(String otpAuthUri) {
+        try {
+            BitMatrix matrix = new MultiFormatWriter().encode(otpAuthUri, BarcodeFormat.QR_CODE, PNG_SIZE, PNG_SIZE);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(4096);
+            MatrixToImageWriter.writeToStream(matrix, "PNG", outputStream);
+            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        } catch (WriterException e) {
+            throw new IllegalStateException("Failed to generate QR code", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate QR code", e);
+        }
+    }
+
+    /**
+     * Render at one unit per module (the viewer scales it), merging each row's dark runs
+     * into single path segments.
+     */
+    private static String renderSvg(String otpAuthUri) {
+        BitMatrix matrix;
+        try {
+            matrix = new MultiFormatWriter().encode(otpAuthUri, BarcodeFormat.QR_CODE, 0, 0, SVG_HINTS);
+        } catch (WriterException e) {
+            throw new IllegalStateException("Failed to generate QR code", e);
+        }
+
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        StringBuilder svg = new StringBuilder(width * height / 2 + 256)
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+                .append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(start).append(' ').append(y)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+}
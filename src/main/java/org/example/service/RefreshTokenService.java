@@ -2,8 +2,10 @@ package org.example.service;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.example.dto.LoginResponse;
+import org.example.dto.RefreshTokenClaims;
 import org.example.entity.RefreshToken;
 import org.example.entity.User;
+import org.example.security.AuthenticatedUser;
 
 import java.util.List;
 
@@ -17,18 +19,27 @@ public interface RefreshTokenService {
      *
      * @param user the user
      * @param request HTTP request for IP and user agent
-     * @return created refresh token
+     * @return created refresh token, with the token string set (only its digest is stored)
      */
     RefreshToken createRefreshToken(User user, HttpServletRequest request);
 
     /**
-     * Verify and get refresh token by token string.
+     * Create a new refresh token for an authenticated principal, without loading the user.
+     *
+     * @param principal the authenticated user
+     * @param request HTTP request for IP and user agent
+     * @return created refresh token, with the token string set (only its digest is stored)
+     */
+    RefreshToken createRefreshToken(AuthenticatedUser principal, HttpServletRequest request);
+
+    /**
+     * Verify a refresh token and read its owner's claims.
      *
      * @param token the token string
-     * @return refresh token if valid
+     * @return token state and user claims if valid
      * @throws IllegalArgumentException if token is invalid, expired, or revoked
      */
-    RefreshToken verifyRefreshToken(String token);
+    RefreshTokenClaims verifyRefreshToken(String token);
 
     /**
      * Refresh access token using refresh token (with token rotation).
@@ -3,30 +3,56 @@ package org.example.service;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.RevokedRefreshTokenSet;
 import org.example.dto.LoginResponse;
+import org.example.dto.RefreshTokenClaims;
 import org.example.entity.RefreshToken;
+import org.example.entity.RefreshTokenFamily;
 import org.example.entity.User;
+import org.example.logging.SecurityAuditLogger;
+import org.example.repository.RefreshTokenFamilyRepository;
 import org.example.repository.RefreshTokenRepository;
 import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Implementation of refresh token service for JWT token rotation.
+ *
+ * Each login starts a token family; rotation advances the family's generation, so a
+ * rotated token presented again is recognised from the family row alone and the whole
+ * session is revoked with one keyed update.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class RefreshTokenServiceImpl implements RefreshTokenService {
 
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenFamilyRepository familyRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final RevokedRefreshTokenSet revokedTokens;
+    private final SecurityAuditLogger securityAuditLogger;
+    private final PlatformTransactionManager transactionManager;
 
     @Value("${jwt.refresh-expiration:604800000}") // 7 days in milliseconds
     private long refreshTokenDurationMs;
@@ -37,28 +63,48 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     @Override
     @Transactional
     public RefreshToken createRefreshToken(User user, HttpServletRequest request) {
-        log.debug("Creating refresh token for user: {}", user.getUsername());
-
-        // Check active token limit
-        long activeCount = refreshTokenRepository.countActiveByUser(user);
-        if (activeCount >= maxActiveTokensPerUser) {
-            log.warn("User {} has {} active refresh tokens (max: {}). Revoking oldest tokens.",
-                     user.getUsername(), activeCount, maxActiveTokensPerUser);
-
-            // Revoke oldest tokens to maintain limit
-            List<RefreshToken> activeTokens = refreshTokenRepository.findActiveByUser(user);
-            int tokensToRevoke = (int) (activeCount - maxActiveTokensPerUser + 1);
-            for (int i = activeTokens.size() - 1; i >= activeTokens.size() - tokensToRevoke && i >= 0; i--) {
-                RefreshToken oldToken = activeTokens.get(i);
-                oldToken.setRevokedAt(LocalDateTime.now());
-                refreshTokenRepository.save(oldToken);
-            }
+        return startFamily(user, user.getUsername(), request);
+    }
+
+    @Override
+    @Transactional
+    public RefreshToken createRefreshToken(AuthenticatedUser principal, HttpServletRequest request) {
+        return startFamily(userRepository.getReferenceById(principal.getId()), principal.getUsername(), request);
+    }
+
+    /**
+     * Start a family (session) with its generation-0 token. Writes only: {@code user} may
+     * be an uninitialized reference.
+     */
+    private RefreshToken startFamily(User user, String username, HttpServletRequest request) {
+        // Keep the token limit: revoke the overflow (leaving room for the new token) in one statement
+        int revoked = refreshTokenRepository.revokeOldestActiveBeyond(user.getId(), Math.max(0, maxActiveTokensPerUser - 1));
+        if (revoked > 0) {
+            log.warn("User {} reached the limit of {} active refresh tokens. Revoked {} oldest tokens.",
+                     username, maxActiveTokensPerUser, revoked);
         }
 
-        // Create new refresh token
+        // Every login starts a new family (session)
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setUser(user);
+        family = familyRepository.save(family);
+
+        return issueRefreshToken(user, username, family.getId(), 0, request);
+    }
+
+    /**
+     * Insert a token of the given family and generation. {@code user} may be an
+     * uninitialized reference; only its ID is used.
+     */
+    private RefreshToken issueRefreshToken(User user, String username, Long familyId, int generation,
+                                           HttpServletRequest request) {
+        // Only the token's digest is stored
+        String token = generateToken();
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setUser(user);
-        refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setTokenHash(digest(token));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setGeneration(generation);
         refreshToken.setExpiresAt(LocalDateTime.now().plusSeconds(refreshTokenDurationMs / 1000));
 
         if (request != null) {
@@ -67,29 +113,74 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         }
 
         RefreshToken saved = refreshTokenRepository.save(refreshToken);
-        log.info("Refresh token created for user: {} - Expires at: {}",
-                 user.getUsername(), saved.getExpiresAt());
+        saved.setToken(token);
+        log.info("Refresh token created for user: {} - Family: {}, generation: {}, expires at: {}",
+                 username, familyId, generation, saved.getExpiresAt());
 
         return saved;
     }
 
     @Override
-    public RefreshToken verifyRefreshToken(String token) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
+    public RefreshTokenClaims verifyRefreshToken(String token) {
+        return verifyRefreshToken(digest(token), null);
+    }
+
+    /**
+     * Checks, in order: the in-memory revocation set, then (one query) family revocation,
+     * reuse of a rotated token, token revocation and expiry. Reuse revokes the family.
+     */
+    private RefreshTokenClaims verifyRefreshToken(byte[] tokenHash, String ipAddress) {
+        if (revokedTokens.isRevoked(tokenHash)) {
+            log.warn("Attempt to use recently revoked refresh token");
+            throw new IllegalArgumentException("Refresh token has been revoked");
+        }
+
+        RefreshTokenClaims claims = refreshTokenRepository.findClaimsByTokenHash(tokenHash)
                 .orElseThrow(() -> new IllegalArgumentException("Refresh token not found"));
 
-        if (refreshToken.isRevoked()) {
-            log.warn("Attempt to use revoked refresh token: {}", token);
+        if (claims.isFamilyRevoked()) {
+            log.warn("Attempt to use refresh token of revoked family {} for user: {}", claims.familyId(), claims.username());
+            revokedTokens.remember(tokenHash);
+            throw new IllegalArgumentException("Refresh token has been revoked");
+        }
+
+        if (claims.isSuperseded()) {
+            revokeFamilyOnReuse(claims, ipAddress);
+            revokedTokens.remember(tokenHash);
+            throw new IllegalArgumentException("Refresh token has been revoked");
+        }
+
+        if (claims.isRevoked()) {
+            log.warn("Attempt to use revoked refresh token for user: {}", claims.username());
+            revokedTokens.remember(tokenHash);
             throw new IllegalArgumentException("Refresh token has been revoked");
         }
 
-        if (refreshToken.isExpired()) {
-            log.warn("Attempt to use expired refresh token: {}", token);
+        if (claims.isExpired()) {
+            log.warn("Attempt to use expired refresh token for user: {}", claims.username());
             throw new IllegalArgumentException("Refresh token has expired. Please login again.");
         }
 
-        log.debug("Refresh token verified for user: {}", refreshToken.getUser().getUsername());
-        return refreshToken;
+        log.debug("Refresh token verified for user: {}", claims.username());
+        return claims;
+    }
+
+    /**
+     * A rotated token was presented again, so either the client or an attacker holds a
+     * stolen copy: end the whole session. Runs in its own transaction so the revocation
+     * commits although the refresh itself fails.
+     */
+    private void revokeFamilyOnReuse(RefreshTokenClaims claims, String ipAddress) {
+        log.warn("Refresh token reuse detected for user: {} - Family: {}, token generation: {}, current: {}",
+                 claims.username(), claims.familyId(), claims.generation(), claims.familyGeneration());
+        securityAuditLogger.logSuspiciousActivity(claims.username(), "REFRESH_TOKEN_REUSE",
+                "Rotated refresh token presented again; session " + claims.familyId() + " revoked", ipAddress);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status ->
+                familyRepository.revoke(claims.familyId(), RefreshTokenFamily.REASON_REUSE_DETECTED));
+        revokedTokens.markFamilyRevoked(claims.familyId());
     }
 
     @Override
@@ -97,32 +188,51 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     public LoginResponse refreshAccessToken(String refreshTokenString, HttpServletRequest request) {
         log.info("Refreshing access token using refresh token");
 
-        // Verify refresh token
-        RefreshToken refreshToken = verifyRefreshToken(refreshTokenString);
-        User user = refreshToken.getUser();
-
-        // Generate new access token
-        String newAccessToken = userService.generateAuthToken(user);
+        // Verify refresh token: one query for token state, family state and user claims
+        byte[] tokenHash = digest(refreshTokenString);
+        String ipAddress = request != null ? getClientIP(request) : null;
+        RefreshTokenClaims claims = verifyRefreshToken(tokenHash, ipAddress);
+
+        // Rotate within the family; legacy tokens from before families start one
+        Long familyId = claims.familyId();
+        int generation = claims.generation() + 1;
+        if (claims.hasFamily()) {
+            if (familyRepository.advanceGeneration(familyId, claims.generation()) == 0) {
+                // Rotated by a concurrent request between our read and this update
+                revokeFamilyOnReuse(claims, ipAddress);
+                throw new IllegalArgumentException("Refresh token has been revoked");
+            }
+        } else {
+            RefreshTokenFamily family = new RefreshTokenFamily();
+            family.setUser(userRepository.getReferenceById(claims.userId()));
+            familyId = familyRepository.save(family).getId();
+            generation = 0;
+        }
 
         // Token rotation: Create new refresh token
-        RefreshToken newRefreshToken = createRefreshToken(user, request);
+        RefreshToken newRefreshToken = issueRefreshToken(
+                userRepository.getReferenceById(claims.userId()), claims.username(), familyId, generation, request);
 
-        // Revoke old refresh token and mark replacement
-        refreshToken.setRevokedAt(LocalDateTime.now());
-        refreshToken.setReplacedBy(newRefreshToken.getToken());
-        refreshTokenRepository.save(refreshToken);
+        // Revoke old refresh token and mark replacement; losing a concurrent rotation rolls back the new token
+        if (refreshTokenRepository.revokeIfActive(claims.tokenId(), newRefreshToken.getTokenHash()) == 0) {
+            log.warn("Refresh token for user {} was rotated concurrently", claims.username());
+            throw new IllegalArgumentException("Refresh token has been revoked");
+        }
+
+        // Generate new access token, bound to the family so revoking the session also revokes it
+        String newAccessToken = userService.generateAuthToken(claims.toPrincipal(), familyId);
 
         log.info("Access token refreshed for user: {} - Old token revoked, new token issued",
-                 user.getUsername());
+                 claims.username());
 
         // Create login response
         LoginResponse response = new LoginResponse();
         response.setToken(newAccessToken);
         response.setRefreshToken(newRefreshToken.getToken());
-        response.setId(user.getId());
-        response.setUsername(user.getUsername());
-        response.setEmail(user.getEmail());
-        response.setRole(user.getRole());
+        response.setId(claims.userId());
+        response.setUsername(claims.username());
+        response.setEmail(claims.email());
+        response.setRole(claims.role());
 
         return response;
     }
@@ -132,13 +242,23 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     public void revokeToken(String token) {
         log.info("Revoking refresh token");
 
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
+        byte[] tokenHash = digest(token);
+        RefreshTokenClaims claims = refreshTokenRepository.findClaimsByTokenHash(tokenHash)
                 .orElseThrow(() -> new IllegalArgumentException("Refresh token not found"));
 
-        refreshToken.setRevokedAt(LocalDateTime.now());
-        refreshTokenRepository.save(refreshToken);
+        // Logout ends the session: the family, and with it any token rotated from this one
+        refreshTokenRepository.revokeByTokenHash(tokenHash);
+        if (claims.hasFamily()) {
+            familyRepository.revoke(claims.familyId(), RefreshTokenFamily.REASON_LOGOUT);
+        }
+        afterCommit(() -> {
+            revokedTokens.markRevoked(tokenHash);
+            if (claims.hasFamily()) {
+                revokedTokens.markFamilyRevoked(claims.familyId());
+            }
+        });
 
-        log.info("Refresh token revoked for user: {}", refreshToken.getUser().getUsername());
+        log.info("Refresh token revoked for user: {}", claims.username());
     }
 
     @Override
@@ -147,8 +267,12 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         log.info("Revoking all refresh tokens for user: {}", user.getUsername());
 
         int revokedCount = refreshTokenRepository.revokeAllByUser(user);
+        List<Long> familyIds = familyRepository.findActiveIdsByUserId(user.getId());
+        familyRepository.revokeAllByUserId(user.getId(), RefreshTokenFamily.REASON_REVOKE_ALL);
+        afterCommit(() -> familyIds.forEach(revokedTokens::markFamilyRevoked));
 
-        log.info("Revoked {} refresh tokens for user: {}", revokedCount, user.getUsername());
+        log.info("Revoked {} refresh tokens in {} sessions for user: {}",
+                 revokedCount, familyIds.size(), user.getUsername());
         return revokedCount;
     }
 
@@ -171,11 +295,46 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         LocalDateTime revocationDate = LocalDateTime.now().minusDays(30); // Keep revoked tokens for 30 days
 
         int deleted = refreshTokenRepository.deleteExpiredOrOldRevoked(expirationDate, revocationDate);
+        int deletedFamilies = familyRepository.deleteEmpty();
 
-        log.info("Deleted {} expired or old revoked refresh tokens", deleted);
+        log.info("Deleted {} expired or old revoked refresh tokens and {} empty token families", deleted, deletedFamilies);
         return deleted;
     }
 
+    /**
+     * 256 bits from a CSPRNG, URL-safe so it can travel in headers and cookies.
+     */
+    private static String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        SECURE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * SHA-256 of the token. A plain digest suffices (no salt or stretching) since tokens
+     * are high-entropy random values, and it keeps the lookup a single index probe.
+     */
+    private static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     /**
      * Extract client IP from request.
      */
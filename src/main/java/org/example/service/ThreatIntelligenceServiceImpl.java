@@ -3,6 +3,7 @@ package org.example.service;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.EntityCacheEvictionBroadcaster;
 import org.example.dto.IpRiskAssessment;
 import org.example.dto.ThreatIntelligenceResponse;
 import org.example.entity.ThreatIntelligence;
@@ -27,6 +28,7 @@ public class ThreatIntelligenceServiceImpl implements ThreatIntelligenceService
 
     private final ThreatIntelligenceRepository threatRepository;
     private final AuditLogService auditLogService;
+    private final EntityCacheEvictionBroadcaster entityCacheEvictionBroadcaster;
 
     // Risk scoring weights
     private static final int RISK_WEIGHT_FAILED_LOGIN = 5;
@@ -66,7 +68,7 @@ public class ThreatIntelligenceServiceImpl implements ThreatIntelligenceService
 
     @Override
     public boolean shouldBlockIp(String ipAddress) {
-        return threatRepository.findByIpAddress(ipAddress)
+        return threatRepository.loadByIpAddress(ipAddress)
             .map(ThreatIntelligence::shouldBlock)
             .orElse(false);
     }
@@ -158,7 +160,7 @@ public class ThreatIntelligenceServiceImpl implements ThreatIntelligenceService
 
     @Override
     public ThreatIntelligence getThreatIntelligence(String ipAddress) {
-        return threatRepository.findByIpAddress(ipAddress).orElse(null);
+        return threatRepository.loadByIpAddress(ipAddress).orElse(null);
     }
 
     @Override
@@ -211,6 +213,7 @@ public class ThreatIntelligenceServiceImpl implements ThreatIntelligenceService
     public void cleanupExpiredRecords() {
         try {
             threatRepository.deleteExpired(LocalDateTime.now());
+            entityCacheEvictionBroadcaster.evictAll(ThreatIntelligence.class);
             log.info("Expired threat intelligence records cleaned up");
         } catch (Exception e) {
             log.error("Failed to cleanup expired threat intelligence records", e);
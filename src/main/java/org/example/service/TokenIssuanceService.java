@@ -0,0 +1,21 @@
+package org.example.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.dto.LoginRequest;
+import org.example.dto.LoginResponse;
+
+/**
+ * Service interface for logins that issue an access token and a refresh token together.
+ */
+public interface TokenIssuanceService {
+
+    /**
+     * Authenticate and issue an access token bound to a new refresh-token family.
+     *
+     * @param request login credentials
+     * @param httpRequest HTTP request for IP and user agent
+     * @return login response carrying both tokens
+     * @throws org.example.exception.InvalidCredentialsException if authentication fails
+     */
+    LoginResponse login(LoginRequest request, HttpServletRequest httpRequest);
+}
@@ -0,0 +1,44 @@
+package org.example.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.LoginRequest;
+import org.example.dto.LoginResponse;
+import org.example.entity.RefreshToken;
+import org.example.security.AuthenticatedUser;
+import org.springframework.stereotype.Service;
+
+/**
+ * Combined login issuance for the V2 API.
+ *
+ * The user is loaded once, by authentication, and the resulting principal carries
+ * everything the response and both tokens need. Password verification runs before any
+ * transaction is opened, so no connection is held while hashing; the refresh token is
+ * then issued in a single write-only transaction (overflow revocation, family insert,
+ * token insert) with no further user reads. The access token is bound to the new
+ * family, so logging out of this session also invalidates it.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenIssuanceServiceImpl implements TokenIssuanceService {
+
+    private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+
+    @Override
+    public LoginResponse login(LoginRequest request, HttpServletRequest httpRequest) {
+        AuthenticatedUser principal = userService.authenticate(request, httpRequest);
+
+        RefreshToken refreshToken = refreshTokenService.createRefreshToken(principal, httpRequest);
+        String accessToken = userService.generateAuthToken(principal, refreshToken.getFamilyId());
+
+        log.info("User authenticated successfully with refresh token: {}", principal.getUsername());
+
+        LoginResponse response = new LoginResponse(accessToken, principal.getId(), principal.getUsername(),
+                principal.getEmail(), principal.getRole());
+        response.setRefreshToken(refreshToken.getToken());
+        return response;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.service;
+
+import org.example.dto.BulkUserOperationRequest;
+import org.example.dto.BulkUserOperationResponse;
+import org.example.security.AuthenticatedUser;
+
+/**
+ * Service interface for administrative operations over many users at once.
+ */
+public interface UserBulkOperationService {
+
+    /**
+     * Apply one action to every user selected by the request. Users are processed in
+     * ID-ordered chunks, each chunk as one set-based statement in its own transaction
+     * with one summarising audit event, so a failure leaves earlier chunks applied.
+     * The caller's own account is never included.
+     *
+     * @param request action and target selection (IDs or filter)
+     * @param currentUser the administrator performing the operation
+     * @return counts of matched and affected users
+     */
+    BulkUserOperationResponse execute(BulkUserOperationRequest request, AuthenticatedUser currentUser);
+}
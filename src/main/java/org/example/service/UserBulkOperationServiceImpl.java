@@ -0,0 +1,179 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cache.UserCacheInvalidator;
+import org.example.dto.BulkUserOperationRequest;
+import org.example.dto.BulkUserOperationResponse;
+import org.example.dto.UserKey;
+import org.example.entity.MFASettings;
+import org.example.entity.TrustedDevice;
+import org.example.entity.User;
+import org.example.enums.AuditAction;
+import org.example.exception.UnauthorizedException;
+import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
+import org.example.specification.UserSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Bulk user administration over set-based JPQL statements.
+ *
+ * Targets are resolved in chunks of {@code app.users.bulk.chunk-size} IDs: explicit IDs
+ * are partitioned as given, filters are walked by keyset on the primary key. For each
+ * chunk the cache keys are read first, then one UPDATE/DELETE ... WHERE id IN (...)
+ * runs; once the chunk has committed, only its users' cache entries are evicted and
+ * one audit event summarises it.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserBulkOperationServiceImpl implements UserBulkOperationService {
+
+    private static final String ENTITY_TYPE = "User";
+
+    private final UserRepository userRepository;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final AuditLogService auditLogService;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.users.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public BulkUserOperationResponse execute(BulkUserOperationRequest request, AuthenticatedUser currentUser) {
+        if (!currentUser.isAdmin()) {
+            throw new UnauthorizedException("Only administrators can run bulk user operations");
+        }
+
+        log.info("Admin '{}' starting bulk {} ({})", currentUser.getUsername(), request.getAction(),
+                request.getIds() != null && !request.getIds().isEmpty()
+                        ? request.getIds().size() + " IDs" : "filter " + request.getFilter());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ChunkTotals totals = new ChunkTotals();
+
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<Long> ids = List.copyOf(new LinkedHashSet<>(request.getIds()));
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunkIds = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                ChunkResult result = transactionTemplate.execute(status ->
+                        applyChunk(request, currentUser, userRepository.findKeysByIdIn(chunkIds)));
+                completeChunk(request, currentUser, result, totals);
+            }
+        } else {
+            Specification<User> spec = UserSpecification.withFilters(request.getFilter());
+            long afterId = 0L;
+            ChunkResult result;
+            do {
+                long lowerBound = afterId;
+                result = transactionTemplate.execute(status ->
+                        applyChunk(request, currentUser, userRepository.findKeysAfter(spec, lowerBound, chunkSize)));
+                completeChunk(request, currentUser, result, totals);
+                afterId = result.lastSelectedId();
+            } while (result.selected() == chunkSize);
+        }
+
+        if (request.getAction() == BulkUserOperationRequest.Action.DELETE && totals.affected > 0) {
+            // Cascaded rows are deleted by the database, outside Hibernate's view of the L2 cache
+            entityManagerFactory.getCache().evict(MFASettings.class);
+            entityManagerFactory.getCache().evict(TrustedDevice.class);
+        }
+
+        log.info("Bulk {} by admin '{}' completed: {} matched, {} affected, {} chunks",
+                request.getAction(), currentUser.getUsername(), totals.matched, totals.affected, totals.chunks);
+
+        return BulkUserOperationResponse.builder()
+                .action(request.getAction())
+                .matchedUsers(totals.matched)
+                .affectedUsers(totals.affected)
+                .chunks(totals.chunks)
+                .selfSkipped(totals.selfSkipped)
+                .build();
+    }
+
+    /**
+     * Run the bulk statement for one chunk of selected users, inside the chunk's transaction.
+     */
+    private ChunkResult applyChunk(BulkUserOperationRequest request, AuthenticatedUser currentUser,
+                                   List<UserKey> keys) {
+        long lastSelectedId = keys.isEmpty() ? 0L : keys.get(keys.size() - 1).id();
+        List<UserKey> targets = keys.stream()
+                .filter(key -> !key.id().equals(currentUser.getId()))
+                .toList();
+        if (targets.isEmpty()) {
+            return new ChunkResult(keys.size(), lastSelectedId, targets, 0);
+        }
+
+        List<Long> ids = targets.stream().map(UserKey::id).toList();
+        LocalDateTime now = LocalDateTime.now();
+        int affected = switch (request.getAction()) {
+            case LOCK -> userRepository.lockAllById(ids,
+                    request.getLockDurationMinutes() != null ? now.plusMinutes(request.getLockDurationMinutes()) : null,
+                    request.getLockReason(), now);
+            case UNLOCK -> userRepository.unlockAllById(ids, now);
+            case CHANGE_ROLE -> userRepository.changeRoleById(ids, request.getRole(), now);
+            case DELETE -> userRepository.deleteAllByIdIn(ids);
+        };
+        return new ChunkResult(keys.size(), lastSelectedId, targets, affected);
+    }
+
+    /**
+     * After the chunk has committed: evict exactly its users' cache entries and write
+     * one audit event summarising it.
+     */
+    private void completeChunk(BulkUserOperationRequest request, AuthenticatedUser currentUser,
+                               ChunkResult result, ChunkTotals totals) {
+        if (result.targets().size() < result.selected()) {
+            totals.selfSkipped = true;
+        }
+        if (result.targets().isEmpty()) {
+            return;
+        }
+
+        result.targets().forEach(key -> userCacheInvalidator.evict(key.id(), key.username(), key.email()));
+
+        totals.chunks++;
+        totals.matched += result.targets().size();
+        totals.affected += result.affected();
+
+        List<UserKey> targets = result.targets();
+        auditLogService.log(auditAction(request.getAction()), currentUser.getId(), ENTITY_TYPE, null, null,
+                String.format("bulk %s chunk %d: %d matched, %d affected, ids %d-%d%s",
+                        request.getAction(), totals.chunks, targets.size(), result.affected(),
+                        targets.get(0).id(), targets.get(targets.size() - 1).id(),
+                        request.getAction() == BulkUserOperationRequest.Action.CHANGE_ROLE
+                                ? ", role " + request.getRole() : ""),
+                null, HttpStatus.OK.value(), null);
+    }
+
+    private static AuditAction auditAction(BulkUserOperationRequest.Action action) {
+        return switch (action) {
+            case LOCK -> AuditAction.ACCOUNT_LOCKED;
+            case UNLOCK -> AuditAction.ACCOUNT_UNLOCKED;
+            case CHANGE_ROLE -> AuditAction.UPDATE_USER;
+            case DELETE -> AuditAction.DELETE_USER;
+        };
+    }
+
+    private record ChunkResult(int selected, long lastSelectedId, List<UserKey> targets, int affected) {
+    }
+
+    private static final class ChunkTotals {
+        private int chunks;
+        private long matched;
+        private long affected;
+        private boolean selfSkipped;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Approximate totals for count-free pagination.
+ *
+ * Exact counts are computed at most once per filter key and TTL on each pod and reused
+ * across pages, so paging through a large filtered set costs one count instead of one
+ * per page. Totals may lag writes by up to the TTL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCountEstimator {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private final UserRepository userRepository;
+    private final ConcurrentMap<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    @Value("${app.pagination.count-cache-ttl-ms:60000}")
+    private long countTtlMs;
+
+    /**
+     * Estimated number of users matching the specification.
+     *
+     * @param key stable identifier of the filter (not including page, size or sort)
+     * @param spec the filter to count when no fresh estimate is cached
+     * @return cached or freshly computed count
+     */
+    public long estimate(String key, Specification<User> spec) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.count();
+        }
+
+        long count = userRepository.count(spec);
+        if (counts.size() >= MAX_ENTRIES) {
+            // Filter keys are unbounded (free-text search); drop everything rather than grow
+            counts.clear();
+        }
+        counts.put(key, new CachedCount(count, now + countTtlMs));
+        log.debug("Computed user count for '{}': {}", key, count);
+        return count;
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+}
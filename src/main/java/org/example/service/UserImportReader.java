@@ -0,0 +1,170 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.UserImportRow;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for bulk import files. Reads one line at a time, so memory use is
+ * independent of file size. Malformed lines are returned as entries carrying an error
+ * rather than failing the whole file; only an unusable CSV header is fatal.
+ *
+ * CSV fields may be quoted ({@code "a,b"}, with {@code ""} for a literal quote) but may
+ * not span lines.
+ */
+final class UserImportReader implements Closeable {
+
+    record Entry(long line, UserImportRow row, String error) {
+    }
+
+    private static final String USERNAME = "username";
+    private static final String EMAIL = "email";
+    private static final String PASSWORD = "password";
+    private static final String PASSWORD_HASH = "passwordhash";
+    private static final String ROLE = "role";
+
+    private final BufferedReader reader;
+    private final UserImportService.Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> csvColumns;
+    private long lineNumber;
+
+    private UserImportReader(BufferedReader reader, UserImportService.Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    static UserImportReader open(Path file, UserImportService.Format format, ObjectMapper objectMapper)
+            throws IOException {
+        UserImportReader importReader = new UserImportReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8), format, objectMapper);
+        try {
+            if (format == UserImportService.Format.CSV) {
+                importReader.readCsvHeader();
+            }
+            return importReader;
+        } catch (IOException | RuntimeException e) {
+            importReader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next non-blank line as an entry, or {@code null} at end of file
+     */
+    Entry next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            UserImportRow row = format == UserImportService.Format.CSV
+                    ? toRow(parseCsvLine(line))
+                    : objectMapper.readValue(line, UserImportRow.class);
+            return new Entry(lineNumber, row, null);
+        } catch (JsonProcessingException e) {
+            return new Entry(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return new Entry(lineNumber, null, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readCsvHeader() throws IOException {
+        String header = reader.readLine();
+        lineNumber++;
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+
+        csvColumns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            csvColumns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!csvColumns.containsKey(USERNAME) || !csvColumns.containsKey(EMAIL)
+                || (!csvColumns.containsKey(PASSWORD) && !csvColumns.containsKey(PASSWORD_HASH))) {
+            throw new IllegalArgumentException(
+                    "CSV header must contain username, email and password or passwordHash columns");
+        }
+    }
+
+    private UserImportRow toRow(List<String> fields) {
+        if (fields.size() > csvColumns.size()) {
+            throw new IllegalArgumentException("Expected at most " + csvColumns.size() + " fields, found " + fields.size());
+        }
+        return new UserImportRow(field(fields, USERNAME), field(fields, EMAIL), field(fields, PASSWORD),
+                field(fields, PASSWORD_HASH), field(fields, ROLE));
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = csvColumns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
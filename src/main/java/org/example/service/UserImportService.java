@@ -0,0 +1,40 @@
+package org.example.service;
+
+import org.example.dto.UserImportJobStatus;
+import org.example.security.AuthenticatedUser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Service interface for bulk user imports (e.g. migrations from a legacy system).
+ */
+public interface UserImportService {
+
+    enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Spool the upload to a temporary file and start an import job for it in the background.
+     * CSV input needs a header row naming the columns (username, email, password or
+     * passwordHash, optional role); NDJSON input has one JSON object per line with the same fields.
+     *
+     * @param input the uploaded file
+     * @param format input format
+     * @param currentUser the administrator starting the import
+     * @return initial job status
+     * @throws IOException if the upload cannot be spooled
+     */
+    UserImportJobStatus startImport(InputStream input, Format format, AuthenticatedUser currentUser) throws IOException;
+
+    /**
+     * Get the status of an import job started on this instance.
+     *
+     * @param jobId the job ID
+     * @return job status, or empty if unknown or expired
+     */
+    Optional<UserImportJobStatus> getJobStatus(String jobId);
+}
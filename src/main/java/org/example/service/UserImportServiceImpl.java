@@ -0,0 +1,478 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.UserImportJobStatus;
+import org.example.dto.UserImportRow;
+import org.example.entity.Role;
+import org.example.enums.AuditAction;
+import org.example.exception.UnauthorizedException;
+import org.example.metrics.CustomMetrics;
+import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
+import org.example.security.BoundedPasswordEncoder;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk user import over JDBC batches.
+ *
+ * The upload is spooled to a temporary file and processed on {@code userImportExecutor},
+ * one batch of {@code app.users.import.batch-size} rows at a time:
+ * <ol>
+ *   <li>Validate rows with the registration rules and drop duplicates within the batch</li>
+ *   <li>Check uniqueness against the database with one IN query each for usernames and emails</li>
+ *   <li>Hash plain-text passwords in parallel on a dedicated fork-join pool
+ *       ({@code app.users.import.hash-parallelism}, default one thread per core); rows that
+ *       carry an existing BCrypt hash skip this step, which is what makes large migrations fast</li>
+ *   <li>Insert the batch with one JDBC batch statement in one transaction; if the batch fails
+ *       (e.g. a user registered concurrently), its rows are retried one by one so a single
+ *       bad row cannot sink the rest</li>
+ * </ol>
+ *
+ * Job status is held in memory on the instance that runs the job; the most recent
+ * jobs are retained for polling.
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final String ENTITY_TYPE = "User";
+
+    private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{3,50}$");
+    // Mirrors the chk_email_format constraint, so a bad address is rejected per row instead of failing the batch
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private static final int EMAIL_MAX_LENGTH = 100;
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d).{8,}$");
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (username, email, password_hash, role, mfa_enabled, is_account_locked, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, FALSE, FALSE, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+    private final AuditLogService auditLogService;
+    private final CustomMetrics customMetrics;
+    private final Executor userImportExecutor;
+
+    @Value("${app.users.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.users.import.hash-parallelism:0}")
+    private int hashParallelism;
+
+    @Value("${app.users.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+                    return size() > MAX_RETAINED_JOBS;
+                }
+            });
+
+    private ForkJoinPool hashPool;
+
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 PasswordEncoder passwordEncoder,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManagerFactory entityManagerFactory,
+                                 ObjectMapper objectMapper,
+                                 AuditLogService auditLogService,
+                                 CustomMetrics customMetrics,
+                                 @Qualifier("userImportExecutor") Executor userImportExecutor) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.objectMapper = objectMapper;
+        this.auditLogService = auditLogService;
+        this.customMetrics = customMetrics;
+        this.userImportExecutor = userImportExecutor;
+    }
+
+    @PostConstruct
+    void startHashPool() {
+        int parallelism = hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors();
+        hashPool = new ForkJoinPool(parallelism);
+        log.info("User import password hashing pool started with parallelism {}", parallelism);
+    }
+
+    @PreDestroy
+    void stopHashPool() {
+        hashPool.shutdownNow();
+    }
+
+    @Override
+    public UserImportJobStatus startImport(InputStream input, Format format, AuthenticatedUser currentUser)
+            throws IOException {
+        if (!currentUser.isAdmin()) {
+            throw new UnauthorizedException("Only administrators can import users");
+        }
+
+        Path file = Files.createTempFile("user-import-", format == Format.CSV ? ".csv" : ".ndjson");
+        try {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        log.info("Admin '{}' queued user import job {} ({}, {} bytes)",
+                currentUser.getUsername(), job.id, format, Files.size(file));
+
+        try {
+            userImportExecutor.execute(() -> runJob(job, file, format, currentUser));
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(file);
+            job.fail("Import queue is full, try again later");
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public Optional<UserImportJobStatus> getJobStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::snapshot);
+    }
+
+    private void runJob(ImportJob job, Path file, Format format, AuthenticatedUser currentUser) {
+        job.start();
+        log.info("User import job {} started", job.id);
+
+        try (UserImportReader reader = UserImportReader.open(file, format, objectMapper)) {
+            List<PendingUser> batch = new ArrayList<>(batchSize);
+            UserImportReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                PendingUser pending = validate(job, entry);
+                if (pending != null) {
+                    batch.add(pending);
+                }
+                if (batch.size() == batchSize) {
+                    processBatch(job, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                processBatch(job, batch);
+            }
+            job.complete();
+            log.info("User import job {} completed: {} rows, {} imported, {} rejected",
+                    job.id, job.rowsRead.get(), job.imported.get(), job.rejected.get());
+        } catch (Exception e) {
+            log.error("User import job {} failed after {} rows", job.id, job.rowsRead.get(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(file);
+            auditLogService.log(AuditAction.DATA_IMPORT, currentUser.getId(), ENTITY_TYPE, null, null,
+                    String.format("user import %s %s: %d rows, %d imported, %d rejected",
+                            job.id, job.state, job.rowsRead.get(), job.imported.get(), job.rejected.get()),
+                    null, HttpStatus.OK.value(), job.failureMessage);
+        }
+    }
+
+    /**
+     * Apply the registration rules to one entry.
+     *
+     * @return the row ready for the uniqueness check, or {@code null} if rejected
+     */
+    private PendingUser validate(ImportJob job, UserImportReader.Entry entry) {
+        if (entry.error() != null) {
+            job.reject(entry.line(), null, entry.error());
+            return null;
+        }
+
+        UserImportRow row = entry.row();
+        String username = row.getUsername() != null ? row.getUsername().trim() : null;
+        String email = row.getEmail() != null ? row.getEmail().trim() : null;
+
+        String error = null;
+        Role role = Role.ROLE_USER;
+        if (username == null || !USERNAME_PATTERN.matcher(username).matches()) {
+            error = "Username must be 3-50 characters (letters, digits, underscores)";
+        } else if (email == null || email.length() > EMAIL_MAX_LENGTH || !EMAIL_PATTERN.matcher(email).matches()) {
+            error = "Email must be a valid address of at most " + EMAIL_MAX_LENGTH + " characters";
+        } else if ((row.getPassword() == null) == (row.getPasswordHash() == null)) {
+            error = "Exactly one of password or passwordHash is required";
+        } else if (row.getPasswordHash() != null && !BCRYPT_PATTERN.matcher(row.getPasswordHash()).matches()) {
+            error = "passwordHash must be a BCrypt hash";
+        } else if (row.getPassword() != null && !PASSWORD_PATTERN.matcher(row.getPassword()).matches()) {
+            error = "Password must be at least 8 characters with an uppercase letter, a lowercase letter and a digit";
+        } else if (row.getRole() != null) {
+            try {
+                role = Role.valueOf(row.getRole().trim());
+            } catch (IllegalArgumentException e) {
+                error = "Role must be ROLE_USER or ROLE_ADMIN";
+            }
+        }
+
+        if (error != null) {
+            job.reject(entry.line(), username, error);
+            return null;
+        }
+        return new PendingUser(entry.line(), username, email, row.getPassword(), row.getPasswordHash(), role);
+    }
+
+    private void processBatch(ImportJob job, List<PendingUser> batch) {
+        long phaseStart = System.nanoTime();
+        List<PendingUser> unique = filterDuplicates(job, batch);
+        long hashStart = System.nanoTime();
+        customMetrics.recordUserImportBatch("validate", hashStart - phaseStart);
+
+        hashPasswords(unique);
+        long insertStart = System.nanoTime();
+        customMetrics.recordUserImportBatch("hash", insertStart - hashStart);
+
+        if (!unique.isEmpty()) {
+            insert(job, unique);
+            // JDBC inserts bypass Hibernate, so cached "no such user" query results must be dropped
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+        }
+        customMetrics.recordUserImportBatch("insert", System.nanoTime() - insertStart);
+
+        log.debug("User import job {}: {} rows read, {} imported, {} rejected",
+                job.id, job.rowsRead.get(), job.imported.get(), job.rejected.get());
+    }
+
+    /**
+     * Reject rows whose username or email repeats earlier in the batch or already exists.
+     * Earlier batches are committed by now, so duplicates across batches are caught too.
+     */
+    private List<PendingUser> filterDuplicates(ImportJob job, List<PendingUser> batch) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<PendingUser> candidates = new ArrayList<>(batch.size());
+        for (PendingUser user : batch) {
+            if (!usernames.add(user.username)) {
+                job.reject(user.line, user.username, "Duplicate username in import file");
+            } else if (!emails.add(user.email)) {
+                job.reject(user.line, user.username, "Duplicate email in import file");
+            } else {
+                candidates.add(user);
+            }
+        }
+
+        Set<String> existingUsernames = new HashSet<>(userRepository.findExistingUsernames(usernames));
+        Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(emails));
+        List<PendingUser> unique = new ArrayList<>(candidates.size());
+        for (PendingUser user : candidates) {
+            if (existingUsernames.contains(user.username)) {
+                job.reject(user.line, user.username, "Username already exists");
+            } else if (existingEmails.contains(user.email)) {
+                job.reject(user.line, user.username, "Email already exists");
+            } else {
+                unique.add(user);
+            }
+        }
+        return unique;
+    }
+
+    private void hashPasswords(List<PendingUser> users) {
+        // The import bounds its own concurrency, so it bypasses the request-path hashing pool
+        PasswordEncoder hashingEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.unbounded() : passwordEncoder;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (PendingUser user : users) {
+            if (user.passwordHash == null) {
+                tasks.add(hashPool.submit(() -> {
+                    user.passwordHash = hashingEncoder.encode(user.password);
+                    user.password = null;
+                }));
+            }
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    private void insert(ImportJob job, List<PendingUser> users) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            new TransactionTemplate(transactionManager).execute(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), (ps, user) -> {
+                        ps.setString(1, user.username);
+                        ps.setString(2, user.email);
+                        ps.setString(3, user.passwordHash);
+                        ps.setString(4, user.role.name());
+                        ps.setTimestamp(5, now);
+                        ps.setTimestamp(6, now);
+                    }));
+        } catch (DataAccessException e) {
+            log.warn("User import job {}: batch insert failed ({}), retrying {} rows individually",
+                    job.id, e.getMostSpecificCause().getMessage(), users.size());
+            insertIndividually(job, users, now);
+            return;
+        }
+        job.recordImported(users.size());
+    }
+
+    private void insertIndividually(ImportJob job, List<PendingUser> users, Timestamp now) {
+        long inserted = 0;
+        for (PendingUser user : users) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, user.username, user.email, user.passwordHash,
+                        user.role.name(), now, now);
+                inserted++;
+            } catch (DuplicateKeyException e) {
+                job.reject(user.line, user.username, "Username or email already exists");
+            } catch (DataAccessException e) {
+                job.reject(user.line, user.username, "Rejected by database: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        job.recordImported(inserted);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete import file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static final class PendingUser {
+        private final long line;
+        private final String username;
+        private final String email;
+        private final Role role;
+        private String password;
+        private String passwordHash;
+
+        private PendingUser(long line, String username, String email, String password, String passwordHash, Role role) {
+            this.line = line;
+            this.username = username;
+            this.email = email;
+            this.password = password;
+            this.passwordHash = passwordHash;
+            this.role = role;
+        }
+    }
+
+    /**
+     * Mutable job state, written by the import thread and read by status requests.
+     */
+    private final class ImportJob {
+        private final String id;
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<UserImportJobStatus.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile UserImportJobStatus.State state = UserImportJobStatus.State.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long startNanos;
+        private volatile long finishNanos;
+        private volatile String failureMessage;
+
+        private ImportJob(String id) {
+            this.id = id;
+        }
+
+        private void start() {
+            startNanos = System.nanoTime();
+            startedAt = LocalDateTime.now();
+            state = UserImportJobStatus.State.RUNNING;
+        }
+
+        private void complete() {
+            finish(UserImportJobStatus.State.COMPLETED);
+        }
+
+        private void fail(String message) {
+            failureMessage = message;
+            finish(UserImportJobStatus.State.FAILED);
+        }
+
+        private void finish(UserImportJobStatus.State finalState) {
+            finishNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+
+        private void reject(long line, String username, String message) {
+            rejected.incrementAndGet();
+            customMetrics.recordUserImportRows("rejected", 1);
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new UserImportJobStatus.RowError(line, username, message));
+            }
+        }
+
+        private void recordImported(long count) {
+            imported.addAndGet(count);
+            customMetrics.recordUserImportRows("imported", count);
+        }
+
+        private UserImportJobStatus snapshot() {
+            long rows = rowsRead.get();
+            double rowsPerSecond = 0.0;
+            if (startedAt != null) {
+                long elapsedNanos = (finishedAt != null ? finishNanos : System.nanoTime()) - startNanos;
+                if (elapsedNanos > 0) {
+                    rowsPerSecond = rows / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+                }
+            }
+            List<UserImportJobStatus.RowError> reportedErrors;
+            synchronized (errors) {
+                reportedErrors = List.copyOf(errors);
+            }
+            return UserImportJobStatus.builder()
+                    .jobId(id)
+                    .state(state)
+                    .rowsRead(rows)
+                    .imported(imported.get())
+                    .rejected(rejected.get())
+                    .rowsPerSecond(rowsPerSecond)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .failureMessage(failureMessage)
+                    .errors(reportedErrors)
+                    .errorsTruncated(rejected.get() > reportedErrors.size())
+                    .build();
+        }
+    }
+}
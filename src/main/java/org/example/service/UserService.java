@@ -1,13 +1,16 @@
 package org.example.service;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.example.dto.CursorPageResponse;
 import org.example.dto.LoginRequest;
 import org.example.dto.LoginResponse;
+import org.example.dto.UserResponse;
 import org.example.dto.UserUpdateRequest;
 import org.example.entity.User;
+import org.example.security.AuthenticatedUser;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserService {
 
@@ -15,9 +18,21 @@ public interface UserService {
 
     LoginResponse authenticateUser(LoginRequest request, HttpServletRequest httpRequest);
 
-    List<User> getAllUsers(String currentUsername);
+    /**
+     * Check the credentials (with IP blocking, lockout and attempt recording) without
+     * issuing a token.
+     */
+    AuthenticatedUser authenticate(LoginRequest request, HttpServletRequest httpRequest);
 
-    User getUserById(Long id, String currentUsername);
+    CursorPageResponse<UserResponse> getAllUsers(AuthenticatedUser currentUser, Long afterId, int size);
+
+    /**
+     * Lazily stream every user in ID order, loading one keyset batch at a time.
+     * Authorization is checked eagerly, before the stream is returned.
+     */
+    Stream<UserResponse> streamAllUsers(AuthenticatedUser currentUser);
+
+    UserResponse getUserById(Long id, AuthenticatedUser currentUser);
 
     User updateUser(Long id, UserUpdateRequest request, String currentUsername);
 
@@ -28,4 +43,6 @@ public interface UserService {
     Optional<User> findByUsername(String username);
 
     String generateAuthToken(User user);
+
+    String generateAuthToken(AuthenticatedUser principal, Long refreshTokenFamilyId);
 }
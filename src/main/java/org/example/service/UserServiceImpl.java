@@ -2,8 +2,12 @@ package org.example.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cache.UserIdentifierBloomFilter;
+import org.example.dto.CursorPageResponse;
 import org.example.dto.LoginRequest;
 import org.example.dto.LoginResponse;
+import org.example.dto.UserResponse;
+import org.example.dto.UserResponseView;
 import org.example.dto.UserUpdateRequest;
 import org.example.entity.Role;
 import org.example.entity.User;
@@ -12,40 +16,61 @@ import org.example.exception.UnauthorizedException;
 import org.example.exception.UserAlreadyExistsException;
 import org.example.exception.UserNotFoundException;
 import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
 import org.example.security.JwtUtil;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+    // Column named in a unique-violation message: "Key (email)=(...)" (PostgreSQL), "USERS(EMAIL NULLS FIRST)" (H2)
+    private static final Pattern CONFLICT_COLUMN_PATTERN = Pattern.compile("\\((username|email)[ )]");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final AccountLockService accountLockService;
+    private final UserIdentifierBloomFilter userIdentifierBloomFilter;
 
     @Override
     @Transactional
     public void registerUser(String username, String email, String password) {
         log.info("Attempting to register user: {}", username);
 
-        if (userRepository.existsByUsername(username)) {
-            log.warn("Registration failed: Username '{}' already exists", username);
-            throw new UserAlreadyExistsException("Username already exists");
-        }
-
-        if (userRepository.existsByEmail(email)) {
-            log.warn("Registration failed: Email '{}' already exists", email);
-            throw new UserAlreadyExistsException("Email already exists");
+        // Optional fast reject: only a Bloom filter hit costs a query, and duplicates skip the BCrypt hash
+        if (userIdentifierBloomFilter.isActive()) {
+            if (userIdentifierBloomFilter.mightContainUsername(username) && userRepository.existsByUsername(username)) {
+                log.warn("Registration failed: Username '{}' already exists", username);
+                throw new UserAlreadyExistsException("Username already exists");
+            }
+            if (userIdentifierBloomFilter.mightContainEmail(email) && userRepository.existsByEmail(email)) {
+                log.warn("Registration failed: Email '{}' already exists", email);
+                throw new UserAlreadyExistsException("Email already exists");
+            }
         }
 
         User user = new User();
@@ -54,12 +79,72 @@ public class UserServiceImpl implements UserService {
         user.setPasswordHash(passwordEncoder.encode(password));
         user.setRole(Role.ROLE_USER);
 
-        User savedUser = userRepository.save(user);
+        // Uniqueness is decided by the unique constraints on the single INSERT, which is also race-free
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String conflict = uniqueConstraintConflict(e);
+            if (conflict == null) {
+                throw e;
+            }
+            log.warn("Registration failed: {} for username '{}'", conflict, username);
+            throw new UserAlreadyExistsException(conflict);
+        }
+
+        userIdentifierBloomFilter.add(username, email);
         log.info("User registered successfully: {}", savedUser.getUsername());
     }
 
+    /**
+     * Map a unique-constraint violation on users to the registration error message, or
+     * {@code null} for any other integrity violation. Uses the constraint name when the
+     * dialect reports one (users_username_key / users_email_key on PostgreSQL), otherwise
+     * the column named in the driver message (H2).
+     */
+    private static String uniqueConstraintConflict(DataIntegrityViolationException e) {
+        SQLException sqlException = null;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException candidate) {
+                sqlException = candidate;
+                break;
+            }
+        }
+        if (sqlException == null || !UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())) {
+            return null;
+        }
+
+        String constraintName = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName() : null;
+        String column = constraintName != null ? constraintName.toLowerCase(Locale.ROOT) : "";
+        if (!column.contains("username") && !column.contains("email")) {
+            Matcher matcher = CONFLICT_COLUMN_PATTERN.matcher(sqlException.getMessage().toLowerCase(Locale.ROOT));
+            column = matcher.find() ? matcher.group(1) : "";
+        }
+
+        if (column.contains("username")) {
+            return "Username already exists";
+        }
+        if (column.contains("email")) {
+            return "Email already exists";
+        }
+        return null;
+    }
+
     @Override
     public LoginResponse authenticateUser(LoginRequest request, jakarta.servlet.http.HttpServletRequest httpRequest) {
+        AuthenticatedUser principal = authenticate(request, httpRequest);
+
+        // Generate JWT token
+        String token = generateAuthToken(principal, null);
+
+        log.info("User authenticated successfully: {}", principal.getUsername());
+
+        return new LoginResponse(token, principal.getId(), principal.getUsername(), principal.getEmail(), principal.getRole());
+    }
+
+    @Override
+    public AuthenticatedUser authenticate(LoginRequest request, jakarta.servlet.http.HttpServletRequest httpRequest) {
         String username = request.getUsername();
         String ipAddress = getClientIP(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
@@ -73,52 +158,33 @@ public class UserServiceImpl implements UserService {
             throw new InvalidCredentialsException("Too many failed login attempts. Please try again later.");
         }
 
-        // Check if user exists and if account is locked
-        User user = userRepository.findByUsername(username).orElse(null);
-
-        if (user != null) {
-            // Check and auto-unlock if lock expired
-            accountLockService.checkAndAutoUnlock(user);
-
-            // Check if account is still locked
-            if (user.getIsAccountLocked()) {
-                log.warn("Login attempt for locked account: {}", username);
-                accountLockService.recordFailedLogin(username, ipAddress, userAgent, "ACCOUNT_LOCKED");
-                throw new InvalidCredentialsException("Account is locked. Please try again later or contact support.");
-            }
-        }
-
+        // LoginAuthenticationProvider loads the user once and checks lock state and password on it
+        Authentication authentication;
         try {
-            // Authenticate credentials
-            Authentication authentication = authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(username, request.getPassword())
             );
-
-            // Refresh user from database (may have been updated)
-            user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new InvalidCredentialsException("Invalid username or password"));
-
-            // Record successful login
-            accountLockService.recordSuccessfulLogin(username, ipAddress, userAgent);
-
-            // Generate JWT token
-            String token = jwtUtil.generateToken(authentication);
-
-            log.info("User authenticated successfully: {}", user.getUsername());
-
-            return new LoginResponse(token, user.getId(), user.getUsername(), user.getEmail(), user.getRole());
-
-        } catch (InvalidCredentialsException e) {
-            throw e;
-        } catch (Exception e) {
+        } catch (LockedException e) {
+            log.warn("Login attempt for locked account: {}", username);
+            accountLockService.recordFailedLogin(username, ipAddress, userAgent, "ACCOUNT_LOCKED");
+            throw new InvalidCredentialsException("Account is locked. Please try again later or contact support.");
+        } catch (AuthenticationException e) {
             log.warn("Authentication failed for user: {} - {}", username, e.getMessage());
 
             // Determine failure reason
-            String failureReason = user == null ? "USER_NOT_FOUND" : "INVALID_PASSWORD";
+            String failureReason = e instanceof UsernameNotFoundException ? "USER_NOT_FOUND" : "INVALID_PASSWORD";
             accountLockService.recordFailedLogin(username, ipAddress, userAgent, failureReason);
 
             throw new InvalidCredentialsException("Invalid username or password");
         }
+        // PasswordHashingUnavailableException propagates as is: overload never counts toward lockout
+
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+
+        // Recorded asynchronously, after the response is built
+        accountLockService.recordSuccessfulLogin(username, ipAddress, userAgent);
+
+        return principal;
     }
 
     /**
@@ -140,38 +206,62 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> getAllUsers(String currentUsername) {
-        log.info("User '{}' attempting to retrieve all users", currentUsername);
+    public CursorPageResponse<UserResponse> getAllUsers(AuthenticatedUser currentUser, Long afterId, int size) {
+        log.info("User '{}' attempting to retrieve users after ID {}", currentUser.getUsername(), afterId);
+        requireUserListingPermission(currentUser);
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists without counting
+        List<UserResponseView> rows = userRepository.findPageAfter(afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<UserResponse> content = rows.stream()
+                .limit(pageSize)
+                .map(UserResponse::from)
+                .toList();
+
+        return CursorPageResponse.<UserResponse>builder()
+                .content(content)
+                .size(pageSize)
+                .nextCursor(hasNext ? content.get(content.size() - 1).getId() : null)
+                .hasNext(hasNext)
+                .build();
+    }
 
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new UserNotFoundException("Current user not found"));
+    @Override
+    public Stream<UserResponse> streamAllUsers(AuthenticatedUser currentUser) {
+        log.info("User '{}' attempting to stream all users", currentUser.getUsername());
+        requireUserListingPermission(currentUser);
+
+        return Stream.iterate(
+                        userRepository.findPageAfter(0L, Limit.of(STREAM_BATCH_SIZE)),
+                        batch -> !batch.isEmpty(),
+                        batch -> batch.size() < STREAM_BATCH_SIZE
+                                ? List.<UserResponseView>of()
+                                : userRepository.findPageAfter(batch.get(batch.size() - 1).getId(), Limit.of(STREAM_BATCH_SIZE)))
+                .flatMap(List::stream)
+                .map(UserResponse::from);
+    }
 
-        if (currentUser.getRole() != Role.ROLE_ADMIN) {
-            log.warn("User '{}' is not authorized to view all users", currentUsername);
+    private void requireUserListingPermission(AuthenticatedUser currentUser) {
+        if (!currentUser.isAdmin()) {
+            log.warn("User '{}' is not authorized to view all users", currentUser.getUsername());
             throw new UnauthorizedException("You do not have permission to view all users");
         }
-
-        return userRepository.findAll();
     }
 
     @Override
-    @org.springframework.cache.annotation.Cacheable(value = "users", key = "#id")
-    public User getUserById(Long id, String currentUsername) {
-        log.info("User '{}' attempting to retrieve user with ID: {}", currentUsername, id);
+    public UserResponse getUserById(Long id, AuthenticatedUser currentUser) {
+        log.info("User '{}' attempting to retrieve user with ID: {}", currentUser.getUsername(), id);
 
-        User currentUser = userRepository.findByUsername(currentUsername)
-                .orElseThrow(() -> new UserNotFoundException("Current user not found"));
-
-        User targetUser = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
-
-        if (!isAdminOrOwner(id, currentUsername)) {
-            log.warn("User '{}' is not authorized to view user with ID: {}", currentUsername, id);
+        // Authorize against the already-authenticated principal; the cached load below is shared by all callers
+        if (!currentUser.isAdminOrOwner(id)) {
+            log.warn("User '{}' is not authorized to view user with ID: {}", currentUser.getUsername(), id);
             throw new UnauthorizedException("You do not have permission to view this user");
         }
 
-        log.debug("Cache miss - User fetched from database: ID {}", id);
-        return targetUser;
+        return userRepository.findResponseById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
     }
 
     @Override
@@ -258,7 +348,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @org.springframework.cache.annotation.Cacheable(value = "userByUsername", key = "#username")
+    @org.springframework.cache.annotation.Cacheable(value = "userByUsername", key = "#username", sync = true)
     public java.util.Optional<User> findByUsername(String username) {
         log.debug("Cache miss - Fetching user from database: {}", username);
         return userRepository.findByUsername(username);
@@ -266,11 +356,13 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public String generateAuthToken(User user) {
-        Authentication authentication = new UsernamePasswordAuthenticationToken(
-                user.getUsername(),
-                null,
-                List.of(() -> user.getRole().name())
-        );
-        return jwtUtil.generateToken(authentication);
+        return generateAuthToken(AuthenticatedUser.from(user), null);
+    }
+
+    @Override
+    public String generateAuthToken(AuthenticatedUser principal, Long refreshTokenFamilyId) {
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.getAuthorities());
+        return jwtUtil.generateToken(authentication, refreshTokenFamilyId);
     }
 }
@@ -0,0 +1,25 @@
+package org.example.service;
+
+import org.example.dto.UserCountsView;
+
+/**
+ * Service interface for aggregate user statistics.
+ */
+public interface UserStatisticsService {
+
+    /**
+     * Get per-category user counts. Served from a short-lived snapshot, so results
+     * may lag writes by up to the snapshot TTL.
+     *
+     * @return user counts
+     */
+    UserCountsView getUserCounts();
+
+    /**
+     * Fold the pending per-statement counter deltas into the counters row, keeping the
+     * read of the counters cheap.
+     *
+     * @return number of deltas folded
+     */
+    int foldCounterDeltas();
+}
@@ -0,0 +1,69 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.UserCountsView;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * User statistics backed by the trigger-maintained counters (V12, V21) when enabled,
+ * otherwise by a single FILTER-aggregate scan of users. Either way the result is held
+ * as an in-memory snapshot for {@code app.statistics.snapshot-ttl-ms}.
+ *
+ * User writes only append delta rows, so they never wait on each other for the
+ * counters row; {@link #foldCounterDeltas()} runs on a schedule to fold them in.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatisticsServiceImpl implements UserStatisticsService {
+
+    private final UserRepository userRepository;
+
+    @Value("${app.statistics.use-counters-table:true}")
+    private boolean useCountersTable;
+
+    @Value("${app.statistics.snapshot-ttl-ms:5000}")
+    private long snapshotTtlMs;
+
+    private volatile Snapshot snapshot;
+
+    @Override
+    public UserCountsView getUserCounts() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && current.expiresAt() > now) {
+            return current.counts();
+        }
+
+        UserCountsView counts = loadCounts();
+        snapshot = new Snapshot(counts, now + snapshotTtlMs);
+        return counts;
+    }
+
+    @Override
+    @Transactional
+    public int foldCounterDeltas() {
+        if (!useCountersTable) {
+            return 0;
+        }
+        return userRepository.foldUserStatisticsCounterDeltas();
+    }
+
+    private UserCountsView loadCounts() {
+        if (useCountersTable) {
+            return userRepository.findMaintainedUserCounts()
+                    .orElseGet(() -> {
+                        log.warn("User statistics counters row missing, falling back to aggregate query");
+                        return userRepository.aggregateUserCounts();
+                    });
+        }
+        return userRepository.aggregateUserCounts();
+    }
+
+    private record Snapshot(UserCountsView counts, long expiresAt) {
+    }
+}
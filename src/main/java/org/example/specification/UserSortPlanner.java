@@ -0,0 +1,69 @@
+package org.example.specification;
+
+import org.example.exception.InvalidSortException;
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Maps client sort keys for user listings to orderings that an index on {@code users}
+ * can serve, so sorted admin pages never fall back to sorting the table.
+ *
+ * Every ordering ends with {@code id} in the same direction as the key. That makes the
+ * order total (stable across pages and usable for keyset continuation) while keeping a
+ * single scan direction, which a B-tree can walk forwards or backwards.
+ *
+ * Backing indexes: primary key (id), unique username/email (V1), and the
+ * (created_at, id) / (updated_at, id) composites from V13.
+ */
+public final class UserSortPlanner {
+
+    private static final String TIEBREAKER = "id";
+
+    /**
+     * Allowed sort keys (case-insensitive) and the entity property each one orders by.
+     */
+    private static final Map<String, String> INDEXED_SORT_KEYS = Map.of(
+            "id", "id",
+            "username", "username",
+            "email", "email",
+            "createdat", "createdAt",
+            "updatedat", "updatedAt"
+    );
+
+    private static final String ALLOWED_KEYS = INDEXED_SORT_KEYS.values().stream()
+            .sorted()
+            .collect(Collectors.joining(", "));
+
+    private UserSortPlanner() {
+    }
+
+    /**
+     * Plan a client-requested sort.
+     *
+     * @param sortBy requested sort key
+     * @param sortDirection ASC or DESC (anything else is treated as ASC)
+     * @return index-backed sort with id tiebreaker
+     * @throws InvalidSortException if the key is not backed by an index
+     */
+    public static Sort plan(String sortBy, String sortDirection) {
+        String property = sortBy == null ? null : INDEXED_SORT_KEYS.get(sortBy.trim().toLowerCase(Locale.ROOT));
+        if (property == null) {
+            throw new InvalidSortException("Unsupported sort field '" + sortBy + "'. Allowed: " + ALLOWED_KEYS);
+        }
+        Sort.Direction direction = "DESC".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return withTiebreaker(property, direction);
+    }
+
+    /**
+     * Fixed server-side ordering on a trusted property, with the id tiebreaker added.
+     */
+    public static Sort withTiebreaker(String property, Sort.Direction direction) {
+        if (TIEBREAKER.equals(property)) {
+            return Sort.by(direction, TIEBREAKER);
+        }
+        return Sort.by(direction, property, TIEBREAKER);
+    }
+}
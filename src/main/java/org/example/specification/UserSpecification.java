@@ -1,5 +1,8 @@
 package org.example.specification;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Predicate;
 import org.example.dto.UserFilterRequest;
 import org.example.entity.User;
@@ -7,13 +10,26 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * JPA Specification for dynamic user filtering.
  * Enables complex queries without writing custom repository methods.
+ *
+ * Username/email filters generate {@code lower(column) LIKE '%term%'}, which PostgreSQL
+ * serves from the pg_trgm GIN indexes added in V11. The SQL itself is portable, so the
+ * same specifications run unchanged (as plain scans) on H2 in tests.
  */
 public class UserSpecification {
 
+    /**
+     * Shortest term that yields a full trigram; shorter terms are matched as prefixes,
+     * which pg_trgm can still index through the padded leading trigrams.
+     */
+    private static final int MIN_SUBSTRING_TERM_LENGTH = 3;
+
+    private static final char LIKE_ESCAPE = '\\';
+
     /**
      * Build specification from filter request.
      *
@@ -25,23 +41,15 @@ public class UserSpecification {
             List<Predicate> predicates = new ArrayList<>();
 
             // Username filter (partial match, case-insensitive)
-            if (filter.getUsername() != null && !filter.getUsername().trim().isEmpty()) {
-                predicates.add(
-                        criteriaBuilder.like(
-                                criteriaBuilder.lower(root.get("username")),
-                                "%" + filter.getUsername().toLowerCase() + "%"
-                        )
-                );
+            String username = normalizeTerm(filter.getUsername());
+            if (username != null) {
+                predicates.add(matches(criteriaBuilder, criteriaBuilder.lower(root.get("username")), username));
             }
 
             // Email filter (partial match, case-insensitive)
-            if (filter.getEmail() != null && !filter.getEmail().trim().isEmpty()) {
-                predicates.add(
-                        criteriaBuilder.like(
-                                criteriaBuilder.lower(root.get("email")),
-                                "%" + filter.getEmail().toLowerCase() + "%"
-                        )
-                );
+            String email = normalizeTerm(filter.getEmail());
+            if (email != null) {
+                predicates.add(matches(criteriaBuilder, criteriaBuilder.lower(root.get("email")), email));
             }
 
             // Role filter (exact match)
@@ -77,6 +85,64 @@ public class UserSpecification {
         };
     }
 
+    /**
+     * Order matches by relevance to the username/email terms: exact match first, then
+     * prefix matches, then by how early the term occurs and how short the value is,
+     * with the ID as final tiebreaker. Falls back to ID order when no term is given.
+     *
+     * Adds no predicates; combine with {@link #withFilters(UserFilterRequest)} and an
+     * unsorted {@code Pageable} so the ordering is not overridden.
+     */
+    public static Specification<User> orderedByRelevance(UserFilterRequest filter) {
+        return (root, query, criteriaBuilder) -> {
+            // Count queries must not carry an ORDER BY
+            if (!Long.class.equals(query.getResultType()) && !long.class.equals(query.getResultType())) {
+                List<Order> orders = new ArrayList<>();
+                addRelevanceOrders(criteriaBuilder, criteriaBuilder.lower(root.get("username")),
+                        normalizeTerm(filter.getUsername()), orders);
+                addRelevanceOrders(criteriaBuilder, criteriaBuilder.lower(root.get("email")),
+                        normalizeTerm(filter.getEmail()), orders);
+                orders.add(criteriaBuilder.asc(root.get("id")));
+                query.orderBy(orders);
+            }
+            return null;
+        };
+    }
+
+    private static void addRelevanceOrders(CriteriaBuilder criteriaBuilder, Expression<String> field,
+                                           String term, List<Order> orders) {
+        if (term == null) {
+            return;
+        }
+        Expression<Integer> matchRank = criteriaBuilder.<Integer>selectCase()
+                .when(criteriaBuilder.equal(field, term), 0)
+                .when(criteriaBuilder.like(field, escapeLike(term) + "%", LIKE_ESCAPE), 1)
+                .otherwise(2);
+        orders.add(criteriaBuilder.asc(matchRank));
+        orders.add(criteriaBuilder.asc(criteriaBuilder.locate(field, term)));
+        orders.add(criteriaBuilder.asc(criteriaBuilder.length(field)));
+    }
+
+    private static Predicate matches(CriteriaBuilder criteriaBuilder, Expression<String> field, String term) {
+        String pattern = term.length() < MIN_SUBSTRING_TERM_LENGTH
+                ? escapeLike(term) + "%"
+                : "%" + escapeLike(term) + "%";
+        return criteriaBuilder.like(field, pattern, LIKE_ESCAPE);
+    }
+
+    private static String normalizeTerm(String term) {
+        if (term == null || term.trim().isEmpty()) {
+            return null;
+        }
+        return term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
     /**
      * Filter for active users (not locked, MFA not required).
      */
@@ -0,0 +1,24 @@
+-- ============================================================================
+-- Flyway Migration V11: Trigram Indexes for User Search
+-- ============================================================================
+-- Description: Enables pg_trgm and adds GIN trigram indexes so the admin
+--              user search (lower(username|email) LIKE '%term%') can use an
+--              index instead of scanning the users table.
+-- Date: 2026-10-18
+-- ============================================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- ============================================================================
+-- Trigram Indexes
+-- ============================================================================
+-- The indexed expressions must match the ones UserSpecification generates
+-- (lower(username), lower(email)) for the planner to pick them up.
+
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm
+    ON users USING gin (lower(username) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm
+    ON users USING gin (lower(email) gin_trgm_ops);
+
+ANALYZE users;
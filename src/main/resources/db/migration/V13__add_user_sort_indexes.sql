@@ -0,0 +1,25 @@
+-- ============================================================================
+-- Flyway Migration V13: Sort Indexes for Admin User Listings
+-- ============================================================================
+-- Description: Composite (column, id) indexes matching the orderings produced
+--              by UserSortPlanner, so sorted pages are read in index order
+--              (forward or backward) with no sort step.
+-- Date: 2026-10-18
+-- ============================================================================
+
+-- Replaces idx_users_created_at (created_at DESC): the composite serves the same
+-- queries and also the id tiebreaker
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id
+    ON users(created_at, id);
+
+DROP INDEX IF EXISTS idx_users_created_at;
+
+CREATE INDEX IF NOT EXISTS idx_users_updated_at_id
+    ON users(updated_at, id);
+
+-- Locked-users listing: ORDER BY account_locked_until DESC, id DESC over locked rows
+DROP INDEX IF EXISTS idx_users_locked_until;
+
+CREATE INDEX IF NOT EXISTS idx_users_locked_until_id
+    ON users(account_locked_until, id)
+    WHERE is_account_locked = TRUE;
@@ -0,0 +1,15 @@
+-- ============================================================================
+-- Flyway Migration V14: Room for Encoder-Prefixed Password Hashes
+-- ============================================================================
+-- Description: New hashes are stored as {id}hash by DelegatingPasswordEncoder,
+--              e.g. {bcrypt}$2a$12$... (68 chars) or {argon2}$argon2id$...
+--              (~100 chars), which no longer fit VARCHAR(60). Existing
+--              unprefixed BCrypt hashes stay valid and are upgraded on login.
+--              Widening a VARCHAR is a catalog-only change (no table rewrite).
+-- Date: 2026-10-18
+-- ============================================================================
+
+ALTER TABLE users ALTER COLUMN password_hash TYPE VARCHAR(255);
+
+-- Filled from users.password_hash by the V5 trigger
+ALTER TABLE password_history ALTER COLUMN password_hash TYPE VARCHAR(255);
@@ -0,0 +1,34 @@
+-- ============================================================================
+-- Flyway Migration V15: Refresh Tokens Stored as SHA-256 Digests
+-- ============================================================================
+-- Description: Refresh tokens are looked up by a 32-byte SHA-256 digest of
+--              the token instead of the raw VARCHAR(255) value. The raw token
+--              is only ever held by the client, the index entries are fixed
+--              width and half the size, and a database leak no longer yields
+--              usable tokens. Existing tokens keep working: their digest is
+--              computed here from the stored value.
+-- Date: 2026-10-18
+-- ============================================================================
+
+ALTER TABLE refresh_tokens ADD COLUMN token_hash BYTEA;
+ALTER TABLE refresh_tokens ADD COLUMN replaced_by_hash BYTEA;
+
+UPDATE refresh_tokens
+SET token_hash = sha256(convert_to(token, 'UTF8')),
+    replaced_by_hash = CASE WHEN replaced_by IS NOT NULL
+                            THEN sha256(convert_to(replaced_by, 'UTF8')) END;
+
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_tokens ADD CONSTRAINT chk_refresh_tokens_token_hash_length
+    CHECK (octet_length(token_hash) = 32);
+
+-- The unique index is the lookup path; it replaces the UNIQUE constraint and
+-- the duplicate idx_refresh_tokens_token on the raw column
+CREATE UNIQUE INDEX idx_refresh_tokens_token_hash ON refresh_tokens(token_hash);
+
+DROP INDEX IF EXISTS idx_refresh_tokens_token;
+ALTER TABLE refresh_tokens DROP COLUMN token;
+ALTER TABLE refresh_tokens DROP COLUMN replaced_by;
+
+COMMENT ON COLUMN refresh_tokens.token_hash IS 'SHA-256 digest of the refresh token (the token itself is not stored)';
+COMMENT ON COLUMN refresh_tokens.replaced_by_hash IS 'Digest of the token that replaced this one (for token rotation)';
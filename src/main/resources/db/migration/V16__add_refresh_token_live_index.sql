@@ -0,0 +1,22 @@
+-- ============================================================================
+-- Flyway Migration V16: Index for Per-User Active Refresh Tokens
+-- ============================================================================
+-- Description: Backs the single-statement token-limit enforcement
+--              (RefreshTokenRepository.revokeOldestActiveBeyond), which walks
+--              a user's unrevoked tokens newest first and revokes everything
+--              past the limit.
+--
+--              The partial predicate can only use immutable expressions, so
+--              it filters on revoked_at alone; expired rows drop out through
+--              the expires_at range condition on the leading index columns.
+--              (V8's idx_refresh_tokens_active also tests CURRENT_TIMESTAMP in
+--              its predicate.)
+-- Date: 2026-10-18
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_live
+    ON refresh_tokens(user_id, expires_at DESC, id DESC)
+    WHERE revoked_at IS NULL;
+
+-- Superseded: its revoked_at key column is always NULL under the same predicate
+DROP INDEX IF EXISTS idx_refresh_tokens_user_active;
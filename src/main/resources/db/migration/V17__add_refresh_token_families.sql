@@ -0,0 +1,54 @@
+-- ============================================================================
+-- Flyway Migration V17: Refresh Token Families
+-- ============================================================================
+-- Description: Every login starts a token family; each rotation issues the
+--              next generation within it. The family row holds the current
+--              generation, so presenting a token from an older generation
+--              (reuse of a rotated token) is detected from one keyed row, and
+--              the whole chain is revoked by one keyed UPDATE however long the
+--              session has been rotating.
+-- Date: 2026-10-18
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS refresh_token_families (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT NOT NULL,
+    generation      INTEGER NOT NULL DEFAULT 0,
+    created_at      TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    revoked_at      TIMESTAMP(6),
+    revoke_reason   VARCHAR(50),
+
+    CONSTRAINT fk_refresh_token_family_user FOREIGN KEY (user_id)
+        REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_refresh_token_families_user_live
+    ON refresh_token_families(user_id)
+    WHERE revoked_at IS NULL;
+
+ALTER TABLE refresh_tokens ADD COLUMN family_id BIGINT;
+ALTER TABLE refresh_tokens ADD COLUMN generation INTEGER NOT NULL DEFAULT 0;
+
+-- Each unrevoked token becomes generation 0 of its own family (family ID = token ID);
+-- revoked tokens are never valid again and stay without a family
+INSERT INTO refresh_token_families (id, user_id, generation, created_at)
+SELECT id, user_id, 0, created_at
+FROM refresh_tokens
+WHERE revoked_at IS NULL;
+
+UPDATE refresh_tokens SET family_id = id WHERE revoked_at IS NULL;
+
+SELECT setval(pg_get_serial_sequence('refresh_token_families', 'id'),
+              COALESCE((SELECT MAX(id) FROM refresh_token_families), 0) + 1, false);
+
+ALTER TABLE refresh_tokens ADD CONSTRAINT fk_refresh_token_family FOREIGN KEY (family_id)
+    REFERENCES refresh_token_families(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+
+COMMENT ON TABLE refresh_token_families IS 'Login sessions: chains of rotated refresh tokens';
+COMMENT ON COLUMN refresh_token_families.generation IS 'Generation of the only token in the family that may still be used';
+COMMENT ON COLUMN refresh_token_families.revoked_at IS 'When the whole chain was revoked (NULL if active)';
+COMMENT ON COLUMN refresh_token_families.revoke_reason IS 'LOGOUT, REUSE_DETECTED or REVOKE_ALL';
+COMMENT ON COLUMN refresh_tokens.family_id IS 'Token family (login session) this token belongs to';
+COMMENT ON COLUMN refresh_tokens.generation IS 'Rotation count within the family when this token was issued';
@@ -0,0 +1,45 @@
+-- ============================================================================
+-- Flyway Migration V18: MFA Backup Codes
+-- ============================================================================
+-- Description: Moves backup codes out of the mfa_settings.backup_codes array
+--              (Base64-encoded plaintext) into one row per code, stored as
+--              SHA-256(salt || code) with a per-user salt. A code is checked
+--              and consumed by one keyed conditional UPDATE, so two concurrent
+--              uses cannot both succeed and no array is rewritten.
+-- Date: 2026-10-19
+-- ============================================================================
+
+ALTER TABLE mfa_settings ADD COLUMN backup_code_salt BYTEA;
+
+-- 16-byte salt per user
+UPDATE mfa_settings
+SET backup_code_salt = substring(sha256(convert_to(random()::text || clock_timestamp()::text || id::text, 'UTF8')) FROM 1 FOR 16);
+
+ALTER TABLE mfa_settings ALTER COLUMN backup_code_salt SET NOT NULL;
+
+CREATE TABLE IF NOT EXISTS mfa_backup_codes (
+    id          BIGSERIAL PRIMARY KEY,
+    user_id     BIGINT NOT NULL,
+    code_hash   BYTEA NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    used_at     TIMESTAMP(6),
+
+    CONSTRAINT fk_mfa_backup_code_user FOREIGN KEY (user_id)
+        REFERENCES users(id) ON DELETE CASCADE,
+
+    CONSTRAINT uk_mfa_backup_code UNIQUE (user_id, code_hash)
+);
+
+-- Carry over the unused codes ("USED" marks a consumed code)
+INSERT INTO mfa_backup_codes (user_id, code_hash, created_at)
+SELECT DISTINCT s.user_id, sha256(s.backup_code_salt || decode(c.code, 'base64')), s.created_at
+FROM mfa_settings s
+CROSS JOIN LATERAL unnest(s.backup_codes) AS c(code)
+WHERE convert_from(decode(c.code, 'base64'), 'UTF8') <> 'USED';
+
+ALTER TABLE mfa_settings DROP COLUMN backup_codes;
+
+COMMENT ON COLUMN mfa_settings.backup_code_salt IS 'Per-user salt of the backup code hashes';
+COMMENT ON TABLE mfa_backup_codes IS 'Single-use MFA backup codes';
+COMMENT ON COLUMN mfa_backup_codes.code_hash IS 'SHA-256 of the user salt followed by the code';
+COMMENT ON COLUMN mfa_backup_codes.used_at IS 'When the code was consumed (NULL if unused)';
@@ -0,0 +1,19 @@
+-- ============================================================================
+-- Flyway Migration V19: Trusted Device Lookup
+-- ============================================================================
+-- Description: Aligns trusted_devices with the TrustedDevice entity
+--              (device_identifier, user_agent). Trust checks look devices up
+--              by (user_id, device_identifier), which the existing unique
+--              constraint already indexes, so the separate single-column
+--              fingerprint index is dropped.
+-- Date: 2026-10-19
+-- ============================================================================
+
+ALTER TABLE trusted_devices RENAME COLUMN device_fingerprint TO device_identifier;
+ALTER TABLE trusted_devices ALTER COLUMN device_identifier TYPE VARCHAR(64);
+ALTER TABLE trusted_devices ADD COLUMN IF NOT EXISTS user_agent VARCHAR(500);
+
+DROP INDEX IF EXISTS idx_trusted_devices_fingerprint;
+
+COMMENT ON COLUMN trusted_devices.device_identifier IS 'Base64 SHA-256 of the device fingerprint (fixed width)';
+COMMENT ON COLUMN trusted_devices.user_agent IS 'User agent when the device was trusted';
@@ -0,0 +1,45 @@
+-- ============================================================================
+-- Flyway Migration V20: Email Outbox
+-- ============================================================================
+-- Description: Turns email_notifications (V7) into a transactional outbox.
+--              Services insert rows in their own transaction; a dispatcher
+--              claims due rows with FOR UPDATE SKIP LOCKED, sends them in
+--              batches and records the outcome. The enum types become
+--              VARCHAR like the rest of the schema (mapped from Java enums),
+--              and the V7 helper functions, which depend on those types and
+--              are superseded by the dispatcher, are dropped.
+-- Date: 2026-10-19
+-- ============================================================================
+
+DROP FUNCTION IF EXISTS get_pending_emails(INTEGER);
+DROP FUNCTION IF EXISTS mark_email_sent(BIGINT);
+DROP FUNCTION IF EXISTS mark_email_failed(BIGINT, TEXT);
+DROP FUNCTION IF EXISTS retry_failed_emails(BIGINT[]);
+DROP FUNCTION IF EXISTS cleanup_old_emails();
+
+DROP INDEX IF EXISTS idx_email_notifications_pending;
+DROP INDEX IF EXISTS idx_email_notifications_status;
+
+ALTER TABLE email_notifications ALTER COLUMN status DROP DEFAULT;
+ALTER TABLE email_notifications ALTER COLUMN status TYPE VARCHAR(20) USING status::text;
+ALTER TABLE email_notifications ALTER COLUMN status SET DEFAULT 'PENDING';
+ALTER TABLE email_notifications ALTER COLUMN email_type TYPE VARCHAR(30) USING email_type::text;
+
+DROP TYPE IF EXISTS email_status;
+DROP TYPE IF EXISTS email_type;
+
+-- Earliest time of the next attempt (retry backoff)
+ALTER TABLE email_notifications ADD COLUMN next_attempt_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- Claim query: due PENDING rows in next_attempt_at order
+CREATE INDEX idx_email_notifications_due
+    ON email_notifications(next_attempt_at)
+    WHERE status = 'PENDING';
+
+-- Lease recovery: rows left SENDING by a dispatcher that stopped mid-batch
+CREATE INDEX idx_email_notifications_sending
+    ON email_notifications(last_attempt_at)
+    WHERE status = 'SENDING';
+
+COMMENT ON COLUMN email_notifications.status IS 'PENDING, SENDING, SENT, FAILED (dead-lettered after max_attempts) or CANCELLED';
+COMMENT ON COLUMN email_notifications.next_attempt_at IS 'Earliest time of the next sending attempt';
@@ -0,0 +1,148 @@
+-- ============================================================================
+-- Flyway Migration V21: Append-Only User Statistics Deltas
+-- ============================================================================
+-- Description: The V12 row trigger updated the single counters row for every
+--              tracked user change, so concurrent user writes queued on that
+--              row lock until commit. Statement triggers now append one
+--              aggregated delta row per statement instead (inserts never
+--              conflict with each other), a scheduled job folds the deltas
+--              into the counters row, and readers add the pending deltas to
+--              the folded totals.
+-- Date: 2026-10-19
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS user_statistics_counter_deltas (
+    id                  BIGSERIAL PRIMARY KEY,
+    total_users         BIGINT NOT NULL,
+    locked_users        BIGINT NOT NULL,
+    mfa_enabled_users   BIGINT NOT NULL,
+    admin_users         BIGINT NOT NULL,
+    regular_users       BIGINT NOT NULL,
+    created_at          TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+DROP TRIGGER IF EXISTS trg_users_statistics_counters ON users;
+DROP TRIGGER IF EXISTS trg_users_statistics_counters_truncate ON users;
+DROP FUNCTION IF EXISTS maintain_user_statistics_counters();
+
+-- Net change of the rows a statement inserted, deleted or updated. A trigger
+-- with transition tables handles a single event and can only see the
+-- transition tables it declares, so each event gets its own function. Rows
+-- cancel out per column, and statements that leave every tracked column
+-- unchanged (most user updates) append nothing.
+CREATE OR REPLACE FUNCTION record_user_statistics_deltas_insert()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_statistics_counter_deltas (total_users, locked_users, mfa_enabled_users, admin_users, regular_users)
+    SELECT COUNT(*),
+           COUNT(*) FILTER (WHERE is_account_locked),
+           COUNT(*) FILTER (WHERE mfa_enabled),
+           COUNT(*) FILTER (WHERE role = 'ROLE_ADMIN'),
+           COUNT(*) FILTER (WHERE role = 'ROLE_USER')
+    FROM new_users
+    HAVING COUNT(*) > 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_user_statistics_deltas_delete()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_statistics_counter_deltas (total_users, locked_users, mfa_enabled_users, admin_users, regular_users)
+    SELECT -COUNT(*),
+           -COUNT(*) FILTER (WHERE is_account_locked),
+           -COUNT(*) FILTER (WHERE mfa_enabled),
+           -COUNT(*) FILTER (WHERE role = 'ROLE_ADMIN'),
+           -COUNT(*) FILTER (WHERE role = 'ROLE_USER')
+    FROM old_users
+    HAVING COUNT(*) > 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_user_statistics_deltas_update()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_statistics_counter_deltas (total_users, locked_users, mfa_enabled_users, admin_users, regular_users)
+    SELECT 0, d_locked, d_mfa, d_admin, d_regular
+    FROM (
+        SELECT SUM(sign * is_account_locked::INT) AS d_locked,
+               SUM(sign * mfa_enabled::INT) AS d_mfa,
+               SUM(sign * (role = 'ROLE_ADMIN')::INT) AS d_admin,
+               SUM(sign * (role = 'ROLE_USER')::INT) AS d_regular
+        FROM (
+            SELECT 1 AS sign, is_account_locked, mfa_enabled, role FROM new_users
+            UNION ALL
+            SELECT -1, is_account_locked, mfa_enabled, role FROM old_users
+        ) changed
+    ) delta
+    WHERE d_locked <> 0 OR d_mfa <> 0 OR d_admin <> 0 OR d_regular <> 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION reset_user_statistics_counters()
+RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM user_statistics_counter_deltas;
+    UPDATE user_statistics_counters
+    SET total_users = 0, locked_users = 0, mfa_enabled_users = 0,
+        admin_users = 0, regular_users = 0, updated_at = CURRENT_TIMESTAMP
+    WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_users_statistics_deltas_insert
+    AFTER INSERT ON users
+    REFERENCING NEW TABLE AS new_users
+    FOR EACH STATEMENT EXECUTE FUNCTION record_user_statistics_deltas_insert();
+
+CREATE TRIGGER trg_users_statistics_deltas_delete
+    AFTER DELETE ON users
+    REFERENCING OLD TABLE AS old_users
+    FOR EACH STATEMENT EXECUTE FUNCTION record_user_statistics_deltas_delete();
+
+CREATE TRIGGER trg_users_statistics_deltas_update
+    AFTER UPDATE ON users
+    REFERENCING OLD TABLE AS old_users NEW TABLE AS new_users
+    FOR EACH STATEMENT EXECUTE FUNCTION record_user_statistics_deltas_update();
+
+CREATE TRIGGER trg_users_statistics_counters_truncate
+    AFTER TRUNCATE ON users
+    FOR EACH STATEMENT EXECUTE FUNCTION reset_user_statistics_counters();
+
+-- Move the pending deltas into the counters row. The DELETE locks the deltas
+-- it folds, so a concurrent fold skips them once this one commits and no
+-- delta is counted twice. Only folds contend on the counters row.
+CREATE OR REPLACE FUNCTION fold_user_statistics_counter_deltas()
+RETURNS INTEGER AS $$
+DECLARE
+    folded INTEGER;
+BEGIN
+    WITH drained AS (
+        DELETE FROM user_statistics_counter_deltas
+        RETURNING total_users, locked_users, mfa_enabled_users, admin_users, regular_users
+    ), summed AS (
+        SELECT COUNT(*) AS deltas,
+               COALESCE(SUM(total_users), 0) AS d_total,
+               COALESCE(SUM(locked_users), 0) AS d_locked,
+               COALESCE(SUM(mfa_enabled_users), 0) AS d_mfa,
+               COALESCE(SUM(admin_users), 0) AS d_admin,
+               COALESCE(SUM(regular_users), 0) AS d_regular
+        FROM drained
+    ), applied AS (
+        UPDATE user_statistics_counters c
+        SET total_users       = c.total_users + s.d_total,
+            locked_users      = c.locked_users + s.d_locked,
+            mfa_enabled_users = c.mfa_enabled_users + s.d_mfa,
+            admin_users       = c.admin_users + s.d_admin,
+            regular_users     = c.regular_users + s.d_regular,
+            updated_at        = CURRENT_TIMESTAMP
+        FROM summed s
+        WHERE c.id = 1 AND s.deltas > 0
+    )
+    SELECT deltas INTO folded FROM summed;
+    RETURN folded;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,116 @@
+package org.example.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CacheEvictionPublisher
+ * Tests when messages are published and the re-eviction after commit
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheEvictionPublisher Tests")
+class CacheEvictionPublisherTest {
+
+    private static final String CHANNEL = "test-evictions";
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final AtomicInteger evictions = new AtomicInteger();
+
+    private CacheEvictionPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new CacheEvictionPublisher(redisTemplateProvider, listenerContainerProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void useRedis() {
+        when(listenerContainerProvider.getIfAvailable()).thenReturn(mock(RedisMessageListenerContainer.class));
+        when(redisTemplateProvider.getIfAvailable()).thenReturn(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should evict and publish at once outside a transaction")
+    void shouldEvictAndPublishOutsideTransaction() {
+        // Arrange
+        useRedis();
+
+        // Act
+        publisher.evict(evictions::incrementAndGet, CHANNEL, "42");
+
+        // Assert
+        assertThat(evictions).hasValue(1);
+        verify(redisTemplate).convertAndSend(CHANNEL, "42");
+    }
+
+    @Test
+    @DisplayName("Should evict again and publish only after commit inside a transaction")
+    void shouldEvictAgainAfterCommit() {
+        // Arrange
+        useRedis();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        publisher.evict(evictions::incrementAndGet, CHANNEL, "42");
+
+        // Assert
+        assertThat(evictions).hasValue(1);
+        verifyNoInteractions(redisTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(evictions).hasValue(2);
+        verify(redisTemplate).convertAndSend(CHANNEL, "42");
+    }
+
+    @Test
+    @DisplayName("Should not publish without the Redis listener container")
+    void shouldNotPublishWithoutListenerContainer() {
+        // Act
+        publisher.evict(evictions::incrementAndGet, CHANNEL, "42");
+
+        // Assert
+        assertThat(evictions).hasValue(1);
+        verifyNoInteractions(redisTemplateProvider);
+    }
+
+    @Test
+    @DisplayName("Should swallow a failed publish")
+    void shouldSwallowPublishFailure() {
+        // Arrange
+        useRedis();
+        when(redisTemplate.convertAndSend(CHANNEL, "42")).thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act & Assert
+        assertThatCode(() -> publisher.publish(CHANNEL, "42")).doesNotThrowAnyException();
+    }
+}
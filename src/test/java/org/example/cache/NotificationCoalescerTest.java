@@ -0,0 +1,168 @@
+package org.example.cache;
+
+import org.example.enums.EmailType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationCoalescer
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationCoalescer Tests")
+class NotificationCoalescerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new NotificationCoalescer(redisTemplateProvider, listenerContainerProvider, 900, 1000, 2);
+    }
+
+    private StringRedisTemplate useRedis() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(listenerContainerProvider.getIfAvailable()).thenReturn(mock(RedisMessageListenerContainer.class));
+        when(redisTemplateProvider.getIfAvailable()).thenReturn(redisTemplate);
+        return redisTemplate;
+    }
+
+    private static String millis(LocalDateTime time) {
+        return String.valueOf(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @Test
+    @DisplayName("Should send the first notification and digest the repeats once the window ends")
+    void shouldDigestRepeatsWithinWindow() {
+        // Arrange
+        boolean first = coalescer.admit("John@Example.com", EmailType.ACCOUNT_LOCKED, "john", "Too many attempts", START).send();
+
+        // Act
+        boolean second = coalescer.admit("john@example.com", EmailType.ACCOUNT_LOCKED, "john", "Too many attempts", START.plusMinutes(1)).send();
+        boolean third = coalescer.admit("john@example.com", EmailType.ACCOUNT_LOCKED, "john", "Too many attempts", START.plusMinutes(2)).send();
+        boolean otherType = coalescer.admit("john@example.com", EmailType.SECURITY_ALERT, "john", null, START.plusMinutes(2)).send();
+        List<NotificationCoalescer.Digest> early = coalescer.drainDigests(START.plusMinutes(10));
+        List<NotificationCoalescer.Digest> due = coalescer.drainDigests(START.plusMinutes(15));
+
+        // Assert
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(third).isFalse();
+        assertThat(otherType).isTrue();
+        assertThat(early).isEmpty();
+        assertThat(due).singleElement().satisfies(digest -> {
+            assertThat(digest.recipient()).isEqualTo("John@Example.com");
+            assertThat(digest.type()).isEqualTo(EmailType.ACCOUNT_LOCKED);
+            assertThat(digest.suppressed()).isEqualTo(2);
+            assertThat(digest.firstAt()).isEqualTo(START.plusMinutes(1));
+            assertThat(digest.lastAt()).isEqualTo(START.plusMinutes(2));
+            assertThat(digest.recentEvents()).containsExactly(entry("Too many attempts", 2));
+        });
+        assertThat(coalescer.drainDigests(START.plusMinutes(30))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return an undrained digest when a notification opens the next window")
+    void shouldReturnClosedDigestOnNextWindow() {
+        // Arrange
+        coalescer.admit("john@example.com", EmailType.SECURITY_ALERT, "john", "a", START);
+        coalescer.admit("john@example.com", EmailType.SECURITY_ALERT, "john", "b", START.plusMinutes(1));
+        coalescer.admit("john@example.com", EmailType.SECURITY_ALERT, "john", "c", START.plusMinutes(2));
+        coalescer.admit("john@example.com", EmailType.SECURITY_ALERT, "john", "d", START.plusMinutes(3));
+
+        // Act
+        NotificationCoalescer.Admission admission =
+                coalescer.admit("john@example.com", EmailType.SECURITY_ALERT, "john", "e", START.plusMinutes(20));
+
+        // Assert
+        assertThat(admission.send()).isTrue();
+        assertThat(admission.closed().suppressed()).isEqualTo(3);
+        assertThat(admission.closed().recentEvents()).containsOnlyKeys("b", "c");
+    }
+
+    @Test
+    @DisplayName("Should share the window through Redis and hand back the previous window's digest")
+    @SuppressWarnings("unchecked")
+    void shouldAdmitThroughRedis() {
+        // Arrange
+        StringRedisTemplate redisTemplate = useRedis();
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(0L))
+                .thenReturn(List.of(1L, "recipient", "John@Example.com", "firstAt", millis(START.plusMinutes(1)),
+                        "lastAt", millis(START.plusMinutes(2)), "username", "john", "suppressed", "2",
+                        "e:Too many attempts", "2", "events", "1"));
+
+        // Act
+        NotificationCoalescer.Admission suppressed =
+                coalescer.admit("John@Example.com", EmailType.ACCOUNT_LOCKED, "john", "Too many attempts", START.plusMinutes(2));
+        NotificationCoalescer.Admission opened =
+                coalescer.admit("John@Example.com", EmailType.ACCOUNT_LOCKED, "john", "Too many attempts", START.plusMinutes(20));
+
+        // Assert
+        assertThat(suppressed.send()).isFalse();
+        assertThat(opened.send()).isTrue();
+        assertThat(opened.closed()).satisfies(digest -> {
+            assertThat(digest.recipient()).isEqualTo("John@Example.com");
+            assertThat(digest.suppressed()).isEqualTo(2);
+            assertThat(digest.firstAt()).isEqualTo(START.plusMinutes(1));
+            assertThat(digest.lastAt()).isEqualTo(START.plusMinutes(2));
+            assertThat(digest.recentEvents()).containsExactly(entry("Too many attempts", 2));
+        });
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class),
+                eq(List.of("notify:window:john@example.com:ACCOUNT_LOCKED",
+                        "notify:digest:john@example.com:ACCOUNT_LOCKED", "notify:digests-due")),
+                any(), eq("900000"), eq("John@Example.com"), eq("john"), eq("Too many attempts"), eq("2"));
+    }
+
+    @Test
+    @DisplayName("Should return only the Redis digests this instance claimed")
+    @SuppressWarnings("unchecked")
+    void shouldDrainClaimedDigestsFromRedis() {
+        // Arrange
+        StringRedisTemplate redisTemplate = useRedis();
+        ZSetOperations<String, String> zSet = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSet);
+        when(zSet.rangeByScore(eq("notify:digests-due"), eq(0.0), anyDouble(), eq(0L), anyLong()))
+                .thenReturn(Set.of("notify:digest:john@example.com:SECURITY_ALERT"));
+        when(redisTemplate.execute(any(RedisScript.class), anyList()))
+                .thenReturn(List.of("recipient", "john@example.com", "firstAt", millis(START), "lastAt", millis(START),
+                        "username", "john", "suppressed", "1"))
+                .thenReturn(List.of());
+
+        // Act
+        List<NotificationCoalescer.Digest> first = coalescer.drainDigests(START.plusMinutes(15));
+        List<NotificationCoalescer.Digest> second = coalescer.drainDigests(START.plusMinutes(15));
+
+        // Assert
+        assertThat(first).singleElement().satisfies(digest -> {
+            assertThat(digest.type()).isEqualTo(EmailType.SECURITY_ALERT);
+            assertThat(digest.suppressed()).isEqualTo(1);
+            assertThat(digest.recentEvents()).isEmpty();
+        });
+        assertThat(second).isEmpty();
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for StampedeProtectedCache
+ */
+@DisplayName("StampedeProtectedCache Tests")
+class StampedeProtectedCacheTest {
+
+    private ConcurrentMapCache delegate;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new ConcurrentMapCache("users", false);
+    }
+
+    @Test
+    @DisplayName("Should run a single loader for concurrent misses on the same key")
+    void shouldCoalesceConcurrentLoads() throws Exception {
+        // Arrange
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(5), 0, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                release.await(5, TimeUnit.SECONDS);
+                return "user-1";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("user-1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should serve stale value and refresh it in the background")
+    void shouldServeStaleWhileRevalidating() {
+        // Arrange
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(5), 0, Runnable::run);
+        delegate.put(1L, new CachedValue("old", System.currentTimeMillis() - 1000, 10));
+
+        // Act
+        String served = cache.get(1L, () -> "new");
+
+        // Assert
+        assertThat(served).isEqualTo("old");
+        assertThat(cache.get(1L, () -> "newer")).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("Should treat stale entries as misses for lookups without a loader")
+    void shouldTreatStaleAsMissWithoutLoader() {
+        // Arrange
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(5), 0, Runnable::run);
+        delegate.put(1L, new CachedValue("old", System.currentTimeMillis() - 1000, 10));
+
+        // Act & Assert
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should propagate loader failures to the caller")
+    void shouldPropagateLoaderFailure() {
+        // Arrange
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(5), 0, Runnable::run);
+        IllegalStateException failure = new IllegalStateException("db down");
+
+        // Act & Assert
+        assertThatThrownBy(() -> cache.get(1L, () -> { throw failure; }))
+                .isInstanceOf(Cache.ValueRetrievalException.class)
+                .hasCause(failure);
+        assertThat(delegate.get(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not cache null results")
+    void shouldNotCacheNullResults() {
+        // Arrange
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(5), 0, Runnable::run);
+
+        // Act
+        Object result = cache.get(1L, () -> null);
+
+        // Assert
+        assertThat(result).isNull();
+        assertThat(delegate.get(1L)).isNull();
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TrustedDeviceCache
+ * Tests coalescing of recorded device uses and draining them while uses are recorded
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TrustedDeviceCache Tests")
+class TrustedDeviceCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Mock
+    private CacheEvictionPublisher evictionPublisher;
+
+    private TrustedDeviceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TrustedDeviceCache(evictionPublisher, 1000, 10);
+    }
+
+    @Test
+    @DisplayName("Should keep only the latest use per device, whatever the recording order")
+    void shouldKeepLatestUse() {
+        // Arrange
+        cache.recordUse(1L, "laptop", START.plusMinutes(5));
+        cache.recordUse(1L, "laptop", START);
+        cache.recordUse(1L, "phone", START.plusMinutes(1));
+        cache.recordUse(2L, "laptop", START.plusMinutes(2));
+        cache.recordUse(1L, "phone", START.plusMinutes(3));
+
+        // Act
+        List<Map.Entry<TrustedDeviceCache.DeviceUse, LocalDateTime>> uses = cache.drainUses();
+
+        // Assert
+        assertThat(uses).containsExactlyInAnyOrder(
+                Map.entry(new TrustedDeviceCache.DeviceUse(1L, "laptop"), START.plusMinutes(5)),
+                Map.entry(new TrustedDeviceCache.DeviceUse(1L, "phone"), START.plusMinutes(3)),
+                Map.entry(new TrustedDeviceCache.DeviceUse(2L, "laptop"), START.plusMinutes(2)));
+        assertThat(cache.drainUses()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep uses recorded after a drain for the next drain")
+    void shouldKeepUsesRecordedAfterDrain() {
+        // Arrange
+        cache.recordUse(1L, "laptop", START);
+        cache.drainUses();
+
+        // Act
+        cache.recordUse(1L, "laptop", START.plusMinutes(1));
+
+        // Assert
+        assertThat(cache.drainUses()).containsExactly(
+                Map.entry(new TrustedDeviceCache.DeviceUse(1L, "laptop"), START.plusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("Should not lose the latest use of a device recorded concurrently with drains")
+    void shouldNotLoseUsesRecordedDuringDrain() throws Exception {
+        // Arrange
+        int recorders = 4;
+        int devices = 8;
+        int usesPerDevice = 2_000;
+        Map<TrustedDeviceCache.DeviceUse, LocalDateTime> written = new ConcurrentHashMap<>();
+        AtomicBoolean recording = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(recorders + 1);
+
+        try {
+            // Act
+            List<Future<?>> recorderTasks = new ArrayList<>();
+            for (int r = 0; r < recorders; r++) {
+                long userId = r;
+                recorderTasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= usesPerDevice; i++) {
+                        for (int d = 0; d < devices; d++) {
+                            cache.recordUse(userId, "device-" + d, START.plusSeconds(i));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> drainer = executor.submit(() -> {
+                start.await();
+                while (recording.get()) {
+                    cache.drainUses().forEach(use -> written.merge(use.getKey(), use.getValue(),
+                            (previous, current) -> current.isAfter(previous) ? current : previous));
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> task : recorderTasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            drainer.get(30, TimeUnit.SECONDS);
+            cache.drainUses().forEach(use -> written.merge(use.getKey(), use.getValue(),
+                    (previous, current) -> current.isAfter(previous) ? current : previous));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertThat(written).hasSize(recorders * devices);
+        assertThat(written.values()).containsOnly(START.plusSeconds(usesPerDevice));
+        assertThat(cache.drainUses()).isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.controller;
+
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.example.security.CustomUserDetailsService;
+import org.example.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for MFAController
+ * Tests the asynchronous setup endpoints through the full security filter chain
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("MFA Controller Integration Tests")
+class MFAControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("mfauser");
+        user.setEmail("mfauser@test.com");
+        user.setPasswordHash(passwordEncoder.encode("Test@1234"));
+        user.setRole(Role.ROLE_USER);
+        userRepository.save(user);
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("mfauser");
+        token = jwtUtil.generateToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    @Test
+    @DisplayName("GET /api/mfa/setup - Should return the setup on the async dispatch")
+    void shouldReturnSetupOnAsyncDispatch() throws Exception {
+        // Arrange
+        MvcResult started = mockMvc.perform(get("/api/mfa/setup")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act & Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.secret").isNotEmpty())
+                .andExpect(jsonPath("$.backupCodes").isArray());
+    }
+
+    @Test
+    @DisplayName("GET /api/mfa/setup/qr - Should return the QR image on the async dispatch")
+    void shouldReturnSetupQRCodeOnAsyncDispatch() throws Exception {
+        // Arrange
+        MvcResult setup = mockMvc.perform(get("/api/mfa/setup")
+                        .header("Authorization", "Bearer " + token))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(setup)).andExpect(status().isOk());
+
+        MvcResult started = mockMvc.perform(get("/api/mfa/setup/qr")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act & Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG));
+    }
+
+    @Test
+    @DisplayName("GET /api/mfa/setup - Should return 403 without a token")
+    void shouldRejectSetupWithoutToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/mfa/setup"))
+                .andExpect(status().isForbidden());
+    }
+}
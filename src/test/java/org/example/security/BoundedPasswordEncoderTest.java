@@ -0,0 +1,94 @@
+package org.example.security;
+
+import org.example.exception.PasswordHashingUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedPasswordEncoder
+ */
+@DisplayName("BoundedPasswordEncoder Tests")
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should verify legacy BCrypt hashes and flag them for upgrade")
+    void shouldVerifyLegacyHashAndRequestUpgrade() {
+        // Arrange
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        encoder = new BoundedPasswordEncoder(delegating, 2, 4, 5000);
+        String legacyHash = bcrypt.encode("Secret123");
+
+        // Act
+        String newHash = encoder.encode("Secret123");
+
+        // Assert
+        assertThat(encoder.matches("Secret123", legacyHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacyHash)).isTrue();
+        assertThat(newHash).startsWith("{bcrypt}");
+        assertThat(encoder.matches("Secret123", newHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(newHash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should fail fast when the hashing pool and queue are full")
+    void shouldRejectWhenSaturated() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(slow, 1, 1, 5000);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act: one hash running, one queued
+            callers.submit(() -> encoder.encode("a"));
+            callers.submit(() -> encoder.encode("b"));
+            Thread.sleep(200);
+
+            // Assert
+            assertThatThrownBy(() -> encoder.encode("c"))
+                    .isInstanceOf(PasswordHashingUnavailableException.class);
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            callers.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FailedLoginCounter
+ * Tests the shared per-IP count and the fallback when Redis is not available
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FailedLoginCounter Tests")
+class FailedLoginCounterTest {
+
+    private static final String IP = "203.0.113.7";
+    private static final String KEY = "login:failures:ip:" + IP;
+    private static final long NOW = 1_800_000_000_000L;
+    private static final long WINDOW_MILLIS = 15 * 60 * 1000L;
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private FailedLoginCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new FailedLoginCounter(redisTemplateProvider, listenerContainerProvider, 15, 10);
+    }
+
+    private void useRedis() {
+        when(listenerContainerProvider.getIfAvailable()).thenReturn(mock(RedisMessageListenerContainer.class));
+        when(redisTemplateProvider.getIfAvailable()).thenReturn(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should record a failure with the window and the block threshold")
+    @SuppressWarnings("unchecked")
+    void shouldRecordFailure() {
+        // Arrange
+        useRedis();
+
+        // Act
+        counter.recordFailure(IP, NOW);
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)),
+                eq(String.valueOf(NOW)), anyString(), eq(String.valueOf(WINDOW_MILLIS)), eq("10"));
+    }
+
+    @Test
+    @DisplayName("Should count the failures within the window")
+    void shouldCountFailuresWithinWindow() {
+        // Arrange
+        useRedis();
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.count(KEY, NOW - WINDOW_MILLIS, Double.POSITIVE_INFINITY)).thenReturn(4L);
+
+        // Act & Assert
+        assertThat(counter.countByIp(IP, NOW)).hasValue(4L);
+    }
+
+    @Test
+    @DisplayName("Should not count without the Redis listener container")
+    void shouldNotCountWithoutListenerContainer() {
+        // Act & Assert
+        assertThat(counter.countByIp(IP, NOW)).isEmpty();
+        counter.recordFailure(IP, NOW);
+        verifyNoInteractions(redisTemplateProvider);
+    }
+
+    @Test
+    @DisplayName("Should return no count when Redis is unreachable")
+    @SuppressWarnings("unchecked")
+    void shouldReturnNoCountWhenRedisFails() {
+        // Arrange
+        useRedis();
+        when(redisTemplate.opsForZSet()).thenThrow(new RedisConnectionFailureException("down"));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act & Assert
+        assertThat(counter.countByIp(IP, NOW)).isEmpty();
+        assertThatCode(() -> counter.recordFailure(IP, NOW)).doesNotThrowAnyException();
+    }
+}
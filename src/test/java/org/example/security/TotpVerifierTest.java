@@ -0,0 +1,81 @@
+package org.example.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TotpVerifier, using the SHA-1 test vectors of RFC 6238 (appendix B)
+ * truncated to 6 digits
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TotpVerifier Tests")
+class TotpVerifierTest {
+
+    private static final byte[] RFC_KEY = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    private TotpVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new TotpVerifier(redisTemplateProvider, listenerContainerProvider, 1, 1000);
+    }
+
+    @Test
+    @DisplayName("Should accept RFC 6238 codes within the window and reject them outside it")
+    void shouldAcceptRfcCodesWithinWindow() {
+        // Act & Assert
+        assertThat(verifier.verify(1L, RFC_KEY, 287082, 59L)).isTrue();
+        assertThat(verifier.verify(2L, RFC_KEY, 81804, 1111111109L + 30)).isTrue();
+        assertThat(verifier.verify(3L, RFC_KEY, 81804, 1111111109L + 90)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a code that was already accepted")
+    void shouldRejectReplayedCode() {
+        // Arrange
+        assertThat(verifier.verify(1L, RFC_KEY, 50471, 1111111111L)).isTrue();
+
+        // Act & Assert
+        assertThat(verifier.verify(1L, RFC_KEY, 50471, 1111111111L)).isFalse();
+        assertThat(verifier.verify(2L, RFC_KEY, 50471, 1111111111L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject a code another instance already accepted")
+    @SuppressWarnings("unchecked")
+    void shouldRejectCodeAcceptedOnAnotherInstance() {
+        // Arrange
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(listenerContainerProvider.getIfAvailable()).thenReturn(mock(RedisMessageListenerContainer.class));
+        when(redisTemplateProvider.getIfAvailable()).thenReturn(redisTemplate);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("totp:last-step:1")), any(), any()))
+                .thenReturn(0L, 1L);
+
+        // Act & Assert
+        assertThat(verifier.verify(1L, RFC_KEY, 50471, 1111111111L)).isFalse();
+        assertThat(verifier.verify(1L, RFC_KEY, 266759, 1111111111L + 30)).isTrue();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("totp:last-step:1")),
+                eq(String.valueOf(1111111111L / 30)), eq("90000"));
+    }
+}
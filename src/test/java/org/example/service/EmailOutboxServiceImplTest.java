@@ -0,0 +1,139 @@
+package org.example.service;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.example.entity.EmailNotification;
+import org.example.enums.EmailStatus;
+import org.example.enums.EmailType;
+import org.example.metrics.CustomMetrics;
+import org.example.repository.EmailNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmailOutboxServiceImpl
+ * Tests batch claiming, per-message failure handling and backoff
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailOutboxService Tests")
+class EmailOutboxServiceImplTest {
+
+    @Mock
+    private EmailNotificationRepository emailNotificationRepository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CustomMetrics customMetrics;
+
+    private EmailOutboxServiceImpl emailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxService = new EmailOutboxServiceImpl(
+                emailNotificationRepository, mailSender, transactionManager, customMetrics);
+        ReflectionTestUtils.setField(emailOutboxService, "fromAddress", "noreply@example.com");
+        ReflectionTestUtils.setField(emailOutboxService, "fromName", "User Management System");
+        ReflectionTestUtils.setField(emailOutboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailOutboxService, "retryDelayMs", 5000L);
+        ReflectionTestUtils.setField(emailOutboxService, "batchSize", 50);
+        ReflectionTestUtils.setField(emailOutboxService, "maxBatchesPerRun", 20);
+        ReflectionTestUtils.setField(emailOutboxService, "claimTimeoutMs", 300000L);
+
+        lenient().when(mailSender.createMimeMessage())
+                .thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+    }
+
+    @Test
+    @DisplayName("Should send a batch in one call and retry or dead-letter only the failed messages")
+    void dispatchPending_PartialFailure_MarksEachMessage() {
+        // Arrange
+        EmailNotification delivered = email(1L, "alice@example.com", 1);
+        EmailNotification retried = email(2L, "bob@example.com", 1);
+        EmailNotification exhausted = email(3L, "carol@example.com", 3);
+        List<Long> ids = List.of(1L, 2L, 3L);
+
+        when(emailNotificationRepository.lockDueIds(any(LocalDateTime.class), eq(50))).thenReturn(ids);
+        when(emailNotificationRepository.findAllById(ids)).thenReturn(List.of(delivered, retried, exhausted));
+        doAnswer(invocation -> {
+            Object[] messages = invocation.getArguments();
+            throw new MailSendException(Map.of(
+                    messages[1], new RuntimeException("mailbox full"),
+                    messages[2], new RuntimeException("user unknown")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        int sent = emailOutboxService.dispatchPending();
+
+        // Assert
+        assertThat(sent).isEqualTo(1);
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        verify(emailNotificationRepository).markSending(eq(ids), any(LocalDateTime.class));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> sentIds = ArgumentCaptor.forClass(Collection.class);
+        verify(emailNotificationRepository).markSent(sentIds.capture(), any(LocalDateTime.class));
+        assertThat(sentIds.getValue()).containsExactly(1L);
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailNotificationRepository).markFailed(eq(2L), eq("mailbox full"), nextAttempt.capture());
+        assertThat(nextAttempt.getValue()).isAfterOrEqualTo(before.plusSeconds(5));
+        verify(emailNotificationRepository).markFailed(eq(3L), eq("user unknown"), any(LocalDateTime.class));
+
+        verify(customMetrics).recordEmailOutboxMessages("sent", 1);
+        verify(customMetrics).recordEmailOutboxMessages("retry", 1);
+        verify(customMetrics).recordEmailOutboxMessages("dead_letter", 1);
+    }
+
+    @Test
+    @DisplayName("Should not contact the mail server when nothing is due")
+    void dispatchPending_NothingDue_SendsNothing() {
+        // Arrange
+        when(emailNotificationRepository.lockDueIds(any(LocalDateTime.class), anyInt())).thenReturn(List.of());
+
+        // Act
+        int sent = emailOutboxService.dispatchPending();
+
+        // Assert
+        assertThat(sent).isZero();
+        verify(mailSender, never()).send(any(MimeMessage[].class));
+        verify(emailNotificationRepository, never()).markSending(any(), any());
+    }
+
+    private EmailNotification email(Long id, String recipient, int attempts) {
+        EmailNotification email = new EmailNotification();
+        email.setId(id);
+        email.setEmailType(EmailType.NOTIFICATION);
+        email.setStatus(EmailStatus.SENDING);
+        email.setRecipientEmail(recipient);
+        email.setSubject("Subject");
+        email.setBodyText("Body");
+        email.setAttempts(attempts);
+        email.setMaxAttempts(3);
+        return email;
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.example.entity.EmailNotification;
+import org.example.enums.EmailStatus;
+import org.example.enums.EmailType;
+import org.example.metrics.CustomMetrics;
+import org.example.repository.EmailNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SMTP tests for EmailOutboxServiceImpl against an in-process GreenMail server
+ * Tests that a batch is delivered over one SMTP connection and that failed messages
+ * take the retry path while the rest of the batch is delivered
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailOutboxService SMTP Tests")
+class EmailOutboxSmtpIntegrationTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailNotificationRepository emailNotificationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CustomMetrics customMetrics;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private JavaMailSenderImpl mailSender;
+
+    private EmailOutboxServiceImpl emailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl() {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                connections.incrementAndGet();
+                return super.connectTransport();
+            }
+        };
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        emailOutboxService = new EmailOutboxServiceImpl(
+                emailNotificationRepository, mailSender, transactionManager, customMetrics);
+        ReflectionTestUtils.setField(emailOutboxService, "fromAddress", "noreply@example.com");
+        ReflectionTestUtils.setField(emailOutboxService, "fromName", "User Management System");
+        ReflectionTestUtils.setField(emailOutboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailOutboxService, "retryDelayMs", 5000L);
+        ReflectionTestUtils.setField(emailOutboxService, "batchSize", 50);
+        ReflectionTestUtils.setField(emailOutboxService, "maxBatchesPerRun", 20);
+        ReflectionTestUtils.setField(emailOutboxService, "claimTimeoutMs", 300000L);
+    }
+
+    @Test
+    @DisplayName("Should deliver a whole batch over one SMTP connection")
+    void dispatchPending_Batch_UsesOneConnection() throws Exception {
+        // Arrange
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(emailNotificationRepository.lockDueIds(any(LocalDateTime.class), eq(50))).thenReturn(ids);
+        when(emailNotificationRepository.findAllById(ids)).thenReturn(List.of(
+                email(1L, "alice@example.com", 1), email(2L, "bob@example.com", 1), email(3L, "carol@example.com", 1)));
+
+        // Act
+        int sent = emailOutboxService.dispatchPending();
+
+        // Assert
+        assertThat(sent).isEqualTo(3);
+        assertThat(connections).hasValue(1);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(3);
+        assertThat(Arrays.stream(received).map(message -> {
+            try {
+                return message.getAllRecipients()[0].toString();
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        })).containsExactlyInAnyOrder("alice@example.com", "bob@example.com", "carol@example.com");
+
+        verify(emailNotificationRepository).markSent(argThat(sentIds -> sentIds.containsAll(ids)), any(LocalDateTime.class));
+        verify(emailNotificationRepository, never()).markFailed(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should deliver the valid messages and retry the one that failed")
+    void dispatchPending_PartialFailure_RetriesFailedMessage() {
+        // Arrange
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(emailNotificationRepository.lockDueIds(any(LocalDateTime.class), eq(50))).thenReturn(ids);
+        when(emailNotificationRepository.findAllById(ids)).thenReturn(List.of(
+                email(1L, "alice@example.com", 1), email(2L, "not an address", 1), email(3L, "carol@example.com", 1)));
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        int sent = emailOutboxService.dispatchPending();
+
+        // Assert
+        assertThat(sent).isEqualTo(2);
+        assertThat(connections).hasValue(1);
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> sentIds = ArgumentCaptor.forClass(Collection.class);
+        verify(emailNotificationRepository).markSent(sentIds.capture(), any(LocalDateTime.class));
+        assertThat(sentIds.getValue()).containsExactly(1L, 3L);
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailNotificationRepository).markFailed(eq(2L), any(), nextAttempt.capture());
+        assertThat(nextAttempt.getValue()).isAfterOrEqualTo(before.plusSeconds(5));
+        verify(customMetrics).recordEmailOutboxMessages("retry", 1);
+    }
+
+    @Test
+    @DisplayName("Should put the whole batch back for retry when the SMTP server is unreachable")
+    void dispatchPending_ServerDown_RetriesBatch() throws Exception {
+        // Arrange
+        try (ServerSocket socket = new ServerSocket(0)) {
+            mailSender.setPort(socket.getLocalPort());
+        }
+        List<Long> ids = List.of(1L, 2L);
+        when(emailNotificationRepository.lockDueIds(any(LocalDateTime.class), eq(50))).thenReturn(ids);
+        when(emailNotificationRepository.findAllById(ids)).thenReturn(List.of(
+                email(1L, "alice@example.com", 1), email(2L, "bob@example.com", 3)));
+
+        // Act
+        int sent = emailOutboxService.dispatchPending();
+
+        // Assert
+        assertThat(sent).isZero();
+        verify(emailNotificationRepository, never()).markSent(any(), any());
+        verify(emailNotificationRepository).markFailed(eq(1L), any(), any(LocalDateTime.class));
+        verify(emailNotificationRepository).markFailed(eq(2L), any(), any(LocalDateTime.class));
+        verify(customMetrics).recordEmailOutboxMessages("retry", 1);
+        verify(customMetrics).recordEmailOutboxMessages("dead_letter", 1);
+    }
+
+    private EmailNotification email(Long id, String recipient, int attempts) {
+        EmailNotification email = new EmailNotification();
+        email.setId(id);
+        email.setEmailType(EmailType.NOTIFICATION);
+        email.setStatus(EmailStatus.SENDING);
+        email.setRecipientEmail(recipient);
+        email.setSubject("Subject");
+        email.setBodyText("Body");
+        email.setAttempts(attempts);
+        email.setMaxAttempts(3);
+        return email;
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for EmailTemplateRenderer
+ * Tests the Variables lookup order and that every email template renders the same as
+ * with a fresh Thymeleaf Context holding the same variables
+ */
+@DisplayName("EmailTemplateRenderer Tests")
+class EmailTemplateRendererTest {
+
+    private static final String APP_NAME = "User Management System";
+    private static final String SUPPORT_EMAIL = "noreply@example.com";
+    private static final String BASE_URL = "http://localhost:8080";
+
+    private SpringTemplateEngine templateEngine;
+
+    private EmailTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode("HTML");
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        renderer = new EmailTemplateRenderer(templateEngine, SUPPORT_EMAIL, APP_NAME, BASE_URL);
+        renderer.preloadTemplates();
+    }
+
+    @Nested
+    @DisplayName("Variables Tests")
+    class VariablesTests {
+
+        @Test
+        @DisplayName("Should include the shared variables and the current year")
+        void shouldIncludeSharedVariables() {
+            // Act
+            EmailTemplateRenderer.Variables variables = renderer.variables();
+
+            // Assert
+            assertThat(variables.getVariable("appName")).isEqualTo(APP_NAME);
+            assertThat(variables.getVariable("supportEmail")).isEqualTo(SUPPORT_EMAIL);
+            assertThat(variables.getVariable("loginUrl")).isEqualTo(BASE_URL + "/login");
+            assertThat(variables.getVariable("securityUrl")).isEqualTo(BASE_URL + "/security");
+            assertThat(variables.getVariable("year")).isEqualTo(Year.now().getValue());
+            assertThat(variables.getVariableNames())
+                    .containsExactlyInAnyOrder("appName", "supportEmail", "loginUrl", "securityUrl", "year");
+        }
+
+        @Test
+        @DisplayName("Should let a later value for the same name win")
+        void shouldLetLaterValueWin() {
+            // Act
+            EmailTemplateRenderer.Variables variables = renderer.variables()
+                    .with("username", "first")
+                    .withAll(Map.of("reason", "locked"))
+                    .with("username", "second");
+
+            // Assert
+            assertThat(variables.getVariable("username")).isEqualTo("second");
+            assertThat(variables.getVariable("reason")).isEqualTo("locked");
+            assertThat(variables.getVariableNames()).containsOnlyOnce("username");
+        }
+
+        @Test
+        @DisplayName("Should let per-email variables override shared ones for that email only")
+        void shouldOverrideSharedVariables() {
+            // Act
+            EmailTemplateRenderer.Variables overridden = renderer.variables().with("appName", "Other App");
+            EmailTemplateRenderer.Variables plain = renderer.variables();
+
+            // Assert
+            assertThat(overridden.getVariable("appName")).isEqualTo("Other App");
+            assertThat(plain.getVariable("appName")).isEqualTo(APP_NAME);
+            assertThat(renderer.render("welcome-email", overridden.with("username", "jdoe")))
+                    .contains("Other App")
+                    .doesNotContain(APP_NAME);
+        }
+
+        @Test
+        @DisplayName("Should grow past the initial capacity and report unknown names as missing")
+        void shouldGrowAndReportMissing() {
+            // Arrange
+            EmailTemplateRenderer.Variables variables = renderer.variables();
+
+            // Act
+            for (int i = 0; i < 20; i++) {
+                variables.with("v" + i, i);
+            }
+
+            // Assert
+            assertThat(variables.getVariable("v0")).isEqualTo(0);
+            assertThat(variables.getVariable("v19")).isEqualTo(19);
+            assertThat(variables.containsVariable("appName")).isTrue();
+            assertThat(variables.containsVariable("missing")).isFalse();
+            assertThat(variables.getVariable("missing")).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Rendering Tests")
+    class RenderingTests {
+
+        @Test
+        @DisplayName("Should render every email template exactly like a fresh Context")
+        void shouldMatchFreshContextForEveryTemplate() throws IOException {
+            // Arrange
+            Resource[] templates = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath:templates/*-email.html");
+            assertThat(templates).isNotEmpty();
+
+            Map<String, Object> recentEvents = new LinkedHashMap<>();
+            recentEvents.put("2026-01-01 12:00:00", "Failed login from 203.0.113.7");
+            recentEvents.put("2026-01-01 12:05:00", "Failed login from 203.0.113.8");
+
+            Map<String, Object> emailVariables = new LinkedHashMap<>();
+            emailVariables.put("username", "john.doe");
+            emailVariables.put("reason", "Too many failed login attempts");
+            emailVariables.put("ipAddress", "203.0.113.7");
+            emailVariables.put("location", "Unknown");
+            emailVariables.put("device", "Firefox on Linux");
+            emailVariables.put("timestamp", EmailTemplateRenderer.formatTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0)));
+            emailVariables.put("resetLink", BASE_URL + "/reset-password?token=abc");
+            emailVariables.put("expirationMinutes", 60);
+            emailVariables.put("eventDescription", "Failed login attempts");
+            emailVariables.put("count", 5);
+            emailVariables.put("firstAt", "2026-01-01 12:00:00");
+            emailVariables.put("lastAt", "2026-01-01 12:05:00");
+            emailVariables.put("recentEvents", recentEvents);
+
+            for (Resource template : templates) {
+                String filename = template.getFilename();
+                String templateName = filename.substring(0, filename.length() - ".html".length());
+
+                Context context = new Context();
+                context.setVariable("appName", APP_NAME);
+                context.setVariable("supportEmail", SUPPORT_EMAIL);
+                context.setVariable("loginUrl", BASE_URL + "/login");
+                context.setVariable("securityUrl", BASE_URL + "/security");
+                context.setVariable("year", Year.now().getValue());
+                context.setVariables(emailVariables);
+
+                // Act
+                String rendered = renderer.render(templateName, renderer.variables().withAll(emailVariables));
+
+                // Assert
+                assertThat(rendered)
+                        .as(templateName)
+                        .isEqualTo(templateEngine.process(templateName, context))
+                        .contains("john.doe");
+            }
+        }
+    }
+}
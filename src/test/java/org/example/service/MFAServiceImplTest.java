@@ -0,0 +1,304 @@
+package org.example.service;
+
+import org.example.cache.CacheEvictionPublisher;
+import org.example.cache.MFACredentialCache;
+import org.example.cache.TrustedDeviceCache;
+import org.example.cache.UserCacheInvalidator;
+import org.example.entity.MFABackupCode;
+import org.example.entity.MFASettings;
+import org.example.entity.User;
+import org.example.repository.MFABackupCodeRepository;
+import org.example.repository.MFASettingsRepository;
+import org.example.repository.TrustedDeviceRepository;
+import org.example.repository.UserRepository;
+import org.example.security.TotpVerifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MFAServiceImpl
+ * Tests backup code consumption and regeneration against an in-memory code table, and
+ * the batched write of trusted device uses
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MFAService Tests")
+class MFAServiceImplTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private MFASettingsRepository mfaSettingsRepository;
+
+    @Mock
+    private MFABackupCodeRepository backupCodeRepository;
+
+    @Mock
+    private TrustedDeviceRepository trustedDeviceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Mock
+    private TotpVerifier totpVerifier;
+
+    @Mock
+    private QRCodeService qrCodeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    private TrustedDeviceCache trustedDeviceCache;
+
+    private MFAServiceImpl mfaService;
+
+    private User user;
+
+    private MFASettings settings;
+
+    // Backup code table: code hash to whether the code was used
+    private final Map<ByteBuffer, Boolean> backupCodes = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        CacheEvictionPublisher evictionPublisher = new CacheEvictionPublisher(redisTemplateProvider, listenerContainerProvider);
+        trustedDeviceCache = new TrustedDeviceCache(evictionPublisher, 1000, 10);
+        mfaService = new MFAServiceImpl(mfaSettingsRepository, backupCodeRepository, trustedDeviceRepository,
+                userRepository, userCacheInvalidator, new MFACredentialCache(evictionPublisher, 1000, 30),
+                totpVerifier, qrCodeService, transactionManager, trustedDeviceCache, jdbcTemplate);
+        ReflectionTestUtils.setField(mfaService, "backupCodesCount", 10);
+
+        user = new User();
+        user.setId(USER_ID);
+        user.setUsername("testuser");
+
+        settings = new MFASettings();
+        settings.setUser(user);
+        settings.setSecret("JBSWY3DPEHPK3PXP");
+        settings.setIsVerified(true);
+    }
+
+    private void useBackupCodeTable() {
+        when(mfaSettingsRepository.findByUser(user)).thenReturn(Optional.of(settings));
+        when(mfaSettingsRepository.findByUserId(USER_ID)).thenReturn(Optional.of(settings));
+        when(backupCodeRepository.deleteByUserId(USER_ID)).thenAnswer(invocation -> {
+            int deleted = backupCodes.size();
+            backupCodes.clear();
+            return deleted;
+        });
+        when(backupCodeRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<MFABackupCode> rows = invocation.getArgument(0);
+            rows.forEach(row -> backupCodes.put(ByteBuffer.wrap(row.getCodeHash()), false));
+            return rows;
+        });
+        lenient().when(backupCodeRepository.findUnusedHashesByUserId(USER_ID)).thenAnswer(invocation ->
+                backupCodes.entrySet().stream()
+                        .filter(entry -> !entry.getValue())
+                        .map(entry -> entry.getKey().array())
+                        .toList());
+        lenient().when(backupCodeRepository.consume(eq(USER_ID), any(byte[].class))).thenAnswer(invocation -> {
+            ByteBuffer hash = ByteBuffer.wrap(invocation.getArgument(1));
+            return backupCodes.replace(hash, false, true) ? 1 : 0;
+        });
+    }
+
+    @Nested
+    @DisplayName("Backup Code Tests")
+    class BackupCodeTests {
+
+        @Test
+        @DisplayName("Should accept a backup code once and reject its second use")
+        void shouldConsumeBackupCodeOnce() {
+            // Arrange
+            useBackupCodeTable();
+            String[] codes = mfaService.regenerateBackupCodes(user);
+
+            // Act
+            boolean firstUse = mfaService.verifyAndUseBackupCode(user, codes[0]);
+            boolean secondUse = mfaService.verifyAndUseBackupCode(user, codes[0]);
+
+            // Assert
+            assertThat(firstUse).isTrue();
+            assertThat(secondUse).isFalse();
+            assertThat(backupCodes.values()).containsOnlyOnce(true);
+            assertThat(mfaService.verifyAndUseBackupCode(user, codes[1])).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should accept a backup code regardless of case")
+        void shouldAcceptLowercaseBackupCode() {
+            // Arrange
+            useBackupCodeTable();
+            String[] codes = mfaService.regenerateBackupCodes(user);
+
+            // Act & Assert
+            assertThat(mfaService.verifyAndUseBackupCode(user, codes[0].toLowerCase())).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should reject a wrong code without touching the code table")
+        void shouldRejectWrongBackupCode() {
+            // Arrange
+            useBackupCodeTable();
+            String[] codes = mfaService.regenerateBackupCodes(user);
+            String wrongCode = codes[0].startsWith("A") ? "B" + codes[0].substring(1) : "A" + codes[0].substring(1);
+
+            // Act
+            boolean verified = mfaService.verifyAndUseBackupCode(user, wrongCode);
+
+            // Assert
+            assertThat(verified).isFalse();
+            verify(backupCodeRepository, never()).consume(anyLong(), any(byte[].class));
+            assertThat(backupCodes.values()).containsOnly(false);
+        }
+
+        @Test
+        @DisplayName("Should reject a code consumed concurrently after the hashes were cached")
+        void shouldRejectCodeConsumedConcurrently() {
+            // Arrange
+            useBackupCodeTable();
+            String[] codes = mfaService.regenerateBackupCodes(user);
+            mfaService.verifyAndUseBackupCode(user, "ZZZZZZZZ");
+            backupCodes.replaceAll((hash, used) -> true);
+
+            // Act
+            boolean verified = mfaService.verifyAndUseBackupCode(user, codes[0]);
+
+            // Assert
+            assertThat(verified).isFalse();
+            verify(backupCodeRepository).consume(eq(USER_ID), any(byte[].class));
+        }
+
+        @Test
+        @DisplayName("Should replace the salt and every code on regeneration")
+        void shouldReplaceSaltAndCodesOnRegeneration() {
+            // Arrange
+            useBackupCodeTable();
+            String[] oldCodes = mfaService.regenerateBackupCodes(user);
+            byte[] oldSalt = settings.getBackupCodeSalt().clone();
+            List<ByteBuffer> oldHashes = List.copyOf(backupCodes.keySet());
+            mfaService.verifyAndUseBackupCode(user, oldCodes[0]);
+
+            // Act
+            String[] newCodes = mfaService.regenerateBackupCodes(user);
+
+            // Assert
+            assertThat(newCodes).hasSize(10).doesNotContainAnyElementsOf(List.of(oldCodes));
+            assertThat(newCodes).allMatch(code -> code.matches("^[A-Z0-9]{8}$"));
+            assertThat(settings.getBackupCodeSalt()).hasSize(16).isNotEqualTo(oldSalt);
+            assertThat(backupCodes).hasSize(10).doesNotContainKeys(oldHashes.toArray(ByteBuffer[]::new));
+            assertThat(backupCodes.values()).containsOnly(false);
+            verify(mfaSettingsRepository, times(2)).save(settings);
+
+            assertThat(mfaService.verifyAndUseBackupCode(user, oldCodes[1])).isFalse();
+            assertThat(mfaService.verifyAndUseBackupCode(user, newCodes[0])).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should fail regeneration when MFA is not set up")
+        void shouldFailRegenerationWithoutSettings() {
+            // Arrange
+            when(mfaSettingsRepository.findByUser(user)).thenReturn(Optional.empty());
+
+            // Act & Assert
+            assertThatThrownBy(() -> mfaService.regenerateBackupCodes(user))
+                    .isInstanceOf(IllegalStateException.class);
+            verifyNoInteractions(backupCodeRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Trusted Device Usage Tests")
+    class DeviceUsageTests {
+
+        @Test
+        @DisplayName("Should write the latest use per device in one batch that never moves last_used_at back")
+        @SuppressWarnings("unchecked")
+        void shouldFlushLatestUsesMonotonically() throws SQLException {
+            // Arrange
+            LocalDateTime earlier = LocalDateTime.of(2026, 1, 1, 12, 0);
+            LocalDateTime later = earlier.plusMinutes(5);
+            trustedDeviceCache.recordUse(USER_ID, "laptop", later);
+            trustedDeviceCache.recordUse(USER_ID, "laptop", earlier);
+
+            // Act
+            int flushed = mfaService.flushDeviceUsage();
+
+            // Assert
+            assertThat(flushed).isEqualTo(1);
+            ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+            ArgumentCaptor<Collection<Map.Entry<TrustedDeviceCache.DeviceUse, LocalDateTime>>> uses =
+                    ArgumentCaptor.forClass(Collection.class);
+            ArgumentCaptor<ParameterizedPreparedStatementSetter<Map.Entry<TrustedDeviceCache.DeviceUse, LocalDateTime>>> setter =
+                    ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+            verify(jdbcTemplate).batchUpdate(sql.capture(), uses.capture(), eq(1), setter.capture());
+
+            // Only an older (or missing) last_used_at is replaced, so a delayed flush cannot move it back
+            assertThat(sql.getValue()).contains("SET last_used_at = ?")
+                    .contains("AND (last_used_at IS NULL OR last_used_at < ?)");
+
+            PreparedStatement ps = mock(PreparedStatement.class);
+            setter.getValue().setValues(ps, uses.getValue().iterator().next());
+            verify(ps).setTimestamp(1, Timestamp.valueOf(later));
+            verify(ps).setLong(2, USER_ID);
+            verify(ps).setString(3, "laptop");
+            verify(ps).setTimestamp(4, Timestamp.valueOf(later));
+
+            assertThat(mfaService.flushDeviceUsage()).isZero();
+            verifyNoMoreInteractions(jdbcTemplate);
+        }
+
+        @Test
+        @DisplayName("Should record device uses without touching the database until the flush")
+        void shouldDeferDeviceUseWrites() {
+            // Act
+            mfaService.updateDeviceLastUsed(user, "laptop");
+            mfaService.updateDeviceLastUsed(user, "phone");
+
+            // Assert
+            verifyNoInteractions(jdbcTemplate, trustedDeviceRepository);
+            assertThat(trustedDeviceCache.drainUses())
+                    .extracting(use -> use.getKey().deviceIdentifier())
+                    .containsExactlyInAnyOrder("laptop", "phone");
+        }
+    }
+}
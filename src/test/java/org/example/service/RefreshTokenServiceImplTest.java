@@ -0,0 +1,216 @@
+package org.example.service;
+
+import org.example.cache.RevokedRefreshTokenSet;
+import org.example.dto.LoginResponse;
+import org.example.dto.RefreshTokenClaims;
+import org.example.entity.RefreshToken;
+import org.example.entity.RefreshTokenFamily;
+import org.example.entity.Role;
+import org.example.logging.SecurityAuditLogger;
+import org.example.repository.RefreshTokenFamilyRepository;
+import org.example.repository.RefreshTokenRepository;
+import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RefreshTokenServiceImpl
+ * Tests rotation within a token family and the reuse, race and revocation paths
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenService Tests")
+class RefreshTokenServiceImplTest {
+
+    private static final Long TOKEN_ID = 10L;
+    private static final Long FAMILY_ID = 20L;
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private RefreshTokenFamilyRepository familyRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private RevokedRefreshTokenSet revokedTokens;
+
+    @Mock
+    private SecurityAuditLogger securityAuditLogger;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenDurationMs", 604800000L);
+        ReflectionTestUtils.setField(refreshTokenService, "maxActiveTokensPerUser", 5);
+    }
+
+    private static RefreshTokenClaims claims(int generation, Integer familyGeneration, LocalDateTime familyRevokedAt) {
+        return new RefreshTokenClaims(TOKEN_ID, LocalDateTime.now().plusDays(1), null, generation,
+                FAMILY_ID, familyGeneration, familyRevokedAt, USER_ID, "testuser", "test@test.com", Role.ROLE_USER);
+    }
+
+    @Nested
+    @DisplayName("Token Rotation Tests")
+    class RotationTests {
+
+        @Test
+        @DisplayName("Should advance the family and issue the next generation")
+        void shouldRotateWithinFamily() {
+            // Arrange
+            when(refreshTokenRepository.findClaimsByTokenHash(any())).thenReturn(Optional.of(claims(2, 2, null)));
+            when(familyRepository.advanceGeneration(FAMILY_ID, 2)).thenReturn(1);
+            when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(refreshTokenRepository.revokeIfActive(eq(TOKEN_ID), any())).thenReturn(1);
+            when(userService.generateAuthToken(any(AuthenticatedUser.class), eq(FAMILY_ID))).thenReturn("access-token");
+
+            // Act
+            LoginResponse response = refreshTokenService.refreshAccessToken("presented-token", null);
+
+            // Assert
+            ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+            verify(refreshTokenRepository).save(saved.capture());
+            assertThat(saved.getValue().getFamilyId()).isEqualTo(FAMILY_ID);
+            assertThat(saved.getValue().getGeneration()).isEqualTo(3);
+            verify(refreshTokenRepository).revokeIfActive(TOKEN_ID, saved.getValue().getTokenHash());
+
+            assertThat(response.getToken()).isEqualTo("access-token");
+            assertThat(response.getRefreshToken()).isNotBlank().isNotEqualTo("presented-token");
+            assertThat(response.getUsername()).isEqualTo("testuser");
+            verify(familyRepository, never()).revoke(anyLong(), anyString());
+            verifyNoInteractions(transactionManager);
+        }
+    }
+
+    @Nested
+    @DisplayName("Token Reuse Tests")
+    class ReuseTests {
+
+        @Test
+        @DisplayName("Should revoke the family in a new transaction when a rotated token is reused")
+        void shouldRevokeFamilyOnReuse() {
+            // Arrange
+            when(refreshTokenRepository.findClaimsByTokenHash(any())).thenReturn(Optional.of(claims(1, 3, null)));
+
+            // Act & Assert
+            assertThatThrownBy(() -> refreshTokenService.refreshAccessToken("rotated-token", null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("revoked");
+
+            InOrder inOrder = inOrder(transactionManager, familyRepository);
+            inOrder.verify(transactionManager).getTransaction(argThat(definition ->
+                    definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+            inOrder.verify(familyRepository).revoke(FAMILY_ID, RefreshTokenFamily.REASON_REUSE_DETECTED);
+            inOrder.verify(transactionManager).commit(any());
+
+            verify(revokedTokens).markFamilyRevoked(FAMILY_ID);
+            verify(revokedTokens).remember(any());
+            verify(securityAuditLogger).logSuspiciousActivity(eq("testuser"), eq("REFRESH_TOKEN_REUSE"), anyString(), any());
+            verify(familyRepository, never()).advanceGeneration(anyLong(), anyInt());
+            verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        }
+
+        @Test
+        @DisplayName("Should revoke the family when a concurrent request rotated it first")
+        void shouldRevokeFamilyWhenRotationRaceIsLost() {
+            // Arrange
+            when(refreshTokenRepository.findClaimsByTokenHash(any())).thenReturn(Optional.of(claims(2, 2, null)));
+            when(familyRepository.advanceGeneration(FAMILY_ID, 2)).thenReturn(0);
+
+            // Act & Assert
+            assertThatThrownBy(() -> refreshTokenService.refreshAccessToken("presented-token", null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("revoked");
+
+            verify(transactionManager).getTransaction(argThat(definition ->
+                    definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+            verify(familyRepository).revoke(FAMILY_ID, RefreshTokenFamily.REASON_REUSE_DETECTED);
+            verify(revokedTokens).markFamilyRevoked(FAMILY_ID);
+            verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+            verify(userService, never()).generateAuthToken(any(AuthenticatedUser.class), any());
+        }
+
+        @Test
+        @DisplayName("Should fail without an access token when the old token was revoked concurrently")
+        void shouldFailWhenTokenRevokedConcurrently() {
+            // Arrange
+            when(refreshTokenRepository.findClaimsByTokenHash(any())).thenReturn(Optional.of(claims(2, 2, null)));
+            when(familyRepository.advanceGeneration(FAMILY_ID, 2)).thenReturn(1);
+            when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(refreshTokenRepository.revokeIfActive(eq(TOKEN_ID), any())).thenReturn(0);
+
+            // Act & Assert
+            assertThatThrownBy(() -> refreshTokenService.refreshAccessToken("presented-token", null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("revoked");
+
+            verify(userService, never()).generateAuthToken(any(AuthenticatedUser.class), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Revoked Token Tests")
+    class RevokedTests {
+
+        @Test
+        @DisplayName("Should reject a token of a revoked family without revoking it again")
+        void shouldRejectTokenOfRevokedFamily() {
+            // Arrange
+            when(refreshTokenRepository.findClaimsByTokenHash(any()))
+                    .thenReturn(Optional.of(claims(2, 2, LocalDateTime.now().minusMinutes(1))));
+
+            // Act & Assert
+            assertThatThrownBy(() -> refreshTokenService.refreshAccessToken("presented-token", null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("revoked");
+
+            verify(revokedTokens).remember(any());
+            verify(familyRepository, never()).revoke(anyLong(), anyString());
+            verify(familyRepository, never()).advanceGeneration(anyLong(), anyInt());
+            verifyNoInteractions(transactionManager, securityAuditLogger);
+        }
+
+        @Test
+        @DisplayName("Should reject a recently revoked token without querying the database")
+        void shouldRejectRecentlyRevokedTokenFromMemory() {
+            // Arrange
+            when(revokedTokens.isRevoked(any())).thenReturn(true);
+
+            // Act & Assert
+            assertThatThrownBy(() -> refreshTokenService.refreshAccessToken("presented-token", null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("revoked");
+
+            verifyNoInteractions(refreshTokenRepository, familyRepository);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.UserImportRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for UserImportReader
+ * Tests CSV quoting, header mapping, blank lines and per-line errors for both formats
+ */
+@DisplayName("UserImportReader Tests")
+class UserImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private List<UserImportReader.Entry> readAll(String content, UserImportService.Format format) throws IOException {
+        Path file = tempDir.resolve("import.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        List<UserImportReader.Entry> entries = new ArrayList<>();
+        try (UserImportReader reader = UserImportReader.open(file, format, objectMapper)) {
+            UserImportReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    @Nested
+    @DisplayName("CSV Field Parsing Tests")
+    class CsvFieldTests {
+
+        @Test
+        @DisplayName("Should keep commas inside quoted fields")
+        void shouldKeepQuotedCommas() {
+            // Act
+            List<String> fields = UserImportReader.parseCsvLine("jdoe,\"Doe, John\",x");
+
+            // Assert
+            assertThat(fields).containsExactly("jdoe", "Doe, John", "x");
+        }
+
+        @Test
+        @DisplayName("Should unescape doubled quotes inside quoted fields")
+        void shouldUnescapeDoubledQuotes() {
+            // Act
+            List<String> fields = UserImportReader.parseCsvLine("\"say \"\"hi\"\"\",\"\"\"\"");
+
+            // Assert
+            assertThat(fields).containsExactly("say \"hi\"", "\"");
+        }
+
+        @Test
+        @DisplayName("Should keep empty and trailing fields")
+        void shouldKeepEmptyFields() {
+            // Act
+            List<String> fields = UserImportReader.parseCsvLine("a,,\"\",");
+
+            // Assert
+            assertThat(fields).containsExactly("a", "", "", "");
+        }
+
+        @Test
+        @DisplayName("Should reject an unterminated quoted field")
+        void shouldRejectUnterminatedQuote() {
+            // Act & Assert
+            assertThatThrownBy(() -> UserImportReader.parseCsvLine("jdoe,\"open"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Unterminated quoted field");
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV Header Tests")
+    class CsvHeaderTests {
+
+        @Test
+        @DisplayName("Should map reordered, differently cased and snake_case columns")
+        void shouldMapHeaderColumns() throws IOException {
+            // Arrange
+            String csv = "Role, EMAIL ,password_hash,UserName\n"
+                    + "ROLE_ADMIN,jdoe@example.com,$2a$10$hash,jdoe\n";
+
+            // Act
+            List<UserImportReader.Entry> entries = readAll(csv, UserImportService.Format.CSV);
+
+            // Assert
+            assertThat(entries).hasSize(1);
+            UserImportRow row = entries.get(0).row();
+            assertThat(row.getUsername()).isEqualTo("jdoe");
+            assertThat(row.getEmail()).isEqualTo("jdoe@example.com");
+            assertThat(row.getPasswordHash()).isEqualTo("$2a$10$hash");
+            assertThat(row.getPassword()).isNull();
+            assertThat(row.getRole()).isEqualTo("ROLE_ADMIN");
+        }
+
+        @Test
+        @DisplayName("Should strip a UTF-8 byte order mark from the header")
+        void shouldStripByteOrderMark() throws IOException {
+            // Arrange
+            String csv = "\uFEFFusername,email,password\njdoe,jdoe@example.com,Secret123\n";
+
+            // Act
+            List<UserImportReader.Entry> entries = readAll(csv, UserImportService.Format.CSV);
+
+            // Assert
+            assertThat(entries).hasSize(1);
+            assertThat(entries.get(0).error()).isNull();
+            assertThat(entries.get(0).row().getUsername()).isEqualTo("jdoe");
+        }
+
+        @Test
+        @DisplayName("Should reject a header without a password column")
+        void shouldRejectHeaderWithoutPasswordColumn() {
+            // Act & Assert
+            assertThatThrownBy(() -> readAll("username,email,role\n", UserImportService.Format.CSV))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("CSV header must contain");
+        }
+
+        @Test
+        @DisplayName("Should reject an empty file")
+        void shouldRejectEmptyFile() {
+            // Act & Assert
+            assertThatThrownBy(() -> readAll("", UserImportService.Format.CSV))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("CSV file is empty");
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV Row Tests")
+    class CsvRowTests {
+
+        @Test
+        @DisplayName("Should skip blank lines and report file line numbers")
+        void shouldSkipBlankLines() throws IOException {
+            // Arrange
+            String csv = "username,email,password\n"
+                    + "\n"
+                    + "alice,alice@example.com,Secret123\n"
+                    + "   \n"
+                    + "bob,bob@example.com,Secret123\n"
+                    + "\n";
+
+            // Act
+            List<UserImportReader.Entry> entries = readAll(csv, UserImportService.Format.CSV);
+
+            // Assert
+            assertThat(entries).extracting(UserImportReader.Entry::line).containsExactly(3L, 5L);
+            assertThat(entries).extracting(entry -> entry.row().getUsername()).containsExactly("alice", "bob");
+        }
+
+        @Test
+        @DisplayName("Should map quoted fields and treat empty fields as missing")
+        void shouldMapQuotedAndEmptyFields() throws IOException {
+            // Arrange
+            String csv = "username,email,password,role\n"
+                    + "jdoe,\"jdoe@example.com\",\"Se,cr\"\"et1A\",\n";
+
+            // Act
+            List<UserImportReader.Entry> entries = readAll(csv, UserImportService.Format.CSV);
+
+            // Assert
+            UserImportRow row = entries.get(0).row();
+            assertThat(row.getEmail()).isEqualTo("jdoe@example.com");
+            assertThat(row.getPassword()).isEqualTo("Se,cr\"et1A");
+            assertThat(row.getRole()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should return malformed lines as error entries and keep reading")
+        void shouldReturnErrorEntries() throws IOException {
+            // Arrange
+            String csv = "username,email,password\n"
+                    + "jdoe,\"unterminated,Secret123\n"
+                    + "a,b,c,d\n"
+                    + "alice,alice@example.com,Secret123\n";
+
+            // Act
+            List<UserImportReader.Entry> entries = readAll(csv, UserImportService.Format.CSV);
+
+            // Assert
+            assertThat(entries).hasSize(3);
+            assertThat(entries.get(0).line()).isEqualTo(2);
+            assertThat(entries.get(0).row()).isNull();
+            assertThat(entries.get(0).error()).isEqualTo("Unterminated quoted field");
+            assertThat(entries.get(1).error()).isEqualTo("Expected at most 3 fields, found 4");
+            assertThat(entries.get(2).error()).isNull();
+            assertThat(entries.get(2).row().getUsername()).isEqualTo("alice");
+        }
+    }
+
+    @Nested
+    @DisplayName("NDJSON Tests")
+    class NdjsonTests {
+
+        @Test
+        @DisplayName("Should read one object per line, skipping blank lines and reporting malformed ones")
+        void shouldReadNdjson() throws IOException {
+            // Arrange
+            String ndjson = "{\"username\":\"jdoe\",\"email\":\"jdoe@example.com\",\"password\":\"Secret123\",\"extra\":1}\n"
+                    + "\n"
+                    + "{\"username\":\n";
+
+            // Act
+            List<UserImportReader.Entry> entries = readAll(ndjson, UserImportService.Format.NDJSON);
+
+            // Assert
+            assertThat(entries).hasSize(2);
+            assertThat(entries.get(0).line()).isEqualTo(1);
+            assertThat(entries.get(0).row().getUsername()).isEqualTo("jdoe");
+            assertThat(entries.get(1).line()).isEqualTo(3);
+            assertThat(entries.get(1).error()).startsWith("Malformed JSON: ");
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.dto.UserImportJobStatus;
+import org.example.entity.Role;
+import org.example.metrics.CustomMetrics;
+import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserImportServiceImpl
+ * Tests duplicate detection within the file and against the database, and the
+ * per-row fallback when a batch insert fails
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserImportService Tests")
+class UserImportServiceImplTest {
+
+    private static final String HEADER = "username,email,password\n";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private CustomMetrics customMetrics;
+
+    private final AuthenticatedUser admin =
+            new AuthenticatedUser(1L, "admin", "admin@example.com", "hash", Role.ROLE_ADMIN);
+
+    private UserImportServiceImpl userImportService;
+
+    @BeforeEach
+    void setUp() {
+        // Jobs run on the calling thread, so the returned status is final
+        userImportService = new UserImportServiceImpl(userRepository, jdbcTemplate, passwordEncoder,
+                transactionManager, entityManagerFactory, new ObjectMapper(), auditLogService, customMetrics,
+                Runnable::run);
+        ReflectionTestUtils.setField(userImportService, "batchSize", 1000);
+        ReflectionTestUtils.setField(userImportService, "hashParallelism", 1);
+        ReflectionTestUtils.setField(userImportService, "maxReportedErrors", 1000);
+        userImportService.startHashPool();
+
+        lenient().when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        lenient().when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        lenient().when(sessionFactory.getCache()).thenReturn(cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.stopHashPool();
+    }
+
+    private UserImportJobStatus runImport(String csv) throws IOException {
+        UserImportJobStatus started = userImportService.startImport(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV, admin);
+        return userImportService.getJobStatus(started.getJobId()).orElseThrow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> captureBatch() {
+        ArgumentCaptor<Collection<Object>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        return batch.getValue();
+    }
+
+    @Nested
+    @DisplayName("Duplicate Detection Tests")
+    class DuplicateTests {
+
+        @Test
+        @DisplayName("Should reject duplicates within the file and against the database")
+        void shouldRejectDuplicates() throws IOException {
+            // Arrange
+            String csv = HEADER
+                    + "alice,alice@example.com,Secret123\n"
+                    + "alice,other@example.com,Secret123\n"
+                    + "bob,alice@example.com,Secret123\n"
+                    + "carol,carol@example.com,Secret123\n"
+                    + "dave,taken@example.com,Secret123\n"
+                    + "erin,erin@example.com,Secret123\n";
+            when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("carol"));
+            when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+
+            // Act
+            UserImportJobStatus status = runImport(csv);
+
+            // Assert
+            assertThat(status.getState()).isEqualTo(UserImportJobStatus.State.COMPLETED);
+            assertThat(status.getRowsRead()).isEqualTo(6);
+            assertThat(status.getImported()).isEqualTo(2);
+            assertThat(status.getRejected()).isEqualTo(4);
+            assertThat(status.getErrors()).extracting(UserImportJobStatus.RowError::getLine,
+                            UserImportJobStatus.RowError::getUsername, UserImportJobStatus.RowError::getMessage)
+                    .containsExactly(
+                            tuple(3L, "alice", "Duplicate username in import file"),
+                            tuple(4L, "bob", "Duplicate email in import file"),
+                            tuple(5L, "carol", "Username already exists"),
+                            tuple(6L, "dave", "Email already exists"));
+
+            // One lookup per batch, each name and address only once
+            verify(userRepository).findExistingUsernames(argThat(names ->
+                    names.size() == 5 && names.containsAll(List.of("alice", "bob", "carol", "dave", "erin"))));
+            verify(userRepository).findExistingEmails(argThat(emails -> emails.size() == 4));
+            assertThat(captureBatch()).hasSize(2);
+            verify(jdbcTemplate, never()).update(anyString(), any(), any(), any(), any(), any(), any());
+            verify(cache).evictDefaultQueryRegion();
+        }
+
+        @Test
+        @DisplayName("Should skip the insert when every row is a duplicate")
+        void shouldSkipInsertWhenAllRowsExist() throws IOException {
+            // Arrange
+            when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("alice"));
+
+            // Act
+            UserImportJobStatus status = runImport(HEADER + "alice,alice@example.com,Secret123\n");
+
+            // Assert
+            assertThat(status.getImported()).isZero();
+            assertThat(status.getRejected()).isEqualTo(1);
+            verifyNoInteractions(jdbcTemplate, passwordEncoder, entityManagerFactory);
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Insert Fallback Tests")
+    class FallbackTests {
+
+        @Test
+        @DisplayName("Should retry rows one by one when the batch insert fails")
+        void shouldRetryRowsIndividually() throws IOException {
+            // Arrange
+            String csv = HEADER
+                    + "alice,alice@example.com,Secret123\n"
+                    + "bob,bob@example.com,Secret123\n"
+                    + "carol,carol@example.com,Secret123\n";
+            when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                    .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+            when(jdbcTemplate.update(anyString(), any(), any(), any(), any(), any(), any()))
+                    .thenAnswer(invocation -> switch ((String) invocation.getArgument(1)) {
+                        case "bob" -> throw new DuplicateKeyException("duplicate key value violates unique constraint");
+                        case "carol" -> throw new DataIntegrityViolationException("check constraint violated");
+                        default -> 1;
+                    });
+
+            // Act
+            UserImportJobStatus status = runImport(csv);
+
+            // Assert
+            assertThat(status.getState()).isEqualTo(UserImportJobStatus.State.COMPLETED);
+            assertThat(status.getImported()).isEqualTo(1);
+            assertThat(status.getRejected()).isEqualTo(2);
+            assertThat(status.getErrors()).extracting(UserImportJobStatus.RowError::getUsername,
+                            UserImportJobStatus.RowError::getMessage)
+                    .containsExactly(
+                            tuple("bob", "Username or email already exists"),
+                            tuple("carol", "Rejected by database: check constraint violated"));
+
+            verify(transactionManager).rollback(any());
+            verify(jdbcTemplate, times(3)).update(anyString(), any(), any(), any(), any(), any(), any());
+            verify(jdbcTemplate).update(anyString(), eq("alice"), eq("alice@example.com"), eq("hashed"),
+                    eq("ROLE_USER"), any(), any());
+            verify(customMetrics).recordUserImportRows("imported", 1);
+        }
+
+        @Test
+        @DisplayName("Should insert the whole batch at once when nothing conflicts")
+        void shouldInsertBatch() throws IOException {
+            // Arrange
+            String csv = HEADER
+                    + "alice,alice@example.com,Secret123\n"
+                    + "bob,bob@example.com,Secret123\n";
+
+            // Act
+            UserImportJobStatus status = runImport(csv);
+
+            // Assert
+            assertThat(status.getImported()).isEqualTo(2);
+            assertThat(status.getRejected()).isZero();
+            assertThat(captureBatch()).hasSize(2);
+            verify(transactionManager).commit(any());
+            verify(jdbcTemplate, never()).update(anyString(), any(), any(), any(), any(), any(), any());
+            verify(customMetrics).recordUserImportRows("imported", 2);
+        }
+    }
+}
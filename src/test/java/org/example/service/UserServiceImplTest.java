@@ -2,8 +2,12 @@ package org.example.service;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.example.TestDataBuilder;
+import org.example.cache.UserIdentifierBloomFilter;
+import org.example.dto.CursorPageResponse;
 import org.example.dto.LoginRequest;
 import org.example.dto.LoginResponse;
+import org.example.dto.UserResponse;
+import org.example.dto.UserResponseView;
 import org.example.dto.UserUpdateRequest;
 import org.example.entity.Role;
 import org.example.entity.User;
@@ -12,7 +16,9 @@ import org.example.exception.UnauthorizedException;
 import org.example.exception.UserAlreadyExistsException;
 import org.example.exception.UserNotFoundException;
 import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
 import org.example.security.JwtUtil;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -21,12 +27,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -58,6 +69,12 @@ class UserServiceImplTest {
     @Mock
     private HttpServletRequest httpRequest;
 
+    @Mock
+    private UserIdentifierBloomFilter userIdentifierBloomFilter;
+
+    @Mock
+    private AccountLockService accountLockService;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -66,7 +83,7 @@ class UserServiceImplTest {
     class RegistrationTests {
 
         @Test
-        @DisplayName("Should register user successfully")
+        @DisplayName("Should register user with a single insert")
         void shouldRegisterUserSuccessfully() {
             // Arrange
             String username = "newuser";
@@ -74,57 +91,79 @@ class UserServiceImplTest {
             String password = "Test@1234";
             String encodedPassword = "encoded_password";
 
-            when(userRepository.existsByUsername(username)).thenReturn(false);
-            when(userRepository.existsByEmail(email)).thenReturn(false);
             when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
-            when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
             // Act
             userService.registerUser(username, email, password);
 
             // Assert
-            verify(userRepository).existsByUsername(username);
-            verify(userRepository).existsByEmail(email);
+            verify(userRepository, never()).existsByUsername(anyString());
+            verify(userRepository, never()).existsByEmail(anyString());
             verify(passwordEncoder).encode(password);
-            verify(userRepository).save(argThat(user ->
+            verify(userRepository).saveAndFlush(argThat(user ->
                     user.getUsername().equals(username) &&
                     user.getEmail().equals(email) &&
                     user.getPasswordHash().equals(encodedPassword) &&
                     user.getRole() == Role.ROLE_USER
             ));
+            verify(userIdentifierBloomFilter).add(username, email);
         }
 
         @Test
-        @DisplayName("Should throw exception when username already exists")
+        @DisplayName("Should throw exception when username unique constraint is violated")
         void shouldThrowExceptionWhenUsernameExists() {
             // Arrange
             String username = "existinguser";
-            when(userRepository.existsByUsername(username)).thenReturn(true);
+            when(passwordEncoder.encode(anyString())).thenReturn("encoded_password");
+            when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation(
+                    "users_username_key", "duplicate key value violates unique constraint \"users_username_key\""));
 
             // Act & Assert
             assertThatThrownBy(() -> userService.registerUser(username, "test@test.com", "password"))
                     .isInstanceOf(UserAlreadyExistsException.class)
                     .hasMessageContaining("Username already exists");
 
-            verify(userRepository).existsByUsername(username);
-            verify(userRepository, never()).save(any());
+            verify(userIdentifierBloomFilter, never()).add(anyString(), anyString());
         }
 
         @Test
-        @DisplayName("Should throw exception when email already exists")
+        @DisplayName("Should throw exception when email unique constraint is violated")
         void shouldThrowExceptionWhenEmailExists() {
             // Arrange
             String email = "existing@test.com";
-            when(userRepository.existsByUsername(anyString())).thenReturn(false);
-            when(userRepository.existsByEmail(email)).thenReturn(true);
+            when(passwordEncoder.encode(anyString())).thenReturn("encoded_password");
+            when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation(
+                    null, "Unique index or primary key violation: \"PUBLIC.CONSTRAINT_INDEX_4 ON PUBLIC.USERS(EMAIL NULLS FIRST)\""));
 
             // Act & Assert
             assertThatThrownBy(() -> userService.registerUser("newuser", email, "password"))
                     .isInstanceOf(UserAlreadyExistsException.class)
                     .hasMessageContaining("Email already exists");
+        }
 
-            verify(userRepository).existsByEmail(email);
-            verify(userRepository, never()).save(any());
+        @Test
+        @DisplayName("Should reject duplicate before hashing when Bloom filter hit is confirmed")
+        void shouldRejectDuplicateFromBloomFilterBeforeHashing() {
+            // Arrange
+            String username = "existinguser";
+            when(userIdentifierBloomFilter.isActive()).thenReturn(true);
+            when(userIdentifierBloomFilter.mightContainUsername(username)).thenReturn(true);
+            when(userRepository.existsByUsername(username)).thenReturn(true);
+
+            // Act & Assert
+            assertThatThrownBy(() -> userService.registerUser(username, "test@test.com", "password"))
+                    .isInstanceOf(UserAlreadyExistsException.class)
+                    .hasMessageContaining("Username already exists");
+
+            verify(passwordEncoder, never()).encode(anyString());
+            verify(userRepository, never()).saveAndFlush(any());
+        }
+
+        private DataIntegrityViolationException uniqueViolation(String constraintName, String message) {
+            SQLException sqlException = new SQLException(message, "23505");
+            return new DataIntegrityViolationException("could not execute statement",
+                    new ConstraintViolationException("could not execute statement", sqlException, constraintName));
         }
     }
 
@@ -145,12 +184,13 @@ class UserServiceImplTest {
             request.setUsername(username);
             request.setPassword(password);
 
-            Authentication authentication = mock(Authentication.class);
+            AuthenticatedUser principal = AuthenticatedUser.from(user);
+            Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                    principal, null, principal.getAuthorities());
 
             when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                     .thenReturn(authentication);
-            when(jwtUtil.generateToken(authentication)).thenReturn(token);
-            when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+            when(jwtUtil.generateToken(any(Authentication.class), isNull())).thenReturn(token);
 
             // Act
             LoginResponse response = userService.authenticateUser(request, httpRequest);
@@ -164,7 +204,9 @@ class UserServiceImplTest {
             assertThat(response.getRole()).isEqualTo(user.getRole());
 
             verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-            verify(jwtUtil).generateToken(authentication);
+            verify(jwtUtil).generateToken(argThat(auth -> auth.getPrincipal() == principal), isNull());
+            verify(accountLockService).recordSuccessfulLogin(eq(username), any(), any());
+            verifyNoInteractions(userRepository);
         }
 
         @Test
@@ -182,26 +224,44 @@ class UserServiceImplTest {
             assertThatThrownBy(() -> userService.authenticateUser(request, httpRequest))
                     .isInstanceOf(InvalidCredentialsException.class)
                     .hasMessageContaining("Invalid username or password");
+            verify(accountLockService).recordFailedLogin(eq("testuser"), any(), any(), eq("INVALID_PASSWORD"));
         }
 
         @Test
-        @DisplayName("Should throw exception when user not found after authentication")
-        void shouldThrowExceptionWhenUserNotFoundAfterAuth() {
+        @DisplayName("Should record unknown username as a failed login")
+        void shouldRecordUnknownUsernameAsFailedLogin() {
             // Arrange
             String username = "testuser";
             LoginRequest request = new LoginRequest();
             request.setUsername(username);
             request.setPassword("Test@1234");
 
-            Authentication authentication = mock(Authentication.class);
+            when(authenticationManager.authenticate(any()))
+                    .thenThrow(new UsernameNotFoundException("User not found: " + username));
 
-            when(authenticationManager.authenticate(any())).thenReturn(authentication);
-            when(jwtUtil.generateToken(authentication)).thenReturn("token");
-            when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+            // Act & Assert
+            assertThatThrownBy(() -> userService.authenticateUser(request, httpRequest))
+                    .isInstanceOf(InvalidCredentialsException.class)
+                    .hasMessageContaining("Invalid username or password");
+            verify(accountLockService).recordFailedLogin(eq(username), any(), any(), eq("USER_NOT_FOUND"));
+            verifyNoInteractions(jwtUtil);
+        }
+
+        @Test
+        @DisplayName("Should reject locked account")
+        void shouldRejectLockedAccount() {
+            // Arrange
+            LoginRequest request = new LoginRequest();
+            request.setUsername("testuser");
+            request.setPassword("Test@1234");
+
+            when(authenticationManager.authenticate(any())).thenThrow(new LockedException("Account is locked"));
 
             // Act & Assert
             assertThatThrownBy(() -> userService.authenticateUser(request, httpRequest))
-                    .isInstanceOf(InvalidCredentialsException.class);
+                    .isInstanceOf(InvalidCredentialsException.class)
+                    .hasMessageContaining("Account is locked");
+            verify(accountLockService).recordFailedLogin(eq("testuser"), any(), any(), eq("ACCOUNT_LOCKED"));
         }
     }
 
@@ -210,56 +270,55 @@ class UserServiceImplTest {
     class GetAllUsersTests {
 
         @Test
-        @DisplayName("Should return all users for admin")
-        void shouldReturnAllUsersForAdmin() {
+        @DisplayName("Should return a keyset page with next cursor for admin")
+        void shouldReturnKeysetPageForAdmin() {
             // Arrange
-            String adminUsername = "admin";
-            User admin = TestDataBuilder.adminUser().username(adminUsername).build();
-            List<User> allUsers = Arrays.asList(
-                    TestDataBuilder.user().id(1L).build(),
-                    TestDataBuilder.user().id(2L).build(),
-                    TestDataBuilder.user().id(3L).build()
-            );
+            User admin = TestDataBuilder.adminUser().username("admin").id(1L).build();
+            List<UserResponseView> rows = Arrays.asList(userView(11L), userView(12L), mock(UserResponseView.class));
 
-            when(userRepository.findByUsername(adminUsername)).thenReturn(Optional.of(admin));
-            when(userRepository.findAll()).thenReturn(allUsers);
+            when(userRepository.findPageAfter(10L, Limit.of(3))).thenReturn(rows);
 
             // Act
-            List<User> result = userService.getAllUsers(adminUsername);
+            CursorPageResponse<UserResponse> result = userService.getAllUsers(AuthenticatedUser.from(admin), 10L, 2);
 
             // Assert
-            assertThat(result).hasSize(3);
-            assertThat(result).isEqualTo(allUsers);
-            verify(userRepository).findAll();
+            assertThat(result.getContent()).extracting(UserResponse::getId).containsExactly(11L, 12L);
+            assertThat(result.isHasNext()).isTrue();
+            assertThat(result.getNextCursor()).isEqualTo(12L);
+            verify(userRepository, never()).findAll();
         }
 
         @Test
         @DisplayName("Should throw UnauthorizedException for non-admin")
         void shouldThrowUnauthorizedExceptionForNonAdmin() {
             // Arrange
-            String username = "regularuser";
-            User user = TestDataBuilder.user().username(username).build();
-
-            when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+            User user = TestDataBuilder.user().username("regularuser").id(2L).build();
 
             // Act & Assert
-            assertThatThrownBy(() -> userService.getAllUsers(username))
+            assertThatThrownBy(() -> userService.getAllUsers(AuthenticatedUser.from(user), null, 20))
                     .isInstanceOf(UnauthorizedException.class)
                     .hasMessageContaining("You do not have permission to view all users");
 
-            verify(userRepository, never()).findAll();
+            verifyNoInteractions(userRepository);
         }
 
         @Test
-        @DisplayName("Should throw UserNotFoundException when current user not found")
-        void shouldThrowUserNotFoundExceptionWhenCurrentUserNotFound() {
+        @DisplayName("Should reject streaming for non-admin before any query runs")
+        void shouldRejectStreamingForNonAdmin() {
             // Arrange
-            String username = "nonexistent";
-            when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+            User user = TestDataBuilder.user().username("regularuser").id(2L).build();
 
             // Act & Assert
-            assertThatThrownBy(() -> userService.getAllUsers(username))
-                    .isInstanceOf(UserNotFoundException.class);
+            assertThatThrownBy(() -> userService.streamAllUsers(AuthenticatedUser.from(user)))
+                    .isInstanceOf(UnauthorizedException.class);
+
+            verifyNoInteractions(userRepository);
+        }
+
+        private UserResponseView userView(Long id) {
+            UserResponseView view = mock(UserResponseView.class);
+            when(view.getId()).thenReturn(id);
+            return view;
         }
     }
 
@@ -271,70 +330,64 @@ class UserServiceImplTest {
         @DisplayName("Should return user when requested by admin")
         void shouldReturnUserWhenRequestedByAdmin() {
             // Arrange
-            String adminUsername = "admin";
             Long targetUserId = 5L;
-            User admin = TestDataBuilder.adminUser().username(adminUsername).id(1L).build();
-            User targetUser = TestDataBuilder.user().id(targetUserId).build();
+            User admin = TestDataBuilder.adminUser().username("admin").id(1L).build();
+            UserResponse targetUser = UserResponse.from(TestDataBuilder.user().id(targetUserId).build());
 
-            when(userRepository.findByUsername(adminUsername)).thenReturn(Optional.of(admin));
-            when(userRepository.findById(targetUserId)).thenReturn(Optional.of(targetUser));
+            when(userRepository.findResponseById(targetUserId)).thenReturn(Optional.of(targetUser));
 
             // Act
-            User result = userService.getUserById(targetUserId, adminUsername);
+            UserResponse result = userService.getUserById(targetUserId, AuthenticatedUser.from(admin));
 
             // Assert
             assertThat(result).isEqualTo(targetUser);
+            verify(userRepository, never()).findByUsername(anyString());
         }
 
         @Test
         @DisplayName("Should return user when requested by owner")
         void shouldReturnUserWhenRequestedByOwner() {
             // Arrange
-            String username = "testuser";
             Long userId = 5L;
-            User user = TestDataBuilder.user().username(username).id(userId).build();
+            User user = TestDataBuilder.user().username("testuser").id(userId).build();
+            UserResponse response = UserResponse.from(user);
 
-            when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-            when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+            when(userRepository.findResponseById(userId)).thenReturn(Optional.of(response));
 
             // Act
-            User result = userService.getUserById(userId, username);
+            UserResponse result = userService.getUserById(userId, AuthenticatedUser.from(user));
 
             // Assert
-            assertThat(result).isEqualTo(user);
+            assertThat(result).isEqualTo(response);
+            assertThat(result.getUsername()).isEqualTo("testuser");
         }
 
         @Test
-        @DisplayName("Should throw UnauthorizedException when user is not admin or owner")
+        @DisplayName("Should throw UnauthorizedException without loading when user is not admin or owner")
         void shouldThrowUnauthorizedExceptionWhenNotAdminOrOwner() {
             // Arrange
-            String username = "user1";
             Long targetUserId = 99L;
-            User currentUser = TestDataBuilder.user().username(username).id(1L).build();
-            User targetUser = TestDataBuilder.user().id(targetUserId).build();
-
-            when(userRepository.findByUsername(username)).thenReturn(Optional.of(currentUser));
-            when(userRepository.findById(targetUserId)).thenReturn(Optional.of(targetUser));
+            User currentUser = TestDataBuilder.user().username("user1").id(1L).build();
 
             // Act & Assert
-            assertThatThrownBy(() -> userService.getUserById(targetUserId, username))
+            assertThatThrownBy(() -> userService.getUserById(targetUserId, AuthenticatedUser.from(currentUser)))
                     .isInstanceOf(UnauthorizedException.class)
                     .hasMessageContaining("You do not have permission to view this user");
+
+            verifyNoInteractions(userRepository);
         }
 
         @Test
         @DisplayName("Should throw UserNotFoundException when target user not found")
         void shouldThrowUserNotFoundExceptionWhenTargetUserNotFound() {
             // Arrange
-            String adminUsername = "admin";
             Long targetUserId = 999L;
-            User admin = TestDataBuilder.adminUser().username(adminUsername).build();
+            User admin = TestDataBuilder.adminUser().username("admin").build();
 
-            when(userRepository.findByUsername(adminUsername)).thenReturn(Optional.of(admin));
-            when(userRepository.findById(targetUserId)).thenReturn(Optional.empty());
+            when(userRepository.findResponseById(targetUserId)).thenReturn(Optional.empty());
 
             // Act & Assert
-            assertThatThrownBy(() -> userService.getUserById(targetUserId, adminUsername))
+            assertThatThrownBy(() -> userService.getUserById(targetUserId, AuthenticatedUser.from(admin)))
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessageContaining("User not found with ID: " + targetUserId);
         }